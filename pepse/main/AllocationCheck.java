@@ -0,0 +1,144 @@
+package pepse.main;
+
+import danogl.GameObject;
+import danogl.gui.ImageReader;
+import danogl.gui.MessageHandler;
+import danogl.util.Vector2;
+import pepse.util.AllocationMeter;
+import pepse.util.AssetManager;
+import pepse.util.PepseConstants;
+import pepse.world.Avatar;
+import pepse.world.Block;
+import pepse.world.Terrain;
+import pepse.world.TerrainEdits;
+import pepse.world.daynight.WorldClock;
+import pepse.world.trees.Flora;
+
+import java.awt.event.KeyEvent;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.function.BiConsumer;
+
+/**
+ * Guards the per-frame hot paths against allocation regressions. Drives the terrain, the flora and the
+ * avatar without a window, measures the bytes allocated per column shift, per avatar update tick and per
+ * jump broadcast, and compares them with the budgets checked in at allocation-budgets.properties.
+ * Exits with a non-zero status when a hot path exceeds its budget, so it can gate a build.
+ */
+public class AllocationCheck {
+
+    private static final Path BUDGETS_PATH = Path.of("allocation-budgets.properties");
+    private static final String RECORD_ARG = "--record"; // Rewrites the budgets from the measurements
+    private static final float RECORD_HEADROOM = 1.25f; // Budget recorded relative to the measurement
+    private static final long RECORD_SLACK_BYTES = 64; // Minimal budget above the measurement
+    private static final int SEED = 666;
+    private static final Vector2 WINDOW_DIMENSIONS = new Vector2(1600, 900);
+    private static final int RENDERED_HALF_WIDTH = (int) (WINDOW_DIMENSIONS.x() * 2 / 3);
+    private static final float FRAME_TIME = 1 / 60f;
+    private static final int WARMUP_ITERATIONS = 2000;
+    private static final int MEASURE_ITERATIONS = 2000;
+    private static final BiConsumer<GameObject, Integer> NO_OP = (gameObject, layer) -> { };
+
+    /**
+     * Runs the allocation check.
+     *
+     * @param args Passing --record rewrites the budgets file with the current measurements plus headroom,
+     *             instead of checking them.
+     * @throws IOException If the budgets file cannot be read or written.
+     */
+    public static void main(String[] args) throws IOException {
+        boolean record = args.length > 0 && args[0].equals(RECORD_ARG);
+        Map<String, Long> measurements = measure();
+
+        Properties budgets = new Properties();
+        if (record) {
+            measurements.forEach((name, bytes) ->
+                    budgets.setProperty(name, Long.toString(
+                            Math.max((long) (bytes * RECORD_HEADROOM), bytes + RECORD_SLACK_BYTES))));
+            try (OutputStream out = Files.newOutputStream(BUDGETS_PATH)) {
+                budgets.store(out, "Bytes allocated per run of each hot path, checked by AllocationCheck");
+            }
+            System.out.println("Recorded budgets to " + BUDGETS_PATH);
+            return;
+        }
+
+        try (InputStream in = Files.newInputStream(BUDGETS_PATH)) {
+            budgets.load(in);
+        }
+        boolean failed = false;
+        for (Map.Entry<String, Long> measurement : measurements.entrySet()) {
+            String budget = budgets.getProperty(measurement.getKey());
+            boolean exceeded = budget == null || measurement.getValue() > Long.parseLong(budget);
+            failed |= exceeded;
+            System.out.println(measurement.getKey() + ": " + measurement.getValue() + " bytes/run, budget "
+                    + (budget == null ? "missing" : budget) + (exceeded ? " EXCEEDED" : " ok"));
+        }
+        if (failed) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Builds a headless world and measures the allocations of every hot path.
+     *
+     * @return The bytes allocated per run, by hot path name.
+     */
+    private static Map<String, Long> measure() {
+        AllocationMeter meter = new AllocationMeter();
+        ScriptedInput input = new ScriptedInput();
+        AssetManager assetManager = new AssetManager(new ImageReader(new MessageHandler(null)));
+        Avatar avatar = new Avatar(Vector2.ZERO, input, assetManager);
+
+        Terrain terrain = new Terrain(WINDOW_DIMENSIONS, SEED, new TerrainEdits());
+        Flora flora = new Flora(terrain::groundHeightAt, terrain::biomeAt, SEED,
+                new WorldClock(PepseConstants.DAY_CYCLE));
+        terrain.addInRange(-RENDERED_HALF_WIDTH, RENDERED_HALF_WIDTH, NO_OP);
+        flora.addTreesInRange(-RENDERED_HALF_WIDTH, RENDERED_HALF_WIDTH, NO_OP, avatar);
+
+        Map<String, Long> measurements = new LinkedHashMap<>();
+
+        // Shifts the rendered range a column to the right, as walking does
+        measurements.put("columnShift", meter.bytesPerRun(() -> {
+            int left = terrain.getLeftColumn();
+            int right = terrain.getRightColumn();
+            flora.removeTreeInColumn(left, NO_OP, avatar);
+            terrain.removeColumn(left, NO_OP);
+            terrain.addColumn(right + Block.BLOCK_SIZE, NO_OP);
+            flora.addTreeInColumn(right + Block.BLOCK_SIZE, NO_OP, avatar);
+        }, WARMUP_ITERATIONS, MEASURE_ITERATIONS));
+
+        // Runs the avatar while standing on flat ground
+        input.press(KeyEvent.VK_RIGHT);
+        measurements.put("avatarTick", meter.bytesPerRun(() -> {
+            standOnGround(avatar);
+            avatar.update(FRAME_TIME);
+        }, WARMUP_ITERATIONS, MEASURE_ITERATIONS));
+        input.releaseAll();
+
+        // Jumps from the ground, notifying the trees of the whole rendered range
+        input.press(KeyEvent.VK_SPACE);
+        measurements.put("jumpBroadcast", meter.bytesPerRun(() -> {
+            standOnGround(avatar);
+            avatar.update(FRAME_TIME);
+        }, WARMUP_ITERATIONS, MEASURE_ITERATIONS));
+        return measurements;
+    }
+
+    /**
+     * Puts the avatar in the state a collision with the ground leaves it in, with full energy, since there
+     * is no ground to collide with.
+     *
+     * @param avatar The avatar.
+     */
+    private static void standOnGround(Avatar avatar) {
+        avatar.transform().setVelocity(Vector2.ZERO);
+        avatar.transform().setAccelerationEnabled(false);
+        avatar.setEnergy(Float.MAX_VALUE);
+    }
+}
@@ -0,0 +1,245 @@
+package pepse.main;
+
+import danogl.GameObject;
+import danogl.gui.ImageReader;
+import danogl.gui.MessageHandler;
+import danogl.util.Vector2;
+import pepse.util.AssetManager;
+import pepse.util.PepseConstants;
+import pepse.world.Avatar;
+import pepse.world.BiomeMap;
+import pepse.world.Block;
+import pepse.world.Terrain;
+import pepse.world.TerrainEdits;
+import pepse.world.WorldGenerator;
+import pepse.world.daynight.WorldClock;
+import pepse.world.trees.Flora;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BiConsumer;
+
+/**
+ * Proves that optimizations of world generation don't change the world. Generates a range of columns for a
+ * seed, hashes the position, size and layer of every resulting game object into a checksum per chunk of
+ * columns, and compares the checksums with the golden ones checked in at world-checksums.properties.
+ * The range is generated serially through Terrain.createInRange and Flora.createInRange, and in parallel
+ * through the WorldGenerator at several thread counts, and every generation must match the golden file.
+ * The checksum of a chunk doesn't depend on the order its objects are generated in. Exits with a non-zero
+ * status when a chunk differs, so it can gate a build.
+ */
+public class GenerationCheck {
+
+    private static final Path GOLDEN_PATH = Path.of("world-checksums.properties");
+    private static final String RECORD_ARG = "--record"; // Rewrites the golden file from serial generation
+    private static final String SEED_ARG = "--seed="; // Followed by the seed to record
+    private static final String COLUMNS_ARG = "--columns="; // Followed by the columns to each side to record
+    private static final String SEED_KEY = "seed";
+    private static final String MIN_X_KEY = "minX";
+    private static final String MAX_X_KEY = "maxX";
+    private static final String CHUNK_KEY_PREFIX = "chunk.";
+    private static final int DEFAULT_SEED = 666;
+    private static final int DEFAULT_COLUMNS = 640; // Columns to each side of x = 0, 40 chunks
+    private static final int[] THREAD_COUNTS = {1, 2, 4, 8};
+    private static final int CHUNK_WIDTH = BiomeMap.CHUNK_COLUMNS * Block.BLOCK_SIZE;
+    private static final int MAX_REPORTED_CHUNKS = 5; // Differing chunks listed per generation mode
+    private static final Vector2 WINDOW_DIMENSIONS = new Vector2(1600, 900);
+
+    /**
+     * Runs the generation check.
+     *
+     * @param args Passing --record rewrites the golden file from serial generation, of the seed given with
+     *             --seed=SEED and of the columns given with --columns=N to each side of x = 0, instead of
+     *             checking it.
+     * @throws IOException If the golden file cannot be read or written.
+     */
+    public static void main(String[] args) throws IOException {
+        boolean record = false;
+        int seed = DEFAULT_SEED;
+        int columns = DEFAULT_COLUMNS;
+        for (String arg : args) {
+            if (arg.equals(RECORD_ARG)) {
+                record = true;
+            } else if (arg.startsWith(SEED_ARG)) {
+                seed = Integer.parseInt(arg.substring(SEED_ARG.length()));
+            } else if (arg.startsWith(COLUMNS_ARG)) {
+                columns = Integer.parseInt(arg.substring(COLUMNS_ARG.length()));
+            }
+        }
+
+        Properties golden = new Properties();
+        if (record) {
+            int minX = -columns * Block.BLOCK_SIZE;
+            int maxX = columns * Block.BLOCK_SIZE;
+            golden.setProperty(SEED_KEY, Integer.toString(seed));
+            golden.setProperty(MIN_X_KEY, Integer.toString(minX));
+            golden.setProperty(MAX_X_KEY, Integer.toString(maxX));
+            generateSerially(seed, minX, maxX).forEach((chunk, checksum) ->
+                    golden.setProperty(CHUNK_KEY_PREFIX + chunk, Long.toHexString(checksum)));
+            try (OutputStream out = Files.newOutputStream(GOLDEN_PATH)) {
+                golden.store(out, "Checksums of the generated world per chunk, checked by GenerationCheck");
+            }
+            System.out.println("Recorded checksums to " + GOLDEN_PATH);
+            return;
+        }
+
+        try (InputStream in = Files.newInputStream(GOLDEN_PATH)) {
+            golden.load(in);
+        }
+        seed = Integer.parseInt(golden.getProperty(SEED_KEY));
+        int minX = Integer.parseInt(golden.getProperty(MIN_X_KEY));
+        int maxX = Integer.parseInt(golden.getProperty(MAX_X_KEY));
+        Map<Integer, Long> expected = new TreeMap<>();
+        for (String key : golden.stringPropertyNames()) {
+            if (key.startsWith(CHUNK_KEY_PREFIX)) {
+                expected.put(Integer.parseInt(key.substring(CHUNK_KEY_PREFIX.length())),
+                        Long.parseUnsignedLong(golden.getProperty(key), 16));
+            }
+        }
+
+        Map<String, Map<Integer, Long>> generations = new LinkedHashMap<>();
+        generations.put("serial", generateSerially(seed, minX, maxX));
+        for (int threads : THREAD_COUNTS) {
+            generations.put("parallel x" + threads, generateInParallel(seed, minX, maxX, threads));
+        }
+        boolean failed = false;
+        for (Map.Entry<String, Map<Integer, Long>> generation : generations.entrySet()) {
+            failed |= !compare(generation.getKey(), expected, generation.getValue());
+        }
+        if (failed) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Generates a range of columns through Terrain.createInRange and Flora.createInRange, on this thread.
+     *
+     * @param seed The seed of the world.
+     * @param minX The minimal x coordinate of the range (inclusive).
+     * @param maxX The maximal x coordinate of the range (inclusive).
+     * @return The checksum of every chunk, by chunk index.
+     */
+    private static Map<Integer, Long> generateSerially(int seed, int minX, int maxX) {
+        Terrain terrain = new Terrain(WINDOW_DIMENSIONS, seed, new TerrainEdits());
+        Flora flora = new Flora(terrain::groundHeightAt, terrain::biomeAt, seed,
+                new WorldClock(PepseConstants.DAY_CYCLE));
+        terrain.createInRange(minX, maxX);
+        flora.createInRange(minX, maxX);
+
+        Map<Integer, Long> checksums = new TreeMap<>();
+        BiConsumer<GameObject, Integer> hashObject =
+                (gameObject, layer) -> hash(checksums, gameObject, layer);
+        terrain.forEachBlock(hashObject::accept);
+        flora.forEachTree((x, tree) -> tree.addTree(hashObject));
+        return checksums;
+    }
+
+    /**
+     * Generates a range of columns through the WorldGenerator, building them in parallel.
+     *
+     * @param seed    The seed of the world.
+     * @param minX    The minimal x coordinate of the range (inclusive).
+     * @param maxX    The maximal x coordinate of the range (inclusive).
+     * @param threads The number of threads to build the columns on.
+     * @return The checksum of every chunk, by chunk index.
+     */
+    private static Map<Integer, Long> generateInParallel(int seed, int minX, int maxX, int threads) {
+        Terrain terrain = new Terrain(WINDOW_DIMENSIONS, seed, new TerrainEdits());
+        Flora flora = new Flora(terrain::groundHeightAt, terrain::biomeAt, seed,
+                new WorldClock(PepseConstants.DAY_CYCLE));
+        AssetManager assetManager = new AssetManager(new ImageReader(new MessageHandler(null)));
+        Avatar avatar = new Avatar(Vector2.ZERO, new ScriptedInput(), assetManager);
+
+        Map<Integer, Long> checksums = new TreeMap<>();
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            new WorldGenerator(terrain, flora, pool).addInRange(minX, maxX,
+                    (gameObject, layer) -> hash(checksums, gameObject, layer), avatar);
+        } finally {
+            pool.shutdown();
+        }
+        return checksums;
+    }
+
+    /**
+     * Adds the hash of a game object's position, size and layer to the checksum of its chunk. Hashes are
+     * summed, so the checksum doesn't depend on the order the objects are hashed in.
+     *
+     * @param checksums  The checksum of every chunk, by chunk index.
+     * @param gameObject The game object.
+     * @param layer      The layer the game object belongs in.
+     */
+    private static void hash(Map<Integer, Long> checksums, GameObject gameObject, int layer) {
+        Vector2 topLeftCorner = gameObject.getTopLeftCorner();
+        Vector2 dimensions = gameObject.getDimensions();
+        long hash = mix(0, Float.floatToIntBits(topLeftCorner.x()));
+        hash = mix(hash, Float.floatToIntBits(topLeftCorner.y()));
+        hash = mix(hash, Float.floatToIntBits(dimensions.x()));
+        hash = mix(hash, Float.floatToIntBits(dimensions.y()));
+        hash = mix(hash, layer);
+        int chunk = Math.floorDiv((int) Math.floor(topLeftCorner.x()), CHUNK_WIDTH);
+        checksums.merge(chunk, hash, Long::sum);
+    }
+
+    /**
+     * Mixes a value into a hash, spreading every bit of it over the whole hash.
+     *
+     * @param hash  The hash so far.
+     * @param value The value to mix in.
+     * @return The new hash.
+     */
+    private static long mix(long hash, long value) {
+        long mixed = (hash ^ value) + 0x9E3779B97F4A7C15L;
+        mixed = (mixed ^ (mixed >>> 30)) * 0xBF58476D1CE4E5B9L;
+        mixed = (mixed ^ (mixed >>> 27)) * 0x94D049BB133111EBL;
+        return mixed ^ (mixed >>> 31);
+    }
+
+    /**
+     * Compares the checksums of a generation with the golden ones, and prints the result.
+     *
+     * @param name     The name of the generation mode.
+     * @param expected The golden checksums, by chunk index.
+     * @param actual   The checksums of the generation, by chunk index.
+     * @return True if every chunk matches, false otherwise.
+     */
+    private static boolean compare(String name, Map<Integer, Long> expected, Map<Integer, Long> actual) {
+        TreeSet<Integer> chunks = new TreeSet<>(expected.keySet());
+        chunks.addAll(actual.keySet());
+        int differing = 0;
+        StringBuilder report = new StringBuilder();
+        for (int chunk : chunks) {
+            Long expectedChecksum = expected.get(chunk);
+            Long actualChecksum = actual.get(chunk);
+            if (expectedChecksum == null || !expectedChecksum.equals(actualChecksum)) {
+                if (differing < MAX_REPORTED_CHUNKS) {
+                    report.append(String.format("%n  chunk %d (x %d): expected %s, got %s", chunk,
+                            chunk * CHUNK_WIDTH, toHex(expectedChecksum), toHex(actualChecksum)));
+                }
+                differing++;
+            }
+        }
+        System.out.println(name + ": " + chunks.size() + " chunks, "
+                + (differing == 0 ? "ok" : differing + " DIFFERING") + report);
+        return differing == 0;
+    }
+
+    /**
+     * Formats a checksum as it is stored in the golden file.
+     *
+     * @param checksum The checksum, or null if the chunk is missing.
+     * @return The formatted checksum.
+     */
+    private static String toHex(Long checksum) {
+        return checksum == null ? "missing" : Long.toHexString(checksum);
+    }
+}
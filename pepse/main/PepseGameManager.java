@@ -4,17 +4,53 @@ import danogl.GameManager;
 import danogl.GameObject;
 import danogl.collisions.Layer;
 import danogl.gui.ImageReader;
+import danogl.gui.MsgLevel;
 import danogl.gui.SoundReader;
 import danogl.gui.UserInputListener;
 import danogl.gui.WindowController;
+import danogl.gui.mouse.MouseButton;
 import danogl.gui.rendering.Camera;
+import danogl.gui.rendering.Renderable;
 import danogl.util.Vector2;
+import pepse.net.AvatarState;
+import pepse.net.RemoteAvatarViews;
+import pepse.net.SnapshotClient;
+import pepse.net.SnapshotServer;
 import pepse.ui.EnergyUI;
+import pepse.ui.Minimap;
+import pepse.ui.ObjectBudgetUI;
+import pepse.ui.QualityUI;
+import pepse.ui.SaveUI;
+import pepse.util.AssetManager;
+import pepse.util.EvictionLevel;
+import pepse.util.ObjectBudget;
+import pepse.util.QualityGovernor;
+import pepse.util.QualityLevel;
+import pepse.util.StartupProfiler;
 import pepse.world.*;
+import pepse.world.daynight.LightMap;
 import pepse.world.daynight.Night;
 import pepse.world.daynight.Sun;
 import pepse.world.daynight.SunHalo;
+import pepse.world.daynight.Weather;
+import pepse.world.daynight.WorldClock;
+import pepse.world.npc.WalkerSwarm;
+import pepse.world.npc.WalkerViews;
+import pepse.world.save.ColumnRecord;
+import pepse.world.save.SessionRecord;
+import pepse.world.save.WorldSave;
 import pepse.world.trees.Flora;
+import pepse.world.trees.Tree;
+
+import java.awt.event.KeyEvent;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
 
 /**
  * Main game manager class for PEPSE game.
@@ -24,20 +60,155 @@ public class PepseGameManager extends GameManager {
 
     private static final int SEED = 666;
     private static final float DAY_CYCLE = 30;
-    private static final float WINDOW_FACTOR = 2 / 3f;
+    private static final float TARGET_FRAME_RATE = 60;
+    private static final int SLEEP_MARGIN = 6 * Block.BLOCK_SIZE; // Awake margin around the camera view
+    private static final String BENCHMARK_STARTUP_ARG = "--benchmark-startup"; // Optionally =<report path>
+    private static final Path SAVE_DIRECTORY = Path.of("saves"); // Where the world is saved and resumed from
+    private static final boolean COMPRESS_REGIONS = true; // Whether region files are compressed
+    private static final int SAVE_KEY = KeyEvent.VK_F5; // Key that saves the world
+    private static final float AUTOSAVE_INTERVAL = 60; // Real seconds between autosaves
+    private static final MouseButton DIG_BUTTON = MouseButton.LEFT_BUTTON; // Removes the clicked block
+    private static final MouseButton PLACE_BUTTON = MouseButton.RIGHT_BUTTON; // Places a block where clicked
+    private static final float EDIT_REACH = 4 * Block.BLOCK_SIZE; // Max distance of edits from the avatar
+    private static final int ZOOM_KEY = KeyEvent.VK_Z; // Key that cycles through the zoom levels
+    private static final float[] ZOOM_LEVELS = {1, 2, 4}; // Camera view sizes, relative to the window
+    private static final int CLOCK_PAUSE_KEY = KeyEvent.VK_P; // Key that pauses and resumes the day cycle
+    private static final int CLOCK_SPEED_KEY = KeyEvent.VK_T; // Key that cycles through the time scales
+    private static final float[] TIME_SCALES = {1, 2, 4, 8}; // Clock seconds per real second
+    private static final int FAST_FORWARD_KEY = KeyEvent.VK_F; // Key that skips part of the day cycle
+    private static final float FAST_FORWARD_CYCLES = 0.25f; // Part of the day cycle skipped at once
+    private static final int WALKERS_COUNT = 300; // Number of NPC walkers in the world
+    private static final String HOST_ARG = "--host"; // Optionally =<port>, serves the world to other players
+    private static final String CONNECT_ARG = "--connect"; // Optionally =<port>, joins a hosted world
+    private static final int DEFAULT_PORT = 47474; // Loopback port of the multiplayer server
+    private static final int MIN_PORT = 1; // Lowest port accepted by --host and --connect
+    private static final int MAX_PORT = 65535; // Highest port accepted by --host and --connect
+    private static final int WALKERS_SPREAD = 300 * Block.BLOCK_SIZE; // Spawn distance of walkers from start
+    private static final String OBJECT_BUDGET_ARG = "--object-budget="; // Followed by the live object budget
+    private static final int DEFAULT_OBJECT_BUDGET = 20000; // Live world objects before evicting any
+    private static final int EVICTED_BLOCK_DEPTH = 6; // Generated blocks per column when evicting deep blocks
+    private static final float REBASE_DISTANCE = 2048 * Block.BLOCK_SIZE; // Avatar x that moves the origin
 
     private int[] currentRenderedRange;
     private Terrain terrain;
     private Flora flora;
     private Avatar avatar;
+    private WorldGenerator worldGenerator;
+    private DistantTerrain distantTerrain;
+    private int zoomLevel = 0; // Index of the current zoom level
+    private WalkerSwarm walkerSwarm;
+    private WalkerViews walkerViews;
+    private WindowController windowController;
+    private UserInputListener inputListener;
+    private WorldSave worldSave;
+    private CompletableFuture<WorldSave.SaveMetrics> pendingSave; // The save being written, if any
+    private boolean pendingSaveIsManual; // Whether the pending save was asked for, and should be reported
+    private WorldSave.SaveMetrics lastSaveMetrics; // Metrics of the last completed save, or null
+    private float timeSinceSave = 0; // Real seconds since the last save was taken
+    private QualityGovernor qualityGovernor;
+    private ObjectBudget objectBudget;
+    private int maxObjects = DEFAULT_OBJECT_BUDGET; // The budget of live world objects
+    private int windowWidth;
+    private GameObject sunHalo;
+    private GameObject night;
+    private Weather weather;
+    private LightMap lightMap;
+    private Renderable lightMapRenderable;
+    private WorldClock clock; // The time of day, shared by everything that follows the day cycle
+    private int timeScaleLevel = 0; // Index of the current time scale
+    private Renderable sunHaloRenderable;
+    private Renderable nightRenderable;
+    private int seed = SEED; // The seed of the world, the server's when joining a hosted world
+    private Integer hostPort; // Set only when hosting a world
+    private Integer connectPort; // Set only when joining a hosted world
+    private SnapshotServer snapshotServer;
+    private SnapshotClient snapshotClient;
+    private RemoteAvatarViews remoteAvatarViews;
+    private final Map<Integer, ColumnRecord> remoteTreeStates = new HashMap<>(); // Server tree states by x
+    private StartupProfiler startupProfiler; // Set only in startup benchmark mode
+    private String startupReportPath; // Null to report to the standard output
 
     /**
      * Entry point for the PEPSE game.
      *
-     * @param args The command line arguments. Unused.
+     * @param args The command line arguments. Passing --benchmark-startup[=report path] launches the game,
+     *             measures its startup phases until the first frame, writes a JSON report and exits.
+     *             Passing --host[=port] serves the world to other players on this machine, and
+     *             --connect[=port] joins a world hosted on this machine instead of playing alone.
+     *             Passing --object-budget=count sets the number of live world objects above which far
+     *             and hidden objects are evicted.
      */
     public static void main(String[] args) {
-        new PepseGameManager().run();
+        StartupProfiler startupProfiler = null;
+        String startupReportPath = null;
+        Integer hostPort = null;
+        Integer connectPort = null;
+        int maxObjects = DEFAULT_OBJECT_BUDGET;
+        for (String arg : args) {
+            if (arg.startsWith(BENCHMARK_STARTUP_ARG)) {
+                startupProfiler = new StartupProfiler();
+                if (arg.startsWith(BENCHMARK_STARTUP_ARG + "=")) {
+                    startupReportPath = arg.substring(BENCHMARK_STARTUP_ARG.length() + 1);
+                }
+            } else if (arg.startsWith(HOST_ARG)) {
+                hostPort = parsePort(arg, HOST_ARG);
+            } else if (arg.startsWith(CONNECT_ARG)) {
+                connectPort = parsePort(arg, CONNECT_ARG);
+            } else if (arg.startsWith(OBJECT_BUDGET_ARG)) {
+                maxObjects = parseObjectBudget(arg.substring(OBJECT_BUDGET_ARG.length()));
+            }
+        }
+
+        PepseGameManager gameManager = new PepseGameManager();
+        gameManager.startupProfiler = startupProfiler;
+        gameManager.startupReportPath = startupReportPath;
+        gameManager.hostPort = hostPort;
+        gameManager.connectPort = connectPort;
+        gameManager.maxObjects = maxObjects;
+        gameManager.run();
+    }
+
+    /**
+     * Parses the value of the object budget argument.
+     *
+     * @param value The value given after --object-budget=.
+     * @return The budget given, or the default budget if it isn't a positive number.
+     */
+    private static int parseObjectBudget(String value) {
+        try {
+            int maxObjects = Integer.parseInt(value);
+            if (maxObjects > 0) {
+                return maxObjects;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below, like a budget that isn't positive
+        }
+        System.err.println("Invalid object budget " + value + ", using " + DEFAULT_OBJECT_BUDGET);
+        return DEFAULT_OBJECT_BUDGET;
+    }
+
+    /**
+     * Parses the port of a multiplayer argument.
+     *
+     * @param arg    The argument, either the bare option or the option followed by =port.
+     * @param option The option name.
+     * @return The port given in the argument, or the default port if there is none or it isn't valid.
+     */
+    private static int parsePort(String arg, String option) {
+        if (!arg.startsWith(option + "=")) {
+            return DEFAULT_PORT;
+        }
+        String value = arg.substring(option.length() + 1);
+        try {
+            int port = Integer.parseInt(value);
+            if (port >= MIN_PORT && port <= MAX_PORT) {
+                return port;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below, like an out-of-range port
+        }
+        System.err.println("Invalid port " + value + " for " + option + ", using " + DEFAULT_PORT);
+        return DEFAULT_PORT;
     }
 
     /**
@@ -47,8 +218,400 @@ public class PepseGameManager extends GameManager {
      */
     @Override
     public void update(float deltaTime) {
+        updateClock(deltaTime);
         super.update(deltaTime);
+        if (startupProfiler != null) {
+            finishStartupBenchmark();
+            return;
+        }
+        qualityGovernor.recordFrame(deltaTime);
+        updateOrigin();
+        if (worldSave != null) {
+            worldSave.requestRegionsAround(avatar.getCenter().x() + terrain.getOriginX(), windowWidth);
+            worldSave.pollLoadedRegions();
+            pollPendingSave();
+            timeSinceSave += deltaTime;
+            if (inputListener.wasKeyPressedThisFrame(SAVE_KEY)) {
+                saveWorld(true);
+            } else if (timeSinceSave >= AUTOSAVE_INTERVAL) {
+                saveWorld(false);
+            }
+        }
+
+        // The server owns the world, so players who joined it can't edit the terrain
+        if (snapshotClient == null) {
+            editTerrain();
+        }
         updateTerrainAndFlora();
+        flora.growTrees(objectBudget::addObject);
+        updateRenderedRangeWidth();
+        updateZoom();
+        lightMap.update(clock.getSunAngle(), terrain.getLeftColumn(),
+                terrain.getRightColumn() + Block.BLOCK_SIZE);
+        walkerSwarm.update(deltaTime);
+        updateAwakeRange();
+        updateMultiplayer(deltaTime);
+        objectBudget.update();
+    }
+
+    /**
+     * Advances the world clock by the frame's time, and pauses, speeds up or fast-forwards it when the
+     * matching keys are pressed. Runs before the game objects update, so they all read the same time.
+     *
+     * @param deltaTime The time elapsed since the last update in seconds.
+     */
+    private void updateClock(float deltaTime) {
+        if (inputListener.wasKeyPressedThisFrame(CLOCK_PAUSE_KEY)) {
+            clock.setPaused(!clock.isPaused());
+        }
+        if (inputListener.wasKeyPressedThisFrame(CLOCK_SPEED_KEY)) {
+            timeScaleLevel = (timeScaleLevel + 1) % TIME_SCALES.length;
+            clock.setTimeScale(TIME_SCALES[timeScaleLevel]);
+        }
+        if (inputListener.wasKeyPressedThisFrame(FAST_FORWARD_KEY)) {
+            clock.fastForward(clock.getCycleLength() * FAST_FORWARD_CYCLES);
+        }
+        clock.advance(deltaTime);
+    }
+
+    /**
+     * Moves the world origin to the avatar once it walks far from it, so the coordinates of live objects stay
+     * small enough for floats to place them precisely. Everything live moves back by the same distance, and
+     * the terrain and flora keep generating at world coordinates, so the move can't be seen. Saves and other
+     * players keep using world coordinates.
+     */
+    private void updateOrigin() {
+        float avatarX = avatar.getCenter().x();
+        if (Math.abs(avatarX) < REBASE_DISTANCE) {
+            return;
+        }
+        int shift = (int) Math.floor(avatarX / Block.BLOCK_SIZE) * Block.BLOCK_SIZE;
+        Vector2 offset = new Vector2(-shift, 0);
+        terrain.rebase(shift);
+        flora.rebase(shift);
+        walkerSwarm.rebase(shift);
+        distantTerrain.rebase(objectBudget::removeObject);
+        lightMap.rebase();
+        avatar.setTopLeftCorner(avatar.getTopLeftCorner().add(offset));
+        camera().setTopLeftCorner(camera().getTopLeftCorner().add(offset));
+        currentRenderedRange[0] -= shift;
+        currentRenderedRange[1] -= shift;
+    }
+
+    /**
+     * Runs an action on every live tree, with the world x coordinate of its column, as saves and other
+     * players know it.
+     *
+     * @param action A BiConsumer called with the world x coordinate and tree of every tree.
+     */
+    private void forEachTreeInWorld(BiConsumer<Integer, Tree> action) {
+        int originX = terrain.getOriginX();
+        flora.forEachTree((x, tree) -> action.accept(originX + x, tree));
+    }
+
+    /**
+     * Cycles through the zoom levels when the zoom key is pressed, and shows the world beyond the rendered
+     * range at a lower level of detail when zoomed out.
+     */
+    private void updateZoom() {
+        if (inputListener.wasKeyPressedThisFrame(ZOOM_KEY)) {
+            zoomLevel = (zoomLevel + 1) % ZOOM_LEVELS.length;
+            camera().setDimensions(windowController.getWindowDimensions().mult(ZOOM_LEVELS[zoomLevel]));
+        }
+        int viewMinX = (int) camera().getTopLeftCorner().x();
+        int viewMaxX = (int) (camera().getTopLeftCorner().x() + camera().getDimensions().x());
+        distantTerrain.update(viewMinX, viewMaxX, terrain.getLeftColumn(),
+                terrain.getRightColumn() + Block.BLOCK_SIZE,
+                objectBudget::addObject, objectBudget::removeObject);
+    }
+
+    /**
+     * Exchanges snapshots with the other players, if hosting or joining a world, and shows their avatars.
+     *
+     * @param deltaTime The time elapsed since the last update in seconds.
+     */
+    private void updateMultiplayer(float deltaTime) {
+        if (remoteAvatarViews == null) {
+            return;
+        }
+        int originX = terrain.getOriginX();
+        AvatarState ownAvatar = new AvatarState(avatar.getTopLeftCorner().x() + originX,
+                avatar.getTopLeftCorner().y(), avatar.getEnergy());
+        Map<Integer, AvatarState> remoteAvatars = Map.of();
+        try {
+            if (snapshotServer != null) {
+                snapshotServer.update(deltaTime, ownAvatar, this::forEachTreeInWorld);
+                remoteAvatars = snapshotServer.getRemoteAvatars();
+            } else if (snapshotClient != null) {
+                snapshotClient.update(deltaTime, ownAvatar);
+                remoteAvatars = new HashMap<>(snapshotClient.getAvatars());
+                remoteAvatars.remove(snapshotClient.getClientId());
+            }
+        } catch (IOException e) {
+            windowController.messages().showMessage("Multiplayer stopped: " + e.getMessage(),
+                    MsgLevel.WARNING);
+            closeMultiplayer();
+        }
+        Map<Integer, AvatarState> localAvatars = new HashMap<>();
+        remoteAvatars.forEach((id, state) ->
+                localAvatars.put(id, new AvatarState(state.x() - originX, state.y(), state.energy())));
+        remoteAvatarViews.update(localAvatars, objectBudget::addObject,
+                objectBudget::removeObject);
+    }
+
+    /**
+     * Stops hosting or leaves the joined world, continuing alone.
+     */
+    private void closeMultiplayer() {
+        try {
+            if (snapshotServer != null) {
+                snapshotServer.close();
+            }
+            if (snapshotClient != null) {
+                snapshotClient.close();
+            }
+        } catch (IOException e) {
+            // Playing alone from now on either way
+        }
+        snapshotServer = null;
+        snapshotClient = null;
+    }
+
+    /**
+     * Joins a world hosted on this machine, taking its seed. Falls back to playing alone if the server
+     * cannot be reached.
+     *
+     * @param terrainEdits The terrain edits to keep in sync with the server's.
+     */
+    private void joinServer(TerrainEdits terrainEdits) {
+        try {
+            snapshotClient = SnapshotClient.connect(connectPort,
+                    (x, columnEdits) -> {
+                        terrainEdits.replace(x, columnEdits);
+                        if (terrain != null) {
+                            terrain.refreshColumns(x - terrain.getOriginX(), objectBudget::addObject,
+                                    objectBudget::removeObject);
+                        }
+                    },
+                    (x, record) -> {
+                        remoteTreeStates.put(x, record);
+                        Tree tree = flora == null ? null : flora.getTreeInColumn(x - terrain.getOriginX());
+                        if (tree != null) {
+                            tree.applyRecord(record);
+                        }
+                    });
+            seed = snapshotClient.getSeed();
+            windowController.messages().showMessage("Joined the world hosted on port " + connectPort,
+                    MsgLevel.INFO);
+        } catch (IOException e) {
+            windowController.messages().showMessage("Failed to join the hosted world: " + e.getMessage(),
+                    MsgLevel.WARNING);
+        }
+    }
+
+    /**
+     * Starts serving the world to other players on this machine. Continues alone if the port is taken.
+     *
+     * @param terrainEdits The authoritative terrain edits.
+     */
+    private void hostServer(TerrainEdits terrainEdits) {
+        try {
+            snapshotServer = SnapshotServer.open(hostPort, seed, terrainEdits,
+                    message -> windowController.messages().showMessage(message, MsgLevel.INFO));
+            windowController.messages().showMessage("Hosting the world on port " + hostPort, MsgLevel.INFO);
+        } catch (IOException e) {
+            windowController.messages().showMessage("Failed to host the world: " + e.getMessage(),
+                    MsgLevel.WARNING);
+        }
+    }
+
+    /**
+     * Digs or places the block under the mouse, if it was clicked within reach of the avatar.
+     */
+    private void editTerrain() {
+        boolean dig = inputListener.wasMouseButtonClickedThisFrame(DIG_BUTTON);
+        boolean place = inputListener.wasMouseButtonClickedThisFrame(PLACE_BUTTON);
+        if (!dig && !place) {
+            return;
+        }
+        Vector2 point = camera().screenToWorldCoords(inputListener.getMouseScreenPos());
+        if (point.subtract(avatar.getCenter()).magnitude() > EDIT_REACH) {
+            return;
+        }
+        if (dig) {
+            terrain.removeBlockAt(point, objectBudget::addObject, objectBudget::removeObject);
+            return;
+        }
+
+        // Don't place a block inside the avatar
+        Vector2 cellTopLeft = new Vector2((float) Math.floor(point.x() / Block.BLOCK_SIZE),
+                (float) Math.floor(point.y() / Block.BLOCK_SIZE)).mult(Block.BLOCK_SIZE);
+        Vector2 avatarTopLeft = avatar.getTopLeftCorner();
+        Vector2 avatarBottomRight = avatarTopLeft.add(avatar.getDimensions());
+        if (cellTopLeft.x() < avatarBottomRight.x() && cellTopLeft.x() + Block.BLOCK_SIZE > avatarTopLeft.x()
+                && cellTopLeft.y() < avatarBottomRight.y()
+                && cellTopLeft.y() + Block.BLOCK_SIZE > avatarTopLeft.y()) {
+            return;
+        }
+        terrain.placeBlockAt(point, objectBudget::addObject, objectBudget::removeObject);
+    }
+
+    /**
+     * Saves the avatar and the state of the world to the save directory. Only a snapshot is taken here; it
+     * is written in the background, and a save that was asked for is reported once it completes. Nothing is
+     * taken while the previous save is still being written.
+     *
+     * @param manual Whether the player asked for the save, as opposed to an autosave.
+     */
+    private void saveWorld(boolean manual) {
+        if (pendingSave != null) {
+            if (manual) {
+                windowController.messages().showMessage("The world is still being saved", MsgLevel.INFO);
+            }
+            return;
+        }
+        Vector2 avatarTopLeftCorner = avatar.getTopLeftCorner().add(new Vector2(terrain.getOriginX(), 0));
+        pendingSave = worldSave.save(new SessionRecord(seed, avatarTopLeftCorner, avatar.getEnergy()),
+                this::forEachTreeInWorld);
+        pendingSaveIsManual = manual;
+        timeSinceSave = 0;
+    }
+
+    /**
+     * Collects the save being written in the background once it completes, keeping its metrics and
+     * reporting its outcome. Failed autosaves are reported too, since nothing else would tell of them.
+     */
+    private void pollPendingSave() {
+        if (pendingSave == null || !pendingSave.isDone()) {
+            return;
+        }
+        try {
+            lastSaveMetrics = pendingSave.join();
+            if (pendingSaveIsManual) {
+                windowController.messages().showMessage("World saved to " + SAVE_DIRECTORY, MsgLevel.INFO);
+            }
+        } catch (CompletionException e) {
+            windowController.messages().showMessage("Failed to save the world: " + e.getCause(),
+                    MsgLevel.WARNING);
+        }
+        pendingSave = null;
+    }
+
+    /**
+     * Reads the saved session to resume, if there is one.
+     *
+     * @return The saved session, or null to start a new one.
+     */
+    private SessionRecord loadSession() {
+        try {
+            return worldSave.loadSession(seed);
+        } catch (IOException e) {
+            windowController.messages().showMessage("Failed to resume the saved session: " + e.getMessage(),
+                    MsgLevel.WARNING);
+            return null;
+        }
+    }
+
+    /**
+     * Ends the startup benchmark on the first frame: writes the report and closes the game.
+     */
+    private void finishStartupBenchmark() {
+        startupProfiler.mark("firstFrame");
+        try {
+            startupProfiler.writeReport(startupReportPath);
+        } catch (IOException e) {
+            windowController.messages().showMessage("Failed to write the startup report: " + e.getMessage(),
+                    MsgLevel.WARNING);
+        }
+        startupProfiler = null;
+        windowController.closeWindow();
+    }
+
+    /**
+     * Ends a startup phase, if the startup benchmark is running.
+     *
+     * @param phaseName The name of the phase that just ended.
+     */
+    private void markStartupPhase(String phaseName) {
+        if (startupProfiler != null) {
+            startupProfiler.mark(phaseName);
+        }
+    }
+
+    /**
+     * Keeps world objects awake only inside the camera view plus a margin, so objects in the rendered
+     * range that are never on camera skip their updates. NPC walkers are materialized in the same range.
+     */
+    private void updateAwakeRange() {
+        int minX = (int) camera().getTopLeftCorner().x() - SLEEP_MARGIN;
+        int maxX = (int) (camera().getTopLeftCorner().x() + camera().getDimensions().x()) + SLEEP_MARGIN;
+        terrain.setAwakeRange(minX, maxX);
+        flora.setAwakeRange(minX, maxX, objectBudget::addObject, objectBudget::removeObject);
+
+        // Walkers beyond the rendered range would only be seen zoomed out, over the distant terrain
+        walkerViews.update(Math.max(minX, terrain.getLeftColumn()),
+                Math.min(maxX, terrain.getRightColumn() + Block.BLOCK_SIZE),
+                objectBudget::addObject, objectBudget::removeObject);
+    }
+
+    /**
+     * Applies a new eviction level chosen by the object budget, adding and removing objects through it.
+     *
+     * @param level The new eviction level.
+     */
+    private void onEvictionLevelChange(EvictionLevel level) {
+        terrain.setBlockDepth(level.isDeepBlocksEvicted() ? EVICTED_BLOCK_DEPTH : Terrain.TERRAIN_DEPTH,
+                objectBudget::addObject, objectBudget::removeObject);
+        flora.setFarPartsShown(!level.isFarLeavesEvicted(), !level.isFarFruitsEvicted(),
+                objectBudget::addObject, objectBudget::removeObject);
+    }
+
+    /**
+     * Applies a new quality level chosen by the quality governor.
+     * The rendered range follows the level gradually in updateRenderedRangeWidth.
+     *
+     * @param level The new quality level.
+     */
+    private void onQualityLevelChange(QualityLevel level) {
+        flora.setLeavesSwaying(level.isLeavesSwaying());
+        flora.setLeavesDensityFactor(level.getLeavesDensityFactor());
+        sunHalo.renderer().setRenderable(level.isSkyEffects() ? sunHaloRenderable : null);
+        night.renderer().setRenderable(level.isSkyEffects() ? nightRenderable : null);
+        weather.setDropsFactor(level.getRainDropsFactor());
+        lightMap.renderer().setRenderable(level.isSkyEffects() ? lightMapRenderable : null);
+        windowController.messages().showMessage("Quality level changed to " + level, MsgLevel.INFO);
+    }
+
+    /**
+     * Grows or shrinks the rendered range by a column on each side per frame, until its width matches the
+     * streaming margin of the current quality level.
+     */
+    private void updateRenderedRangeWidth() {
+        int targetHalfWidth = (int) (windowWidth * qualityGovernor.getLevel().getWindowFactor());
+        int currentHalfWidth = (currentRenderedRange[1] - currentRenderedRange[0]) / 2;
+        int right = terrain.getRightColumn();
+        int left = terrain.getLeftColumn();
+
+        if (currentHalfWidth > targetHalfWidth + Block.BLOCK_SIZE) {
+
+            flora.removeTreeInColumn(left, objectBudget::removeObject, avatar);
+            terrain.removeColumn(left, objectBudget::removeObject);
+            flora.removeTreeInColumn(right, objectBudget::removeObject, avatar);
+            terrain.removeColumn(right, objectBudget::removeObject);
+
+            currentRenderedRange[0] += Block.BLOCK_SIZE;
+            currentRenderedRange[1] -= Block.BLOCK_SIZE;
+
+        } else if (currentHalfWidth < targetHalfWidth - Block.BLOCK_SIZE) {
+
+            terrain.addColumn(left - Block.BLOCK_SIZE, objectBudget::addObject);
+            flora.addTreeInColumn(left - Block.BLOCK_SIZE, objectBudget::addObject, avatar);
+            terrain.addColumn(right + Block.BLOCK_SIZE, objectBudget::addObject);
+            flora.addTreeInColumn(right + Block.BLOCK_SIZE, objectBudget::addObject, avatar);
+
+            currentRenderedRange[0] -= Block.BLOCK_SIZE;
+            currentRenderedRange[1] += Block.BLOCK_SIZE;
+        }
     }
 
     /**
@@ -62,22 +625,22 @@ public class PepseGameManager extends GameManager {
         // Adjust terrain and flora based on avatar's movement
         if (avatarIsRightToCenter()) {
 
-            flora.removeTreeInColumn(left, gameObjects()::removeGameObject, avatar);
-            terrain.removeColumn(left, gameObjects()::removeGameObject);
+            flora.removeTreeInColumn(left, objectBudget::removeObject, avatar);
+            terrain.removeColumn(left, objectBudget::removeObject);
 
-            terrain.addColumn(right + Block.BLOCK_SIZE, gameObjects()::addGameObject);
-            flora.addTreeInColumn(right + Block.BLOCK_SIZE, gameObjects()::addGameObject, avatar);
+            terrain.addColumn(right + Block.BLOCK_SIZE, objectBudget::addObject);
+            flora.addTreeInColumn(right + Block.BLOCK_SIZE, objectBudget::addObject, avatar);
 
             currentRenderedRange[0] += Block.BLOCK_SIZE;
             currentRenderedRange[1] += Block.BLOCK_SIZE;
 
         } else if (avatarIsLeftToCenter()) {
 
-            flora.removeTreeInColumn(right, gameObjects()::removeGameObject, avatar);
-            terrain.removeColumn(right, gameObjects()::removeGameObject);
+            flora.removeTreeInColumn(right, objectBudget::removeObject, avatar);
+            terrain.removeColumn(right, objectBudget::removeObject);
 
-            terrain.addColumn(left - Block.BLOCK_SIZE, gameObjects()::addGameObject);
-            flora.addTreeInColumn(left - Block.BLOCK_SIZE, gameObjects()::addGameObject, avatar);
+            terrain.addColumn(left - Block.BLOCK_SIZE, objectBudget::addObject);
+            flora.addTreeInColumn(left - Block.BLOCK_SIZE, objectBudget::addObject, avatar);
 
             currentRenderedRange[0] -= Block.BLOCK_SIZE;
             currentRenderedRange[1] -= Block.BLOCK_SIZE;
@@ -132,51 +695,167 @@ public class PepseGameManager extends GameManager {
     public void initializeGame(ImageReader imageReader, SoundReader soundReader,
                                UserInputListener inputListener, WindowController windowController) {
         super.initializeGame(imageReader, soundReader, inputListener, windowController);
-
-        int windowWidth = (int) windowController.getWindowDimensions().x();
-
-        /* Initialize the current rendered range, centered at the origin, initially 4/3 times the window width
-        to allow for smooth rendering of terrain and flora, without abrupt changes in the rendered range */
-        this.currentRenderedRange = new int[]{(int) (-windowWidth * WINDOW_FACTOR),
-                (int) (windowWidth * WINDOW_FACTOR)};
-
-        // Initialize background elements
-        GameObject sky = Sky.create(windowController.getWindowDimensions());
+        markStartupPhase("window");
+        this.windowController = windowController;
+        this.inputListener = inputListener;
+        this.qualityGovernor = new QualityGovernor(TARGET_FRAME_RATE, QualityLevel.HIGH,
+                this::onQualityLevelChange);
+        this.objectBudget = new ObjectBudget(maxObjects, gameObjects()::addGameObject,
+                gameObjects()::removeGameObject, this::onEvictionLevelChange);
+
+        windowWidth = (int) windowController.getWindowDimensions().x();
+        float windowFactor = qualityGovernor.getLevel().getWindowFactor();
+
+        // Join a hosted world, or resume the saved session if there is one. Saved terrain edits of live
+        // columns rebuild them
+        TerrainEdits terrainEdits = new TerrainEdits();
+        if (connectPort != null) {
+            joinServer(terrainEdits);
+        }
+        SessionRecord session = null;
+        if (snapshotClient == null) {
+            worldSave = new WorldSave(SAVE_DIRECTORY, COMPRESS_REGIONS, terrainEdits,
+                    x -> terrain.refreshColumns(x - terrain.getOriginX(), objectBudget::addObject,
+                            objectBudget::removeObject),
+                    message -> windowController.messages().showMessage(message, MsgLevel.WARNING));
+            session = loadSession();
+        }
+        int startX = session == null ? 0 :
+                (int) Math.floor(session.getAvatarTopLeftCorner().x() / Block.BLOCK_SIZE) * Block.BLOCK_SIZE;
+
+        /* Initialize the current rendered range, centered at the starting point, initially 4/3 times the
+        window width to allow for smooth rendering of terrain and flora, without abrupt changes in the
+        rendered range. The world origin starts at the starting point */
+        this.currentRenderedRange = new int[]{-(int) (windowWidth * windowFactor),
+                (int) (windowWidth * windowFactor)};
+
+        // Decode all images in parallel, and pack the avatar animation frames into a single atlas
+        AssetManager assetManager = new AssetManager(imageReader);
+        String[] avatarFrames = Avatar.getAnimationFramePaths();
+        assetManager.preload(true, Stream.concat(Stream.of(Background.BG_PATH), Stream.of(avatarFrames))
+                .toArray(String[]::new));
+        assetManager.packAtlas(true, avatarFrames);
+        markStartupPhase("assets");
+
+        // Initialize background elements, all following the same clock
+        clock = new WorldClock(DAY_CYCLE);
+        GameObject sky = Sky.create(windowController.getWindowDimensions(), clock);
         gameObjects().addGameObject(sky, Layer.BACKGROUND);
+        markStartupPhase("sky");
 
-        GameObject bg = Background.create(windowController.getWindowDimensions(), imageReader);
+        GameObject bg = Background.create(windowController.getWindowDimensions(), assetManager,
+                () -> camera().getTopLeftCorner().x() + (double) terrain.getOriginX());
         gameObjects().addGameObject(bg, Layer.BACKGROUND);
+        markStartupPhase("background");
 
-
-        GameObject sun = Sun.create(windowController.getWindowDimensions(), DAY_CYCLE);
+        GameObject sun = Sun.create(windowController.getWindowDimensions(), clock);
         gameObjects().addGameObject(sun, Layer.BACKGROUND);
+        markStartupPhase("sun");
 
-        GameObject sunHalo = SunHalo.create(sun);
+        sunHalo = SunHalo.create(sun, windowController.getWindowDimensions(), clock);
+        sunHaloRenderable = sunHalo.renderer().getRenderable();
         gameObjects().addGameObject(sunHalo, Layer.BACKGROUND);
+        markStartupPhase("sunHalo");
+
+        // Add the rain, under the night effect so it darkens with the rest of the world
+        weather = new Weather(windowController.getWindowDimensions(), clock);
+        weather.setDropsFactor(qualityGovernor.getLevel().getRainDropsFactor());
+        gameObjects().addGameObject(weather, Layer.FOREGROUND);
+        markStartupPhase("weather");
 
         // Add night effect
-        GameObject night = Night.create(windowController.getWindowDimensions(), DAY_CYCLE);
+        night = Night.create(windowController.getWindowDimensions(), clock);
+        nightRenderable = night.renderer().getRenderable();
         gameObjects().addGameObject(night, Layer.FOREGROUND);
+        markStartupPhase("night");
+
+        // Initialize terrain and flora
+        terrain = new Terrain(windowController.getWindowDimensions(), seed, terrainEdits);
+        flora = new Flora(terrain::groundHeightAt, terrain::biomeAt, seed, clock);
+
+        // Live objects start around the origin, however far in the world the saved session was
+        terrain.rebase(startX);
+        flora.rebase(startX);
+        worldGenerator = new WorldGenerator(terrain, flora);
+        distantTerrain = new DistantTerrain(terrain, flora);
+
+        // Shade the world locally over the night effect, so fruits glow through it
+        lightMap = new LightMap(terrain, flora, windowController.getWindowDimensions(),
+                (int) (2 * windowWidth * QualityLevel.HIGH.getWindowFactor()) + 2 * Block.BLOCK_SIZE);
+        lightMapRenderable = lightMap.renderer().getRenderable();
+        gameObjects().addGameObject(lightMap, Layer.FOREGROUND);
+        terrainEdits.setOnColumnChanged(x -> lightMap.markDirty(x - terrain.getOriginX()));
+        flora.setOnTreeGrown((x, tree) -> lightMap.markDirty(x));
+        if (worldSave != null) {
+            flora.setTreeCallbacks((x, tree) -> worldSave.restoreTree(terrain.getOriginX() + x, tree),
+                    (x, tree) -> worldSave.storeTree(terrain.getOriginX() + x, tree));
+            worldSave.requestRegionsAround(startX, windowWidth);
+        } else {
+            flora.setTreeCallbacks((x, tree) -> {
+                ColumnRecord record = remoteTreeStates.get(terrain.getOriginX() + x);
+                if (record != null) {
+                    tree.applyRecord(record);
+                }
+            }, (x, tree) -> { });
+        }
 
-        // Initialize terrain
-        terrain = new Terrain(windowController.getWindowDimensions(), SEED);
-        terrain.addInRange(currentRenderedRange[0], currentRenderedRange[1], gameObjects()::addGameObject);
+        // Spawn the NPC walkers around the starting point
+        walkerSwarm = new WalkerSwarm(WALKERS_COUNT, x -> terrain.groundHeightAt((float) x), seed);
+        for (int i = 0; i < WALKERS_COUNT; i++) {
+            walkerSwarm.spawn(-WALKERS_SPREAD + 2f * WALKERS_SPREAD * i / WALKERS_COUNT);
+        }
+        walkerViews = new WalkerViews(walkerSwarm, assetManager.getImages(Avatar.getRunFramePaths(), true),
+                assetManager.getImage(Avatar.getIdleFramePaths()[0], true));
+        markStartupPhase("walkers");
 
         // Initialize avatar and camera
-        Vector2 startingAvatarPos = new Vector2(0, terrain.groundHeightAt(0) - Avatar.AVATAR_HEIGHT);
-        avatar = new Avatar(startingAvatarPos, inputListener, imageReader);
+        Vector2 startingAvatarPos = session != null ?
+                session.getAvatarTopLeftCorner().subtract(new Vector2(startX, 0)) :
+                new Vector2(0, terrain.groundHeightAt(0) - Avatar.AVATAR_HEIGHT);
+        avatar = new Avatar(startingAvatarPos, inputListener, assetManager);
+        if (session != null) {
+            avatar.setEnergy(session.getEnergy());
+        }
         gameObjects().addGameObject(avatar, Layer.DEFAULT);
         setCamera(new Camera(avatar, Vector2.ZERO,
                 windowController.getWindowDimensions(),
                 windowController.getWindowDimensions()));
+        if (hostPort != null) {
+            hostServer(terrainEdits);
+        }
+        if (snapshotServer != null || snapshotClient != null) {
+            remoteAvatarViews = new RemoteAvatarViews(avatar.getDimensions(),
+                    assetManager.getImage(Avatar.getIdleFramePaths()[0], true));
+        }
+        markStartupPhase("avatar");
 
-        // Initialize flora
-        flora = new Flora(terrain::groundHeightAt, SEED);
-        flora.addTreesInRange(currentRenderedRange[0], currentRenderedRange[1],
-                gameObjects()::addGameObject, avatar);
+        // Generate the initial range of terrain and flora in parallel, once the saved regions around it are
+        // loaded
+        if (worldSave != null) {
+            worldSave.awaitRequestedRegions();
+        }
+        worldGenerator.addInRange(currentRenderedRange[0], currentRenderedRange[1],
+                objectBudget::addObject, avatar);
+        markStartupPhase("terrainAndFlora");
 
         // Add UI components
         EnergyUI energyUI = new EnergyUI(avatar::getEnergy);
         gameObjects().addGameObject(energyUI, Layer.UI);
+
+        QualityUI qualityUI = new QualityUI(qualityGovernor::getLevel);
+        gameObjects().addGameObject(qualityUI, Layer.UI);
+
+        ObjectBudgetUI objectBudgetUI = new ObjectBudgetUI(objectBudget::getMetrics);
+        gameObjects().addGameObject(objectBudgetUI, Layer.UI);
+
+        if (worldSave != null) {
+            SaveUI saveUI = new SaveUI(() -> lastSaveMetrics);
+            gameObjects().addGameObject(saveUI, Layer.UI);
+        }
+
+        Minimap minimap = new Minimap(terrain, flora, avatar::getCenter,
+                windowController.getWindowDimensions());
+        gameObjects().addGameObject(minimap, Layer.UI);
+        markStartupPhase("ui");
     }
 }
\ No newline at end of file
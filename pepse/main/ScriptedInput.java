@@ -0,0 +1,109 @@
+package pepse.main;
+
+import danogl.components.movement_schemes.movement_directing.KeyboardMovementDirector;
+import danogl.components.movement_schemes.movement_directing.MouseMovementDirector;
+import danogl.gui.UserInputListener;
+import danogl.gui.mouse.MouseButton;
+import danogl.gui.rendering.Camera;
+import danogl.util.Vector2;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * A UserInputListener whose pressed keys are set by a headless check instead of a window.
+ */
+class ScriptedInput implements UserInputListener {
+
+    private final Set<Integer> pressedKeys = new HashSet<>(); // Keys held down, changed by the check
+
+    /**
+     * Holds a key down until it is released.
+     *
+     * @param keyCode The code of the key, as in KeyEvent.
+     */
+    void press(int keyCode) {
+        pressedKeys.add(keyCode);
+    }
+
+    /**
+     * Releases a held key.
+     *
+     * @param keyCode The code of the key, as in KeyEvent.
+     */
+    void release(int keyCode) {
+        pressedKeys.remove(keyCode);
+    }
+
+    /**
+     * Releases all held keys.
+     */
+    void releaseAll() {
+        pressedKeys.clear();
+    }
+
+    @Override
+    public boolean isKeyPressed(int keyCode) {
+        return pressedKeys.contains(keyCode);
+    }
+
+    @Override
+    public boolean wasKeyPressedThisFrame(int keyCode) {
+        return false;
+    }
+
+    @Override
+    public boolean wasKeyReleasedThisFrame(int keyCode) {
+        return false;
+    }
+
+    @Override
+    public boolean wasMouseButtonClickedThisFrame(MouseButton mouseButton) {
+        return false;
+    }
+
+    @Override
+    public boolean wasMouseButtonPressedThisFrame(MouseButton mouseButton) {
+        return false;
+    }
+
+    @Override
+    public boolean wasMouseButtonReleasedThisFrame(MouseButton mouseButton) {
+        return false;
+    }
+
+    @Override
+    public boolean isMouseButtonPressed(MouseButton mouseButton) {
+        return false;
+    }
+
+    @Override
+    public Vector2 getMouseScreenPos() {
+        return Vector2.ZERO;
+    }
+
+    @Override
+    public double mouseWheelClicksThisFrame() {
+        return 0;
+    }
+
+    @Override
+    public Set<Integer> pressedKeys() {
+        return pressedKeys;
+    }
+
+    @Override
+    public Set<MouseButton> pressedMouseButtons() {
+        return Set.of();
+    }
+
+    @Override
+    public MouseMovementDirector mouseMovementDirector(Camera camera) {
+        return null;
+    }
+
+    @Override
+    public KeyboardMovementDirector keyboardMovementDirector() {
+        return null;
+    }
+}
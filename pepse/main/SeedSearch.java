@@ -0,0 +1,338 @@
+package pepse.main;
+
+import danogl.util.Vector2;
+import pepse.util.PepseConstants;
+import pepse.world.Block;
+import pepse.world.Terrain;
+import pepse.world.TerrainEdits;
+import pepse.world.daynight.WorldClock;
+import pepse.world.trees.Flora;
+
+import java.awt.GraphicsEnvironment;
+import java.awt.Toolkit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.LongStream;
+
+/**
+ * Searches for seeds whose worlds have given features around the spawn point at x = 0, without launching the
+ * game. Every candidate seed gets its own heightmap and tree placement, the same ones the game generates in a
+ * window of the searched height, and they are only evaluated: no game objects are created. The game runs full
+ * screen and its terrain's base height follows the window height, so a seed only has its features on screens
+ * of that height. Seeds are independent of each other, so they are evaluated in parallel on as many threads
+ * as there are cores, and only the best seeds are kept. Each feature scores a seed between 0 and 1, seeds
+ * missing any feature are dropped, and the rest are ranked by their total score.
+ */
+public class SeedSearch {
+
+    private static final String FROM_ARG = "--from="; // Followed by the first seed to evaluate
+    private static final String COUNT_ARG = "--count="; // Followed by the number of seeds to evaluate
+    private static final String TOP_ARG = "--top="; // Followed by the number of best seeds to report
+    private static final String THREADS_ARG = "--threads="; // Followed by the number of threads to use
+    private static final String FLAT_ARG = "--flat="; // Followed by the half width of the flat spawn
+    private static final String TREE_ARG = "--tree="; // Followed by the reach of the nearest tree
+    private static final String HILL_ARG = "--hill="; // Followed by the hill's height and reach
+    private static final String WINDOW_HEIGHT_ARG = "--window-height="; // Followed by the window height
+    private static final int DEFAULT_COUNT = 10_000;
+    private static final int DEFAULT_TOP = 10;
+    private static final int DEFAULT_FLAT_HALF_WIDTH = 10; // Flat spawn searched for without features
+    private static final int FLAT_TOLERANCE_ROWS = 1; // Height difference still counted as flat, in blocks
+    private static final float MISSING = -1; // Score of a seed missing a feature
+    private static final int HEADLESS_WINDOW_HEIGHT = 900; // Window height searched for without a screen
+
+    /**
+     * Runs the seed search.
+     *
+     * @param args --from=SEED and --count=N choose the seeds to evaluate, --top=N the number of seeds to
+     *             report and --threads=N the number of threads. The features are --flat=N for a spawn
+     *             within a block of the same height N columns to each side, --tree=N for a tree within N
+     *             columns of the spawn, and --hill=H,N for ground at least H blocks above the spawn within
+     *             N columns of it. Without features, seeds are ranked by how flat their spawn is.
+     *             --window-height=N sets the height of the game window the worlds are generated for, by
+     *             default the height of this machine's screen, which the game runs full screen on.
+     * @throws InterruptedException If the search is interrupted.
+     * @throws ExecutionException   If evaluating a seed fails.
+     */
+    public static void main(String[] args) throws InterruptedException, ExecutionException {
+        long from = 0;
+        long count = DEFAULT_COUNT;
+        int top = DEFAULT_TOP;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int windowHeight = defaultWindowHeight();
+        List<Feature> features = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.startsWith(FROM_ARG)) {
+                from = Long.parseLong(arg.substring(FROM_ARG.length()));
+            } else if (arg.startsWith(COUNT_ARG)) {
+                count = Long.parseLong(arg.substring(COUNT_ARG.length()));
+            } else if (arg.startsWith(TOP_ARG)) {
+                top = Integer.parseInt(arg.substring(TOP_ARG.length()));
+            } else if (arg.startsWith(THREADS_ARG)) {
+                threads = Integer.parseInt(arg.substring(THREADS_ARG.length()));
+            } else if (arg.startsWith(FLAT_ARG)) {
+                features.add(flatSpawn(Integer.parseInt(arg.substring(FLAT_ARG.length()))));
+            } else if (arg.startsWith(TREE_ARG)) {
+                features.add(treeNearSpawn(Integer.parseInt(arg.substring(TREE_ARG.length()))));
+            } else if (arg.startsWith(HILL_ARG)) {
+                String[] values = arg.substring(HILL_ARG.length()).split(",");
+                features.add(hillNearSpawn(Integer.parseInt(values[0]), Integer.parseInt(values[1])));
+            } else if (arg.startsWith(WINDOW_HEIGHT_ARG)) {
+                windowHeight = Integer.parseInt(arg.substring(WINDOW_HEIGHT_ARG.length()));
+            } else {
+                throw new IllegalArgumentException("Unknown argument: " + arg);
+            }
+        }
+        if (features.isEmpty()) {
+            features.add(flatSpawn(DEFAULT_FLAT_HALF_WIDTH));
+        }
+
+        long start = System.nanoTime();
+        List<SeedScore> best = search(from, count, top, threads, features, new Vector2(0, windowHeight));
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("Evaluated %d seeds in %.2f s on %d threads, %.0f seeds/s%n", count, seconds,
+                threads, count / seconds);
+        System.out.println("Worlds generated for a window " + windowHeight + " px high");
+
+        StringBuilder header = new StringBuilder(String.format("%12s %8s", "seed", "score"));
+        for (Feature feature : features) {
+            header.append(String.format(" %12s", feature.name()));
+        }
+        System.out.println(header);
+        for (SeedScore seedScore : best) {
+            StringBuilder row = new StringBuilder(String.format("%12d %8.3f", seedScore.seed(),
+                    seedScore.score()));
+            for (float featureScore : seedScore.featureScores()) {
+                row.append(String.format(" %12.3f", featureScore));
+            }
+            System.out.println(row);
+        }
+        if (best.isEmpty()) {
+            System.out.println("No seed has all the features");
+        }
+    }
+
+    /**
+     * Evaluates a range of seeds in parallel and keeps the best ones.
+     *
+     * @param from             The first seed to evaluate.
+     * @param count            The number of seeds to evaluate.
+     * @param top              The number of best seeds to keep.
+     * @param threads          The number of threads to evaluate on.
+     * @param features         The features to score the seeds by.
+     * @param windowDimensions The dimensions of the game window, which set the terrain's base height.
+     * @return The best seeds that have all the features, best first.
+     * @throws InterruptedException If the search is interrupted.
+     * @throws ExecutionException   If evaluating a seed fails.
+     */
+    private static List<SeedScore> search(long from, long count, int top, int threads, List<Feature> features,
+                                          Vector2 windowDimensions)
+            throws InterruptedException, ExecutionException {
+        // The clock only times fruits, which aren't created, but the flora needs one
+        WorldClock clock = new WorldClock(PepseConstants.DAY_CYCLE);
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            return pool.submit(() -> LongStream.range(from, from + count).parallel()
+                    .mapToObj(seed -> evaluate((int) seed, features, windowDimensions, clock))
+                    .filter(Objects::nonNull)
+                    .collect(() -> new BestSeeds(top), BestSeeds::add, BestSeeds::addAll)
+                    .toList()).get();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Builds the heightmap and tree placement of a seed and scores it by every feature.
+     *
+     * @param seed             The seed.
+     * @param features         The features to score the seed by.
+     * @param windowDimensions The dimensions of the game window, which set the terrain's base height.
+     * @param clock            The clock of the seed's flora.
+     * @return The seed's scores, or null if it misses a feature.
+     */
+    private static SeedScore evaluate(int seed, List<Feature> features, Vector2 windowDimensions,
+                                      WorldClock clock) {
+        Terrain terrain = new Terrain(windowDimensions, seed, new TerrainEdits());
+        Flora flora = new Flora(terrain::groundHeightAt, terrain::biomeAt, seed, clock);
+        float[] featureScores = new float[features.size()];
+        float score = 0;
+        for (int i = 0; i < featureScores.length; i++) {
+            featureScores[i] = features.get(i).scorer().score(terrain, flora);
+            if (featureScores[i] == MISSING) {
+                return null;
+            }
+            score += featureScores[i];
+        }
+        return new SeedScore(seed, score, featureScores);
+    }
+
+    /**
+     * Retrieves the height of the window the game opens on this machine: it runs full screen.
+     *
+     * @return The height of the screen, or HEADLESS_WINDOW_HEIGHT if there is no screen.
+     */
+    private static int defaultWindowHeight() {
+        return GraphicsEnvironment.isHeadless() ? HEADLESS_WINDOW_HEIGHT :
+                Toolkit.getDefaultToolkit().getScreenSize().height;
+    }
+
+    /**
+     * Creates a feature of a flat spawn: ground within a block of the spawn's height to both sides.
+     *
+     * @param halfWidth The number of columns to each side of the spawn that should be flat.
+     * @return The feature, scoring flatter spawns higher.
+     */
+    private static Feature flatSpawn(int halfWidth) {
+        return new Feature("flat", (terrain, flora) -> {
+            int spawnRow = surfaceRowAt(terrain, 0);
+            int difference = 0;
+            for (int column = -halfWidth; column <= halfWidth; column++) {
+                difference = Math.max(difference,
+                        Math.abs(surfaceRowAt(terrain, column * Block.BLOCK_SIZE) - spawnRow));
+            }
+            return difference > FLAT_TOLERANCE_ROWS ? MISSING : 1f / (1 + difference);
+        });
+    }
+
+    /**
+     * Creates a feature of a tree near the spawn.
+     *
+     * @param reach The number of columns to each side of the spawn the tree should be within.
+     * @return The feature, scoring nearer trees higher.
+     */
+    private static Feature treeNearSpawn(int reach) {
+        return new Feature("tree", (terrain, flora) -> {
+            for (int distance = 0; distance <= reach; distance++) {
+                if (flora.trunkHeightInColumn(distance * Block.BLOCK_SIZE) > 0
+                        || flora.trunkHeightInColumn(-distance * Block.BLOCK_SIZE) > 0) {
+                    return 1 - (float) distance / (reach + 1);
+                }
+            }
+            return MISSING;
+        });
+    }
+
+    /**
+     * Creates a feature of a hill near the spawn.
+     *
+     * @param height The number of blocks the hill should rise above the spawn.
+     * @param reach  The number of columns to each side of the spawn the hill should be within.
+     * @return The feature, scoring higher hills higher, up to twice the height.
+     */
+    private static Feature hillNearSpawn(int height, int reach) {
+        return new Feature("hill", (terrain, flora) -> {
+            int spawnRow = surfaceRowAt(terrain, 0);
+            int highestRow = spawnRow;
+            for (int column = -reach; column <= reach; column++) {
+                highestRow = Math.min(highestRow, surfaceRowAt(terrain, column * Block.BLOCK_SIZE));
+            }
+            int hillHeight = spawnRow - highestRow;
+            return hillHeight < height ? MISSING : Math.min(1, hillHeight / (2f * height));
+        });
+    }
+
+    /**
+     * Computes the row of the surface block of a column, as the terrain generates it.
+     *
+     * @param terrain The terrain.
+     * @param x       The x-coordinate of the column.
+     * @return The row of the surface block.
+     */
+    private static int surfaceRowAt(Terrain terrain, int x) {
+        return (int) Math.floor(terrain.groundHeightAt(x) / Block.BLOCK_SIZE);
+    }
+
+    /**
+     * Scores a seed's world by a feature.
+     */
+    @FunctionalInterface
+    private interface Scorer {
+
+        /**
+         * Scores a seed's world.
+         *
+         * @param terrain The seed's terrain.
+         * @param flora   The seed's flora.
+         * @return The score, from 0 to 1, or MISSING if the world doesn't have the feature.
+         */
+        float score(Terrain terrain, Flora flora);
+    }
+
+    /**
+     * A feature searched for.
+     *
+     * @param name   The name of the feature, for the report.
+     * @param scorer Scores seeds by the feature.
+     */
+    private record Feature(String name, Scorer scorer) {
+    }
+
+    /**
+     * The scores of a seed that has all the features.
+     *
+     * @param seed          The seed.
+     * @param score         The total score.
+     * @param featureScores The score of every feature.
+     */
+    private record SeedScore(int seed, float score, float[] featureScores) {
+    }
+
+    /**
+     * Keeps the best seeds seen, ties going to the lower seed, so the search reports the same seeds however
+     * the range is split between threads.
+     */
+    private static class BestSeeds {
+
+        private static final Comparator<SeedScore> WORST_FIRST = Comparator.comparingDouble(SeedScore::score)
+                .thenComparing(SeedScore::seed, Comparator.reverseOrder());
+
+        private final int capacity; // Number of seeds to keep
+        private final PriorityQueue<SeedScore> seeds = new PriorityQueue<>(WORST_FIRST);
+
+        /**
+         * Constructs an empty BestSeeds.
+         *
+         * @param capacity The number of seeds to keep.
+         */
+        BestSeeds(int capacity) {
+            this.capacity = capacity;
+        }
+
+        /**
+         * Offers a seed, keeping it if it is among the best.
+         *
+         * @param seedScore The seed's scores.
+         */
+        void add(SeedScore seedScore) {
+            seeds.add(seedScore);
+            if (seeds.size() > capacity) {
+                seeds.poll();
+            }
+        }
+
+        /**
+         * Offers all the seeds kept by another BestSeeds.
+         *
+         * @param other The other BestSeeds.
+         */
+        void addAll(BestSeeds other) {
+            other.seeds.forEach(this::add);
+        }
+
+        /**
+         * Lists the seeds kept.
+         *
+         * @return The seeds, best first.
+         */
+        List<SeedScore> toList() {
+            List<SeedScore> list = new ArrayList<>(seeds);
+            list.sort(WORST_FIRST.reversed());
+            return list;
+        }
+    }
+}
@@ -0,0 +1,318 @@
+package pepse.main;
+
+import danogl.GameObject;
+import danogl.collisions.GameObjectCollection;
+import danogl.collisions.Layer;
+import danogl.gui.ImageReader;
+import danogl.gui.MessageHandler;
+import danogl.util.Vector2;
+import pepse.util.AssetManager;
+import pepse.util.ObjectBudget;
+import pepse.util.PepseConstants;
+import pepse.world.Avatar;
+import pepse.world.Block;
+import pepse.world.Terrain;
+import pepse.world.TerrainEdits;
+import pepse.world.daynight.WorldClock;
+import pepse.world.trees.Flora;
+import pepse.world.trees.Tree;
+
+import java.awt.event.KeyEvent;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+/**
+ * Finds leaks that only show over long play sessions. Drives the terrain, the flora and the avatar without
+ * a window, walking the avatar far to the right, back past the start far to the left, and back to the
+ * start again, jumping, eating fruits and moving the world origin along the way. Samples the heap after a
+ * full GC, the live game objects, the avatar's listeners, the live and growing trees and the components of
+ * all game objects as it goes, and flags every metric that grows monotonically through the run. Exits with
+ * a non-zero status when a leak is flagged, so it can gate a build.
+ */
+public class SoakCheck {
+
+    private static final String DISTANCE_ARG = "--distance="; // Followed by the length of each leg in pixels
+    private static final String REPORT_ARG = "--report="; // Followed by a path to write the samples to
+    private static final int DEFAULT_DISTANCE = 1_000_000;
+    private static final int[] LEG_DIRECTIONS = {1, -1, -1, 1}; // Right, back, left, back to the start
+    private static final int SAMPLES_PER_LEG = 10;
+    private static final int WARMUP_SAMPLES = 2; // Samples taken before the metrics settle, not judged
+    private static final float GROWTH_TOLERANCE = 0.05f; // Growth from the first judged sample still ok
+    private static final long HEAP_TOLERANCE_BYTES = 2L << 20; // Heap growth always ok, for GC noise
+    private static final int SEED = 666;
+    private static final Vector2 WINDOW_DIMENSIONS = new Vector2(1600, 900);
+    private static final int RENDERED_HALF_WIDTH = (int) (WINDOW_DIMENSIONS.x() * 2 / 3);
+    private static final int AWAKE_HALF_WIDTH = (int) (WINDOW_DIMENSIONS.x() / 2) + Block.BLOCK_SIZE * 4;
+    private static final int MAX_OBJECTS = 20000;
+    private static final float FRAME_TIME = 1 / 60f;
+    private static final int JUMP_INTERVAL = 90; // Frames between jumps
+    private static final int REBASE_DISTANCE = 2048 * Block.BLOCK_SIZE; // Avatar x that moves the origin
+    private static final int EAT_INTERVAL = 7; // Frames between eating the fruits of the avatar's column
+    private static final String COMPONENTS_FIELD = "components"; // GameObject's private list of components
+    private static final String[] METRICS =
+            {"heapBytes", "gameObjects", "avatarListeners", "trees", "growingTrees", "components"};
+
+    /**
+     * Runs the soak check.
+     *
+     * @param args Optional: --distance=PIXELS sets the length of each of the four legs of the walk, and
+     *             --report=PATH writes all samples to a CSV file.
+     * @throws IOException If the report cannot be written.
+     */
+    public static void main(String[] args) throws IOException {
+        int distance = DEFAULT_DISTANCE;
+        Path reportPath = null;
+        for (String arg : args) {
+            if (arg.startsWith(DISTANCE_ARG)) {
+                distance = Integer.parseInt(arg.substring(DISTANCE_ARG.length()));
+            } else if (arg.startsWith(REPORT_ARG)) {
+                reportPath = Path.of(arg.substring(REPORT_ARG.length()));
+            }
+        }
+
+        long start = System.nanoTime();
+        List<long[]> samples = soak(distance);
+        System.out.printf("Walked %d px in %.1f s, %d samples%n", (long) distance * LEG_DIRECTIONS.length,
+                (System.nanoTime() - start) / 1e9, samples.size());
+
+        if (reportPath != null) {
+            writeReport(reportPath, samples);
+            System.out.println("Wrote samples to " + reportPath);
+        }
+        if (!summarize(samples)) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Builds a headless world and walks the avatar through it, sampling the metrics at regular distances.
+     *
+     * @param distance The length of each leg of the walk, in pixels.
+     * @return The samples, each holding the metrics in the order of METRICS.
+     */
+    private static List<long[]> soak(int distance) {
+        ScriptedInput input = new ScriptedInput();
+        AssetManager assetManager = new AssetManager(new ImageReader(new MessageHandler(null)));
+        GameObjectCollection gameObjects = new GameObjectCollection(new MessageHandler(null));
+        ObjectBudget objectBudget = new ObjectBudget(MAX_OBJECTS, gameObjects::addGameObject,
+                gameObjects::removeGameObject, level -> { });
+        WorldClock clock = new WorldClock(PepseConstants.DAY_CYCLE);
+
+        Terrain terrain = new Terrain(WINDOW_DIMENSIONS, SEED, new TerrainEdits());
+        Flora flora = new Flora(terrain::groundHeightAt, terrain::biomeAt, SEED, clock);
+        Avatar avatar = new Avatar(Vector2.ZERO, input, assetManager);
+        gameObjects.addGameObject(avatar, Layer.DEFAULT);
+        terrain.addInRange(-RENDERED_HALF_WIDTH, RENDERED_HALF_WIDTH, objectBudget::addObject);
+        flora.addTreesInRange(-RENDERED_HALF_WIDTH, RENDERED_HALF_WIDTH, objectBudget::addObject, avatar);
+
+        int columnsPerLeg = distance / Block.BLOCK_SIZE;
+        int columnsPerSample = Math.max(1, columnsPerLeg / SAMPLES_PER_LEG);
+        List<long[]> samples = new ArrayList<>();
+        samples.add(sample(gameObjects, avatar, flora));
+        int avatarX = 0;
+        long frame = 0;
+        for (int direction : LEG_DIRECTIONS) {
+            for (int column = 1; column <= columnsPerLeg; column++) {
+                avatarX += direction * Block.BLOCK_SIZE;
+                shiftColumns(direction, terrain, flora, objectBudget, avatar);
+                if (Math.abs(avatarX) >= REBASE_DISTANCE) {
+                    // Move the world origin to the avatar, as the game manager does
+                    terrain.rebase(avatarX);
+                    flora.rebase(avatarX);
+                    avatarX = 0;
+                }
+                terrain.setAwakeRange(avatarX - AWAKE_HALF_WIDTH, avatarX + AWAKE_HALF_WIDTH);
+                flora.setAwakeRange(avatarX - AWAKE_HALF_WIDTH, avatarX + AWAKE_HALF_WIDTH,
+                        objectBudget::addObject, objectBudget::removeObject);
+                flora.growTrees(objectBudget::addObject);
+
+                frame++;
+                if (frame % JUMP_INTERVAL == 0) {
+                    input.press(KeyEvent.VK_SPACE);
+                }
+                if (frame % EAT_INTERVAL == 0) {
+                    eatFruits(flora.getTreeInColumn(avatarX), avatar);
+                }
+                clock.advance(FRAME_TIME);
+                standOnGround(avatar);
+                gameObjects.update(FRAME_TIME);
+                avatar.setTopLeftCorner(new Vector2(avatarX,
+                        terrain.groundHeightAt(avatarX) - avatar.getDimensions().y()));
+                input.release(KeyEvent.VK_SPACE);
+                objectBudget.update();
+
+                if (column % columnsPerSample == 0) {
+                    samples.add(sample(gameObjects, avatar, flora));
+                }
+            }
+        }
+        return samples;
+    }
+
+    /**
+     * Shifts the rendered range a column in the direction of the walk, as the game manager does when the
+     * avatar walks away from the center of the range.
+     *
+     * @param direction    1 to shift to the right, -1 to shift to the left.
+     * @param terrain      The terrain.
+     * @param flora        The flora.
+     * @param objectBudget The budget every world object is added and removed through.
+     * @param avatar       The avatar.
+     */
+    private static void shiftColumns(int direction, Terrain terrain, Flora flora, ObjectBudget objectBudget,
+                                     Avatar avatar) {
+        int left = terrain.getLeftColumn();
+        int right = terrain.getRightColumn();
+        int removed = direction > 0 ? left : right;
+        int added = direction > 0 ? right + Block.BLOCK_SIZE : left - Block.BLOCK_SIZE;
+        flora.removeTreeInColumn(removed, objectBudget::removeObject, avatar);
+        terrain.removeColumn(removed, objectBudget::removeObject);
+        terrain.addColumn(added, objectBudget::addObject);
+        flora.addTreeInColumn(added, objectBudget::addObject, avatar);
+    }
+
+    /**
+     * Eats the fruits of a tree, as if the avatar collided with each of them.
+     *
+     * @param tree   The tree, or null if there is none.
+     * @param avatar The avatar.
+     */
+    private static void eatFruits(Tree tree, Avatar avatar) {
+        if (tree != null) {
+            tree.forEachFruit(fruit -> fruit.onCollisionEnter(avatar, null));
+        }
+    }
+
+    /**
+     * Samples all metrics, after a full GC.
+     *
+     * @param gameObjects The game object collection.
+     * @param avatar      The avatar.
+     * @param flora       The flora.
+     * @return The metrics, in the order of METRICS.
+     */
+    private static long[] sample(GameObjectCollection gameObjects, Avatar avatar, Flora flora) {
+        System.gc();
+        long heapBytes = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+        Field componentsField = getComponentsField();
+        long objects = 0;
+        long components = 0;
+        for (GameObject gameObject : gameObjects) {
+            objects++;
+            components += countComponents(gameObject, componentsField);
+        }
+        int[] trees = {0};
+        flora.forEachTree((x, tree) -> trees[0]++);
+        return new long[]{heapBytes, objects, avatar.getListenersCount(), trees[0],
+                flora.getGrowingTreesCount(), components};
+    }
+
+    /**
+     * Opens the private list of components of game objects. The engine doesn't expose the components, so
+     * they are read from it.
+     *
+     * @return The field of the list, or null if it cannot be opened.
+     */
+    private static Field getComponentsField() {
+        try {
+            Field field = GameObject.class.getDeclaredField(COMPONENTS_FIELD);
+            field.setAccessible(true);
+            return field;
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Counts the components of a game object.
+     *
+     * @param gameObject      The game object.
+     * @param componentsField The field of the private list of components, or null.
+     * @return The number of components, or 0 if they cannot be read.
+     */
+    private static long countComponents(GameObject gameObject, Field componentsField) {
+        if (componentsField == null) {
+            return 0;
+        }
+        try {
+            Object components = componentsField.get(gameObject);
+            Method size = components.getClass().getMethod("size");
+            return ((Number) size.invoke(components)).longValue();
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Prints the first, lowest, highest and last value of every metric, and whether it leaks: grows without
+     * ever going down through the judged samples, and ends above the tolerance.
+     *
+     * @param samples The samples.
+     * @return True if no metric leaks, false otherwise.
+     */
+    private static boolean summarize(List<long[]> samples) {
+        List<long[]> judged = samples.subList(Math.min(WARMUP_SAMPLES, samples.size() - 1), samples.size());
+        boolean passed = true;
+        System.out.printf("%-16s %14s %14s %14s %14s%n", "metric", "first", "min", "max", "last");
+        for (int metric = 0; metric < METRICS.length; metric++) {
+            int index = metric;
+            ToLongFunction<long[]> value = sample -> sample[index];
+            long first = value.applyAsLong(judged.get(0));
+            long last = value.applyAsLong(judged.get(judged.size() - 1));
+            boolean monotonic = true;
+            for (int i = 1; i < judged.size(); i++) {
+                monotonic &= value.applyAsLong(judged.get(i)) >= value.applyAsLong(judged.get(i - 1));
+            }
+            long tolerance = (long) (first * GROWTH_TOLERANCE)
+                    + (METRICS[metric].equals("heapBytes") ? HEAP_TOLERANCE_BYTES : 0);
+            boolean leaks = monotonic && last > first + tolerance;
+            passed &= !leaks;
+            System.out.printf("%-16s %14d %14d %14d %14d %s%n", METRICS[metric],
+                    value.applyAsLong(samples.get(0)),
+                    samples.stream().mapToLong(value).min().orElse(0),
+                    samples.stream().mapToLong(value).max().orElse(0),
+                    last, leaks ? "LEAK" : "ok");
+        }
+        return passed;
+    }
+
+    /**
+     * Writes all samples as CSV, a row per sample and a column per metric.
+     *
+     * @param path    The path of the report.
+     * @param samples The samples.
+     * @throws IOException If the report cannot be written.
+     */
+    private static void writeReport(Path path, List<long[]> samples) throws IOException {
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(path))) {
+            out.println("sample," + String.join(",", METRICS));
+            for (int i = 0; i < samples.size(); i++) {
+                StringBuilder row = new StringBuilder().append(i);
+                for (long value : samples.get(i)) {
+                    row.append(',').append(value);
+                }
+                out.println(row);
+            }
+        }
+    }
+
+    /**
+     * Puts the avatar in the state a collision with the ground leaves it in, with full energy, since there
+     * is no ground to collide with.
+     *
+     * @param avatar The avatar.
+     */
+    private static void standOnGround(Avatar avatar) {
+        avatar.transform().setVelocity(Vector2.ZERO);
+        avatar.transform().setAccelerationEnabled(false);
+        avatar.setEnergy(Float.MAX_VALUE);
+    }
+}
@@ -0,0 +1,11 @@
+package pepse.net;
+
+/**
+ * The state of a player's avatar, as shared between the server and its clients.
+ *
+ * @param x      The x coordinate of the avatar's top-left corner.
+ * @param y      The y coordinate of the avatar's top-left corner.
+ * @param energy The energy of the avatar.
+ */
+public record AvatarState(float x, float y, float energy) {
+}
@@ -0,0 +1,127 @@
+package pepse.net;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Queue;
+
+/**
+ * A non-blocking socket channel that sends and receives whole messages, each prefixed by its length, so it
+ * can be serviced from the game thread without ever waiting on the network.
+ */
+class FramedChannel implements Closeable {
+
+    private static final int MAX_FRAME_BYTES = 1 << 24; // Guards against corrupted length prefixes
+
+    private final SocketChannel channel;
+    private final ByteBuffer lengthBuffer = ByteBuffer.allocate(Integer.BYTES);
+    private final Queue<ByteBuffer> outgoing = new ArrayDeque<>(); // Frames not fully written yet
+    private ByteBuffer incoming; // The body of the frame being read, or null while reading a length
+
+    /**
+     * Constructs a FramedChannel, switching the channel to non-blocking mode.
+     *
+     * @param channel A connected socket channel.
+     * @throws IOException If the channel cannot be configured.
+     */
+    FramedChannel(SocketChannel channel) throws IOException {
+        this.channel = channel;
+        channel.configureBlocking(false);
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+    }
+
+    /**
+     * Queues a message and writes as much of the queue as the socket accepts.
+     *
+     * @param message The message, from its position to its limit.
+     * @throws IOException If the connection failed.
+     */
+    void send(ByteBuffer message) throws IOException {
+        ByteBuffer frame = ByteBuffer.allocate(Integer.BYTES + message.remaining());
+        frame.putInt(message.remaining()).put(message).flip();
+        outgoing.add(frame);
+        flush();
+    }
+
+    /**
+     * Writes as much of the queued messages as the socket accepts.
+     *
+     * @throws IOException If the connection failed.
+     */
+    void flush() throws IOException {
+        while (!outgoing.isEmpty()) {
+            channel.write(outgoing.peek());
+            if (outgoing.peek().hasRemaining()) {
+                return;
+            }
+            outgoing.remove();
+        }
+    }
+
+    /**
+     * @return True if some queued messages weren't fully written yet.
+     */
+    boolean hasPendingOutput() {
+        return !outgoing.isEmpty();
+    }
+
+    /**
+     * Reads the next message, if it fully arrived.
+     *
+     * @return The message, ready to be read, or null if no complete message is available yet.
+     * @throws IOException If the connection failed or was closed, or a message is malformed.
+     */
+    ByteBuffer receive() throws IOException {
+        if (incoming == null) {
+            if (read(lengthBuffer)) {
+                return null;
+            }
+            int length = lengthBuffer.flip().getInt();
+            lengthBuffer.clear();
+            if (length < 0 || length > MAX_FRAME_BYTES) {
+                throw new IOException("Invalid message length " + length);
+            }
+            incoming = ByteBuffer.allocate(length);
+        }
+        if (read(incoming)) {
+            return null;
+        }
+        ByteBuffer message = incoming.flip();
+        incoming = null;
+        return message;
+    }
+
+    /**
+     * Reads into a buffer until it is full or no more bytes are available.
+     *
+     * @param buffer The buffer to fill.
+     * @return True if the buffer still has room, false if it is full.
+     * @throws IOException If the connection failed or was closed.
+     */
+    private boolean read(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer);
+            if (read < 0) {
+                throw new EOFException("Connection closed");
+            }
+            if (read == 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Closes the connection.
+     *
+     * @throws IOException If the channel cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,63 @@
+package pepse.net;
+
+import danogl.GameObject;
+import danogl.collisions.Layer;
+import danogl.gui.rendering.Renderable;
+import danogl.util.Vector2;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Shows the avatars of the other players as GameObjects that follow their shared states and collide with
+ * nothing.
+ */
+public class RemoteAvatarViews {
+
+    private static final int REMOTE_AVATARS_LAYER = Layer.DEFAULT - 1; // Drawn behind the own avatar
+
+    private final Vector2 dimensions; // The dimensions of an avatar
+    private final Renderable renderable;
+    private final Map<Integer, GameObject> views = new HashMap<>(); // Live views by avatar id
+
+    /**
+     * Constructs a RemoteAvatarViews.
+     *
+     * @param dimensions The dimensions of an avatar.
+     * @param renderable The renderable of the other players' avatars.
+     */
+    public RemoteAvatarViews(Vector2 dimensions, Renderable renderable) {
+        this.dimensions = dimensions;
+        this.renderable = renderable;
+    }
+
+    /**
+     * Moves the views to the given avatar states, adding and removing views as players join and leave.
+     *
+     * @param avatars      The avatar states of the other players, by avatar id.
+     * @param addObject    A BiConsumer that accepts a GameObject and an Integer representing the layer
+     *                     to which the object should be added in the GameObjectCollection.
+     * @param removeObject A BiConsumer that accepts a GameObject and an Integer representing the layer
+     *                     to which the object should be removed from in the GameObjectCollection.
+     */
+    public void update(Map<Integer, AvatarState> avatars, BiConsumer<GameObject, Integer> addObject,
+                       BiConsumer<GameObject, Integer> removeObject) {
+        for (Iterator<Map.Entry<Integer, GameObject>> it = views.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<Integer, GameObject> entry = it.next();
+            if (!avatars.containsKey(entry.getKey())) {
+                removeObject.accept(entry.getValue(), REMOTE_AVATARS_LAYER);
+                it.remove();
+            }
+        }
+        for (Map.Entry<Integer, AvatarState> entry : avatars.entrySet()) {
+            GameObject view = views.computeIfAbsent(entry.getKey(), id -> {
+                GameObject newView = new GameObject(Vector2.ZERO, dimensions, renderable);
+                addObject.accept(newView, REMOTE_AVATARS_LAYER);
+                return newView;
+            });
+            view.setTopLeftCorner(new Vector2(entry.getValue().x(), entry.getValue().y()));
+        }
+    }
+}
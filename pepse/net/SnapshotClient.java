@@ -0,0 +1,188 @@
+package pepse.net;
+
+import pepse.world.ColumnEdits;
+import pepse.world.save.ColumnRecord;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Follows the authoritative world of a SnapshotServer on the local machine. Snapshot deltas are decoded
+ * against the snapshots they were encoded against, their terrain edits and tree states are handed to the
+ * game, and every tick the client acknowledges the latest snapshot along with the state of its own avatar.
+ * Everything runs on the game thread over a non-blocking socket, except for the initial connection.
+ */
+public class SnapshotClient implements Closeable {
+
+    private static final float MESSAGE_INTERVAL = 1 / 20f; // Time between client messages, in seconds
+    private static final int CLIENT_MESSAGE_BYTES = Integer.BYTES + 3 * Float.BYTES;
+    private static final long FIRST_SNAPSHOT_TIMEOUT_MILLIS = 5000;
+    private static final long FIRST_SNAPSHOT_POLL_MILLIS = 10;
+
+    private final FramedChannel channel;
+    private final BiConsumer<Integer, ColumnEdits> onEdits; // Receives the changed edits of a column
+    private final BiConsumer<Integer, ColumnRecord> onTreeState; // Receives the changed state of a tree
+    private final Map<Integer, WorldSnapshot> receivedSnapshots = new HashMap<>(); // Possible bases, by tick
+    private WorldSnapshot latestSnapshot;
+    private int clientId;
+    private float timeSinceMessage = 0;
+
+    /**
+     * Constructs a SnapshotClient.
+     *
+     * @param channel     The connection to the server.
+     * @param onEdits     A BiConsumer that receives the x coordinate and new edits of every column whose
+     *                    terrain edits changed.
+     * @param onTreeState A BiConsumer that receives the x coordinate and new state of every tree whose state
+     *                    changed.
+     */
+    private SnapshotClient(FramedChannel channel, BiConsumer<Integer, ColumnEdits> onEdits,
+                           BiConsumer<Integer, ColumnRecord> onTreeState) {
+        this.channel = channel;
+        this.onEdits = onEdits;
+        this.onTreeState = onTreeState;
+    }
+
+    /**
+     * Connects to a server on the loopback interface, and waits for the first snapshot.
+     *
+     * @param port        The port of the server.
+     * @param onEdits     A BiConsumer that receives the x coordinate and new edits of every column whose
+     *                    terrain edits changed.
+     * @param onTreeState A BiConsumer that receives the x coordinate and new state of every tree whose state
+     *                    changed.
+     * @return The connected client, holding the first snapshot.
+     * @throws IOException If the connection failed or no snapshot arrived in time.
+     */
+    public static SnapshotClient connect(int port, BiConsumer<Integer, ColumnEdits> onEdits,
+                                         BiConsumer<Integer, ColumnRecord> onTreeState) throws IOException {
+        SocketChannel socketChannel = SocketChannel.open(
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+        SnapshotClient client = new SnapshotClient(new FramedChannel(socketChannel), onEdits, onTreeState);
+        try {
+            long deadline = System.currentTimeMillis() + FIRST_SNAPSHOT_TIMEOUT_MILLIS;
+            while (client.latestSnapshot == null) {
+                if (System.currentTimeMillis() > deadline) {
+                    throw new IOException("No snapshot received from the server");
+                }
+                client.receiveSnapshots();
+                Thread.sleep(FIRST_SNAPSHOT_POLL_MILLIS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            client.close();
+            throw new InterruptedIOException("Interrupted while waiting for the first snapshot");
+        } catch (IOException e) {
+            client.close();
+            throw e;
+        }
+        return client;
+    }
+
+    /**
+     * Applies the snapshots received since the last update, and acknowledges the latest one once per tick.
+     *
+     * @param deltaTime The time elapsed since the last update in seconds.
+     * @param ownAvatar The state of this client's avatar.
+     * @throws IOException If the connection failed or a message is malformed.
+     */
+    public void update(float deltaTime, AvatarState ownAvatar) throws IOException {
+        channel.flush();
+        receiveSnapshots();
+        timeSinceMessage += deltaTime;
+        if (timeSinceMessage < MESSAGE_INTERVAL || channel.hasPendingOutput()) {
+            return;
+        }
+        timeSinceMessage %= MESSAGE_INTERVAL;
+        ByteBuffer message = ByteBuffer.allocate(CLIENT_MESSAGE_BYTES);
+        message.putInt(latestSnapshot.getTick())
+                .putFloat(ownAvatar.x()).putFloat(ownAvatar.y()).putFloat(ownAvatar.energy());
+        channel.send(message.flip());
+    }
+
+    /**
+     * @return The seed of the server's world.
+     */
+    public int getSeed() {
+        return latestSnapshot.getSeed();
+    }
+
+    /**
+     * @return The avatar id the server assigned to this client.
+     */
+    public int getClientId() {
+        return clientId;
+    }
+
+    /**
+     * @return The avatar states of all players, including this client, by avatar id.
+     */
+    public Map<Integer, AvatarState> getAvatars() {
+        return latestSnapshot.getAvatars();
+    }
+
+    /**
+     * Disconnects from the server.
+     *
+     * @throws IOException If the channel cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Decodes and applies all snapshots that fully arrived.
+     *
+     * @throws IOException If the connection failed or a message is malformed.
+     */
+    private void receiveSnapshots() throws IOException {
+        ByteBuffer message;
+        while ((message = channel.receive()) != null) {
+            int tick = message.getInt();
+            int baseTick = message.getInt();
+            clientId = message.getInt();
+            int seed = message.getInt();
+            long editsRevision = message.getLong();
+            long treesRevision = message.getLong();
+
+            WorldSnapshot base = baseTick < 0 ? null : receivedSnapshots.get(baseTick);
+            if (baseTick >= 0 && base == null) {
+                throw new IOException("Snapshot " + tick + " is based on unknown snapshot " + baseTick);
+            }
+            Map<Integer, AvatarState> avatars =
+                    base == null ? new HashMap<>() : new HashMap<>(base.getAvatars());
+            int avatarsCount = message.getInt();
+            for (int i = 0; i < avatarsCount; i++) {
+                avatars.put(message.getInt(),
+                        new AvatarState(message.getFloat(), message.getFloat(), message.getFloat()));
+            }
+            int removedCount = message.getInt();
+            for (int i = 0; i < removedCount; i++) {
+                avatars.remove(message.getInt());
+            }
+            int editsCount = message.getInt();
+            for (int i = 0; i < editsCount; i++) {
+                onEdits.accept(message.getInt(), ColumnEdits.read(message));
+            }
+            int treesCount = message.getInt();
+            for (int i = 0; i < treesCount; i++) {
+                onTreeState.accept(message.getInt(), ColumnRecord.read(message));
+            }
+
+            latestSnapshot = new WorldSnapshot(tick, seed, editsRevision, treesRevision, avatars);
+            receivedSnapshots.put(tick, latestSnapshot);
+
+            // The server only moves its bases forward, so older snapshots are never needed again
+            receivedSnapshots.keySet().removeIf(receivedTick -> receivedTick < baseTick);
+        }
+    }
+}
@@ -0,0 +1,351 @@
+package pepse.net;
+
+import pepse.util.ChangeLog;
+import pepse.world.TerrainEdits;
+import pepse.world.save.ColumnRecord;
+import pepse.world.trees.Tree;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Serves the authoritative world to clients on the local machine. Every tick, each client is sent a snapshot
+ * delta-encoded against the last snapshot it acknowledged, holding only the avatars and the columns whose
+ * terrain edits or tree states changed since. Clients regenerate the procedural terrain from the seed.
+ * Everything runs on the game thread over non-blocking sockets.
+ * <p>
+ * Snapshot message layout, big-endian:
+ * <pre>
+ * int   tick
+ * int   baseTick          the acknowledged snapshot the message is encoded against, -1 for none
+ * int   clientId          the avatar id of the receiving client
+ * int   seed
+ * long  editsRevision
+ * long  treesRevision
+ * int   avatarsCount      per avatar changed since the base: int id, float x, float y, float energy
+ * int   removedCount      per avatar gone since the base: int id
+ * int   editsCount        per column whose edits changed since the base:
+ *                         int x, edits as encoded by ColumnEdits
+ * int   treesCount        per column whose tree changed since the base:
+ *                         int x, state as encoded by ColumnRecord
+ * </pre>
+ * Client message layout, big-endian: int acknowledgedTick, float x, float y, float energy.
+ */
+public class SnapshotServer implements Closeable {
+
+    /**
+     * The avatar id of the player hosting the server
+     */
+    public static final int HOST_AVATAR_ID = 0;
+
+    private static final float SNAPSHOT_INTERVAL = 1 / 20f; // Time between snapshots, in seconds
+    private static final int MAX_UNACKNOWLEDGED = 64; // Snapshots kept per client awaiting acknowledgement
+    private static final int HEADER_BYTES = 8 * Integer.BYTES + 2 * Long.BYTES;
+    private static final int AVATAR_BYTES = Integer.BYTES + 3 * Float.BYTES;
+
+    private final ServerSocketChannel serverChannel;
+    private final int seed;
+    private final TerrainEdits terrainEdits;
+    private final Consumer<String> onClientEvent; // Reports clients joining and leaving
+    private final Map<Integer, ColumnRecord> treeStates = new HashMap<>(); // Latest changed tree states by x
+    private final ChangeLog treesLog = new ChangeLog(); // When each tree state last changed
+    private final Map<Integer, Client> clients = new HashMap<>(); // Connected clients by avatar id
+    private final Map<Integer, AvatarState> remoteAvatars = new HashMap<>(); // Client avatars by avatar id
+    private int nextClientId = HOST_AVATAR_ID + 1;
+    private int tick = 0;
+    private float timeSinceSnapshot = 0;
+    private int lastSnapshotBytes = 0;
+
+    /**
+     * Constructs a SnapshotServer.
+     *
+     * @param serverChannel An open, bound server channel.
+     * @param seed          The seed of the world.
+     * @param terrainEdits  The authoritative terrain edits.
+     * @param onClientEvent A Consumer that receives a message whenever a client joins or leaves.
+     * @throws IOException If the channel cannot be configured.
+     */
+    private SnapshotServer(ServerSocketChannel serverChannel, int seed, TerrainEdits terrainEdits,
+                           Consumer<String> onClientEvent) throws IOException {
+        this.serverChannel = serverChannel;
+        this.seed = seed;
+        this.terrainEdits = terrainEdits;
+        this.onClientEvent = onClientEvent;
+        serverChannel.configureBlocking(false);
+    }
+
+    /**
+     * Opens a server on the loopback interface.
+     *
+     * @param port          The port to listen on.
+     * @param seed          The seed of the world.
+     * @param terrainEdits  The authoritative terrain edits.
+     * @param onClientEvent A Consumer that receives a message whenever a client joins or leaves.
+     * @return The new server.
+     * @throws IOException If the port cannot be bound.
+     */
+    public static SnapshotServer open(int port, int seed, TerrainEdits terrainEdits,
+                                      Consumer<String> onClientEvent) throws IOException {
+        ServerSocketChannel serverChannel = ServerSocketChannel.open();
+        try {
+            serverChannel.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+            return new SnapshotServer(serverChannel, seed, terrainEdits, onClientEvent);
+        } catch (IOException e) {
+            serverChannel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Accepts new clients, reads client messages, and sends a snapshot to every client once per tick.
+     *
+     * @param deltaTime   The time elapsed since the last update in seconds.
+     * @param hostAvatar  The state of the host's avatar.
+     * @param forEachTree A Consumer that runs a given BiConsumer on the x coordinate and tree of every live
+     *                    tree.
+     * @throws IOException If accepting clients failed.
+     */
+    public void update(float deltaTime, AvatarState hostAvatar,
+                       Consumer<BiConsumer<Integer, Tree>> forEachTree) throws IOException {
+        SocketChannel socketChannel;
+        while ((socketChannel = serverChannel.accept()) != null) {
+            int clientId = nextClientId++;
+            clients.put(clientId, new Client(new FramedChannel(socketChannel)));
+            onClientEvent.accept("Player " + clientId + " joined");
+        }
+
+        for (Iterator<Map.Entry<Integer, Client>> it = clients.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<Integer, Client> entry = it.next();
+            try {
+                receiveFromClient(entry.getKey(), entry.getValue());
+            } catch (IOException e) {
+                closeQuietly(entry.getValue().channel);
+                remoteAvatars.remove(entry.getKey());
+                it.remove();
+                onClientEvent.accept("Player " + entry.getKey() + " left: " + e.getMessage());
+            }
+        }
+
+        timeSinceSnapshot += deltaTime;
+        if (timeSinceSnapshot < SNAPSHOT_INTERVAL) {
+            return;
+        }
+        timeSinceSnapshot %= SNAPSHOT_INTERVAL;
+        updateTreeStates(forEachTree);
+
+        Map<Integer, AvatarState> avatars = new HashMap<>(remoteAvatars);
+        avatars.put(HOST_AVATAR_ID, hostAvatar);
+        WorldSnapshot snapshot = new WorldSnapshot(++tick, seed, terrainEdits.getChangeLog().getRevision(),
+                treesLog.getRevision(), avatars);
+        lastSnapshotBytes = 0;
+        for (Map.Entry<Integer, Client> entry : clients.entrySet()) {
+            Client client = entry.getValue();
+            if (client.channel.hasPendingOutput()) {
+                continue; // The client is behind, it will get a delta covering this tick later
+            }
+            if (client.sentSnapshots.size() >= MAX_UNACKNOWLEDGED) {
+                client.sentSnapshots.clear();
+                client.acknowledgedSnapshot = null;
+            }
+            ByteBuffer message = encode(client.acknowledgedSnapshot, snapshot, entry.getKey());
+            lastSnapshotBytes = Math.max(lastSnapshotBytes, message.remaining());
+            client.sentSnapshots.put(snapshot.getTick(), snapshot);
+            try {
+                client.channel.send(message);
+            } catch (IOException e) {
+                // Detected and reported as the client leaving on the next read
+            }
+        }
+    }
+
+    /**
+     * Retrieves the avatars of the connected clients.
+     *
+     * @return The client avatar states, by avatar id.
+     */
+    public Map<Integer, AvatarState> getRemoteAvatars() {
+        return remoteAvatars;
+    }
+
+    /**
+     * Retrieves the size of the largest snapshot message sent on the last tick.
+     *
+     * @return The size of the message in bytes, 0 if no snapshot was sent.
+     */
+    public int getLastSnapshotBytes() {
+        return lastSnapshotBytes;
+    }
+
+    /**
+     * Disconnects all clients and stops listening.
+     *
+     * @throws IOException If the server channel cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        for (Client client : clients.values()) {
+            closeQuietly(client.channel);
+        }
+        clients.clear();
+        serverChannel.close();
+    }
+
+    /**
+     * Reads all messages a client sent since the last update.
+     *
+     * @param clientId The avatar id of the client.
+     * @param client   The client.
+     * @throws IOException If the connection failed.
+     */
+    private void receiveFromClient(int clientId, Client client) throws IOException {
+        client.channel.flush();
+        ByteBuffer message;
+        while ((message = client.channel.receive()) != null) {
+            int acknowledgedTick = message.getInt();
+            remoteAvatars.put(clientId, new AvatarState(message.getFloat(), message.getFloat(),
+                    message.getFloat()));
+            WorldSnapshot acknowledged = client.sentSnapshots.get(acknowledgedTick);
+            if (acknowledged != null) {
+                client.acknowledgedSnapshot = acknowledged;
+                client.sentSnapshots.keySet().removeIf(sentTick -> sentTick <= acknowledgedTick);
+            }
+        }
+    }
+
+    /**
+     * Logs the trees whose state changed since the last tick. Only live trees are checked, so the cost
+     * doesn't grow with the explored world. Respawn countdowns are left to the clients.
+     *
+     * @param forEachTree A Consumer that runs a given BiConsumer on the x coordinate and tree of every live
+     *                    tree.
+     */
+    private void updateTreeStates(Consumer<BiConsumer<Integer, Tree>> forEachTree) {
+        forEachTree.accept((x, tree) -> {
+            ColumnRecord record = tree.toRecord();
+            if (record != null && !sameTreeState(record, treeStates.get(x))) {
+                treeStates.put(x, record);
+                treesLog.markChanged(x);
+            }
+        });
+    }
+
+    /**
+     * Encodes a snapshot as a delta against an older one.
+     *
+     * @param base     The snapshot the client acknowledged, or null to encode everything.
+     * @param snapshot The snapshot to encode.
+     * @param clientId The avatar id of the receiving client.
+     * @return The encoded message, ready to be read.
+     */
+    private ByteBuffer encode(WorldSnapshot base, WorldSnapshot snapshot, int clientId) {
+        Map<Integer, AvatarState> baseAvatars = base == null ? Map.of() : base.getAvatars();
+        List<Map.Entry<Integer, AvatarState>> changedAvatars = new ArrayList<>();
+        for (Map.Entry<Integer, AvatarState> entry : snapshot.getAvatars().entrySet()) {
+            if (!entry.getValue().equals(baseAvatars.get(entry.getKey()))) {
+                changedAvatars.add(entry);
+            }
+        }
+        List<Integer> removedAvatars = new ArrayList<>(baseAvatars.keySet());
+        removedAvatars.removeAll(snapshot.getAvatars().keySet());
+        List<Integer> changedEdits = terrainEdits.getChangeLog()
+                .changedSince(base == null ? 0 : base.getEditsRevision());
+        List<Integer> changedTrees = treesLog.changedSince(base == null ? 0 : base.getTreesRevision());
+
+        int size = HEADER_BYTES + changedAvatars.size() * AVATAR_BYTES
+                + removedAvatars.size() * Integer.BYTES;
+        for (int x : changedEdits) {
+            size += Integer.BYTES + terrainEdits.get(x).encodedSize();
+        }
+        for (int x : changedTrees) {
+            size += Integer.BYTES + treeStates.get(x).encodedSize();
+        }
+
+        ByteBuffer message = ByteBuffer.allocate(size);
+        message.putInt(snapshot.getTick()).putInt(base == null ? -1 : base.getTick()).putInt(clientId)
+                .putInt(snapshot.getSeed()).putLong(snapshot.getEditsRevision())
+                .putLong(snapshot.getTreesRevision());
+        message.putInt(changedAvatars.size());
+        for (Map.Entry<Integer, AvatarState> entry : changedAvatars) {
+            AvatarState avatar = entry.getValue();
+            message.putInt(entry.getKey())
+                    .putFloat(avatar.x()).putFloat(avatar.y()).putFloat(avatar.energy());
+        }
+        message.putInt(removedAvatars.size());
+        removedAvatars.forEach(message::putInt);
+        message.putInt(changedEdits.size());
+        for (int x : changedEdits) {
+            message.putInt(x);
+            terrainEdits.get(x).write(message);
+        }
+        message.putInt(changedTrees.size());
+        for (int x : changedTrees) {
+            message.putInt(x);
+            treeStates.get(x).write(message);
+        }
+        return message.flip();
+    }
+
+    /**
+     * Compares two tree states, ignoring the respawn countdowns.
+     *
+     * @param record      A tree state.
+     * @param otherRecord Another tree state, or null.
+     * @return True if the trees look the same, false otherwise.
+     */
+    private static boolean sameTreeState(ColumnRecord record, ColumnRecord otherRecord) {
+        if (otherRecord == null || record.getTrunkRgb() != otherRecord.getTrunkRgb()
+                || record.getFruitsCount() != otherRecord.getFruitsCount()) {
+            return false;
+        }
+        for (int i = 0; i < record.getFruitsCount(); i++) {
+            if (record.fruitExists(i) != otherRecord.fruitExists(i)
+                    || record.getFruitRgb(i) != otherRecord.getFruitRgb(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Closes a client connection, ignoring failures.
+     *
+     * @param channel The connection to close.
+     */
+    private static void closeQuietly(FramedChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // The client is gone either way
+        }
+    }
+
+    /**
+     * A connected client and the snapshots it was sent.
+     */
+    private static class Client {
+        private final FramedChannel channel;
+        private final Map<Integer, WorldSnapshot> sentSnapshots = new HashMap<>(); // Unacknowledged, by tick
+        private WorldSnapshot acknowledgedSnapshot; // The latest acknowledged snapshot, or null
+
+        /**
+         * Constructs a Client.
+         *
+         * @param channel The connection to the client.
+         */
+        private Client(FramedChannel channel) {
+            this.channel = channel;
+        }
+    }
+}
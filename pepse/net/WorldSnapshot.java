@@ -0,0 +1,71 @@
+package pepse.net;
+
+import java.util.Map;
+
+/**
+ * The authoritative state of the world at a server tick. Terrain edits and tree states are kept by the server
+ * in change logs, so a snapshot only records their revisions, and a delta against an older snapshot holds
+ * just the columns changed in between. The procedural terrain itself is never part of a snapshot, only the
+ * seed it is generated from.
+ */
+public class WorldSnapshot {
+
+    private final int tick;
+    private final int seed;
+    private final long editsRevision; // Revision of the terrain edits log at the tick
+    private final long treesRevision; // Revision of the tree states log at the tick
+    private final Map<Integer, AvatarState> avatars; // Avatar states by avatar id
+
+    /**
+     * Constructs a WorldSnapshot.
+     *
+     * @param tick          The server tick of the snapshot.
+     * @param seed          The seed of the world.
+     * @param editsRevision The revision of the terrain edits log at the tick.
+     * @param treesRevision The revision of the tree states log at the tick.
+     * @param avatars       The avatar states, by avatar id.
+     */
+    public WorldSnapshot(int tick, int seed, long editsRevision, long treesRevision,
+                         Map<Integer, AvatarState> avatars) {
+        this.tick = tick;
+        this.seed = seed;
+        this.editsRevision = editsRevision;
+        this.treesRevision = treesRevision;
+        this.avatars = Map.copyOf(avatars);
+    }
+
+    /**
+     * @return The server tick of the snapshot.
+     */
+    public int getTick() {
+        return tick;
+    }
+
+    /**
+     * @return The seed of the world.
+     */
+    public int getSeed() {
+        return seed;
+    }
+
+    /**
+     * @return The revision of the terrain edits log at the tick.
+     */
+    public long getEditsRevision() {
+        return editsRevision;
+    }
+
+    /**
+     * @return The revision of the tree states log at the tick.
+     */
+    public long getTreesRevision() {
+        return treesRevision;
+    }
+
+    /**
+     * @return The avatar states, by avatar id.
+     */
+    public Map<Integer, AvatarState> getAvatars() {
+        return avatars;
+    }
+}
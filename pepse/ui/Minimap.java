@@ -0,0 +1,177 @@
+package pepse.ui;
+
+import danogl.GameObject;
+import danogl.components.CoordinateSpace;
+import danogl.util.Vector2;
+import pepse.world.Block;
+import pepse.world.Terrain;
+import pepse.world.trees.Flora;
+import pepse.world.trees.Tree;
+
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.util.function.Supplier;
+
+/**
+ * The Minimap class represents a user interface component that shows the terrain and the trees far beyond
+ * the rendered range, centered on the avatar. It is painted straight from the heightmap and from the
+ * deterministic placement of the trees, a pixel per column, into an image whose columns are slots by their
+ * world column: as the avatar walks, only the columns that scrolled in are painted, over the slots of the
+ * ones that scrolled out, and the image is drawn in two parts split at the first column. The cost of a frame
+ * depends on how far the avatar walked, not on the span of the minimap.
+ */
+public class Minimap extends GameObject {
+
+    private static final String MINIMAP_TAG = "minimap"; // Tag for the minimap
+    private static final int COLUMNS = 480; // Number of columns the minimap spans, a pixel each
+    private static final int MARGIN = 10; // Distance of the minimap from the window's top-right corner
+    private static final int TREE_REACH = 5; // Covers the sideways reach of any leaves, in columns
+    private static final Color BACKGROUND_COLOR = new Color(255, 255, 255, 80); // Color of the sky
+    private static final Color BORDER_COLOR = Color.DARK_GRAY; // Color of the minimap's frame
+    private static final Color AVATAR_COLOR = Color.RED; // Color of the avatar's marker
+    private static final int AVATAR_MARKER_SIZE = 3; // Size of the avatar's marker, in pixels
+
+    private final Terrain terrain;
+    private final Flora flora;
+    private final Supplier<Vector2> getAvatarCenter;
+    private final int topRow; // The row of the minimap's first pixel row
+    private final int rows; // The number of pixel rows, a block each
+    private final BufferedImage image; // A pixel per block, columns in slots by their world column
+    private final Graphics2D imageGraphics; // Paints the columns into the image
+    private int firstColumn; // The world column at the minimap's left edge
+    private boolean painted = false; // Whether the image holds the columns from firstColumn on
+
+    /**
+     * Constructs a Minimap at the top-right corner of the window.
+     *
+     * @param terrain          The terrain, for its heightmap.
+     * @param flora            The flora, for the placement of its trees.
+     * @param getAvatarCenter  A Supplier of the center of the avatar, which the minimap is centered on.
+     * @param windowDimensions The dimensions of the game window.
+     */
+    public Minimap(Terrain terrain, Flora flora, Supplier<Vector2> getAvatarCenter,
+                   Vector2 windowDimensions) {
+        super(Vector2.ZERO, Vector2.ZERO, null);
+        this.terrain = terrain;
+        this.flora = flora;
+        this.getAvatarCenter = getAvatarCenter;
+
+        // Cover a window height above and below the ground at x = 0, beyond the terrain's hills and depth
+        float groundHeightAtX0 = terrain.groundHeightAt(0);
+        this.topRow = (int) Math.floor((groundHeightAtX0 - windowDimensions.y()) / Block.BLOCK_SIZE);
+        this.rows = (int) Math.ceil(2 * windowDimensions.y() / Block.BLOCK_SIZE);
+        this.image = new BufferedImage(COLUMNS, rows, BufferedImage.TYPE_INT_ARGB);
+        this.imageGraphics = image.createGraphics();
+
+        setDimensions(new Vector2(COLUMNS, rows));
+        setTopLeftCorner(new Vector2(windowDimensions.x() - COLUMNS - MARGIN, MARGIN));
+        renderer().setRenderable(this::renderMinimap);
+        setCoordinateSpace(CoordinateSpace.CAMERA_COORDINATES);
+        setTag(MINIMAP_TAG);
+    }
+
+    /**
+     * Centers the minimap on the avatar, painting the columns that scrolled in.
+     *
+     * @param deltaTime The time elapsed since the last update in seconds.
+     */
+    @Override
+    public void update(float deltaTime) {
+        super.update(deltaTime);
+        int avatarX = (int) Math.floor(getAvatarCenter.get().x()) + terrain.getOriginX();
+        int newFirstColumn = Math.floorDiv(avatarX, Block.BLOCK_SIZE) - COLUMNS / 2;
+        if (painted && newFirstColumn == firstColumn) {
+            return;
+        }
+
+        // Paint the columns that entered the minimap, or all of them after a jump longer than its span
+        int fromColumn = newFirstColumn;
+        int toColumn = newFirstColumn + COLUMNS;
+        if (painted && Math.abs(newFirstColumn - firstColumn) < COLUMNS) {
+            if (newFirstColumn > firstColumn) {
+                fromColumn = firstColumn + COLUMNS;
+            } else {
+                toColumn = firstColumn;
+            }
+        }
+        for (int column = fromColumn; column < toColumn; column++) {
+            paintColumn(column);
+        }
+        firstColumn = newFirstColumn;
+        painted = true;
+    }
+
+    /**
+     * Paints a column into its slot: the sky, the ground from the surface down, and the silhouettes of the
+     * trees that reach into it.
+     *
+     * @param column The world column to paint.
+     */
+    private void paintColumn(int column) {
+        int slot = Math.floorMod(column, COLUMNS);
+        imageGraphics.setTransform(new AffineTransform());
+        imageGraphics.setClip(slot, 0, 1, rows);
+        imageGraphics.setComposite(AlphaComposite.Src);
+        imageGraphics.setColor(BACKGROUND_COLOR);
+        imageGraphics.fillRect(slot, 0, 1, rows);
+        imageGraphics.setComposite(AlphaComposite.SrcOver);
+
+        // Paint in world coordinates, relative to the origin the terrain and the flora work in
+        int x = column * Block.BLOCK_SIZE - terrain.getOriginX();
+        imageGraphics.translate(slot, -topRow);
+        imageGraphics.scale(1.0 / Block.BLOCK_SIZE, 1.0 / Block.BLOCK_SIZE);
+        imageGraphics.translate(-x, 0);
+        float surfaceY = (float) Math.floor(terrain.groundHeightAt(x) / Block.BLOCK_SIZE) * Block.BLOCK_SIZE;
+        imageGraphics.setColor(terrain.biomeAt(x).getGroundColor());
+        imageGraphics.fill(new Rectangle.Float(x, surfaceY, Block.BLOCK_SIZE,
+                Terrain.TERRAIN_DEPTH * Block.BLOCK_SIZE));
+        for (int treeX = x - TREE_REACH * Block.BLOCK_SIZE; treeX <= x + TREE_REACH * Block.BLOCK_SIZE;
+             treeX += Block.BLOCK_SIZE) {
+            int trunkHeight = flora.trunkHeightInColumn(treeX);
+            if (trunkHeight > 0) {
+                Tree.paintSilhouette(imageGraphics, treeX, terrain.groundHeightAt(treeX), trunkHeight,
+                        terrain.biomeAt(treeX));
+            }
+        }
+    }
+
+    /**
+     * Draws the minimap in two parts split at its first column's slot, then the avatar's marker and a frame.
+     *
+     * @param graphics              The graphics to draw with.
+     * @param topLeftCorner         The top-left corner of the minimap on screen.
+     * @param dimensions            The dimensions of the minimap on screen.
+     * @param rotation              The rotation of the minimap, ignored.
+     * @param isFlippedHorizontally Whether the minimap is flipped horizontally, ignored.
+     * @param isFlippedVertically   Whether the minimap is flipped vertically, ignored.
+     * @param opaqueness            The opaqueness of the minimap, ignored.
+     */
+    private void renderMinimap(Graphics2D graphics, Vector2 topLeftCorner, Vector2 dimensions,
+                               double rotation, boolean isFlippedHorizontally, boolean isFlippedVertically,
+                               double opaqueness) {
+        if (!painted) {
+            return;
+        }
+        int left = Math.round(topLeftCorner.x());
+        int top = Math.round(topLeftCorner.y());
+        int width = Math.round(dimensions.x());
+        int height = Math.round(dimensions.y());
+        int firstSlot = Math.floorMod(firstColumn, COLUMNS);
+        int split = left + (COLUMNS - firstSlot) * width / COLUMNS;
+        graphics.drawImage(image, left, top, split, top + height, firstSlot, 0, COLUMNS, rows, null);
+        if (firstSlot > 0) {
+            graphics.drawImage(image, split, top, left + width, top + height, 0, 0, firstSlot, rows, null);
+        }
+
+        Color previousColor = graphics.getColor();
+        float avatarRow = getAvatarCenter.get().y() / Block.BLOCK_SIZE - topRow;
+        graphics.setColor(AVATAR_COLOR);
+        graphics.fillRect(left + width / 2 - AVATAR_MARKER_SIZE / 2,
+                top + Math.round(avatarRow * height / rows) - AVATAR_MARKER_SIZE / 2,
+                AVATAR_MARKER_SIZE, AVATAR_MARKER_SIZE);
+        graphics.setColor(BORDER_COLOR);
+        graphics.drawRect(left, top, width - 1, height - 1);
+        graphics.setColor(previousColor);
+    }
+}
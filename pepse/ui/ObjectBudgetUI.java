@@ -0,0 +1,61 @@
+package pepse.ui;
+
+import danogl.GameObject;
+import danogl.components.CoordinateSpace;
+import danogl.gui.rendering.TextRenderable;
+import danogl.util.Vector2;
+import pepse.util.ObjectBudget;
+
+import java.awt.*;
+import java.util.function.Supplier;
+
+
+/**
+ * The ObjectBudgetUI class represents a user interface component that displays the live world object count
+ * against its budget, the current eviction level and the number of evicted objects.
+ */
+public class ObjectBudgetUI extends GameObject {
+
+    private static final String OBJECT_BUDGET_UI_TAG = "ObjectBudgetUI"; // Tag for the object budget UI
+
+    private static final Vector2 OBJECT_BUDGET_UI_POSITION = new Vector2(10, 85); // Position of the UI
+    private static final Vector2 OBJECT_BUDGET_UI_SIZE = new Vector2(320, 20); // Size of the UI
+    private static final Color OBJECT_BUDGET_UI_COLOR = Color.DARK_GRAY; // Color of the text
+
+    private final Supplier<ObjectBudget.Metrics> getMetrics;
+    private final TextRenderable textRenderable;
+    private ObjectBudget.Metrics shownMetrics; // The metrics currently displayed, to avoid redundant updates
+
+    /**
+     * Constructs an ObjectBudgetUI object with a supplier for the current budget metrics.
+     *
+     * @param metricsSupplier A Supplier<ObjectBudget.Metrics> that provides the current budget metrics.
+     */
+    public ObjectBudgetUI(Supplier<ObjectBudget.Metrics> metricsSupplier) {
+        super(OBJECT_BUDGET_UI_POSITION, OBJECT_BUDGET_UI_SIZE, null);
+        this.getMetrics = metricsSupplier;
+
+        textRenderable = new TextRenderable("");
+        textRenderable.setColor(OBJECT_BUDGET_UI_COLOR);
+        renderer().setRenderable(textRenderable);
+
+        setCoordinateSpace(CoordinateSpace.CAMERA_COORDINATES);
+        setTag(OBJECT_BUDGET_UI_TAG);
+    }
+
+    /**
+     * Update the object budget UI
+     *
+     * @param deltaTime the time passed since the last update.
+     */
+    @Override
+    public void update(float deltaTime) {
+        super.update(deltaTime);
+        ObjectBudget.Metrics metrics = getMetrics.get();
+        if (!metrics.equals(shownMetrics)) {
+            shownMetrics = metrics;
+            textRenderable.setString("Objects: " + metrics.liveObjects() + "/" + metrics.maxObjects()
+                    + " Evicting: " + metrics.level() + " (" + metrics.evictedObjects() + ")");
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package pepse.ui;
+
+import danogl.GameObject;
+import danogl.components.CoordinateSpace;
+import danogl.gui.rendering.TextRenderable;
+import danogl.util.Vector2;
+import pepse.util.QualityLevel;
+
+import java.awt.*;
+import java.util.function.Supplier;
+
+
+/**
+ * The QualityUI class represents a user interface component that displays the current quality level
+ * chosen by the quality governor.
+ */
+public class QualityUI extends GameObject {
+
+    private static final String QUALITY_UI_TAG = "QualityUI"; // Tag for the quality UI
+    private static final String QUALITY_PREFIX = "Quality: "; // Prefix of the quality display
+
+    private static final Vector2 QUALITY_UI_POSITION = new Vector2(10, 60); // Position of the quality UI
+    private static final Vector2 QUALITY_UI_SIZE = new Vector2(120, 20); // Size of the quality UI
+    private static final Color QUALITY_UI_COLOR = Color.DARK_GRAY; // Color of the quality text
+
+    private final Supplier<QualityLevel> getQualityLevel;
+    private final TextRenderable textRenderable;
+    private QualityLevel shownLevel; // The level currently displayed, to avoid redundant updates
+
+    /**
+     * Constructs a QualityUI object with a supplier for the current quality level.
+     *
+     * @param qualityLevelSupplier A Supplier<QualityLevel> that provides the current quality level.
+     */
+    public QualityUI(Supplier<QualityLevel> qualityLevelSupplier) {
+        super(QUALITY_UI_POSITION, QUALITY_UI_SIZE, null);
+        this.getQualityLevel = qualityLevelSupplier;
+
+        textRenderable = new TextRenderable("");
+        textRenderable.setColor(QUALITY_UI_COLOR);
+        renderer().setRenderable(textRenderable);
+
+        setCoordinateSpace(CoordinateSpace.CAMERA_COORDINATES);
+        setTag(QUALITY_UI_TAG);
+    }
+
+    /**
+     * Update the quality UI
+     *
+     * @param deltaTime the time passed since the last update.
+     */
+    @Override
+    public void update(float deltaTime) {
+        super.update(deltaTime);
+        QualityLevel currentLevel = getQualityLevel.get();
+        if (currentLevel != shownLevel) {
+            shownLevel = currentLevel;
+            textRenderable.setString(QUALITY_PREFIX + currentLevel);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package pepse.ui;
+
+import danogl.GameObject;
+import danogl.components.CoordinateSpace;
+import danogl.gui.rendering.TextRenderable;
+import danogl.util.Vector2;
+import pepse.world.save.WorldSave;
+
+import java.awt.*;
+import java.util.function.Supplier;
+
+
+/**
+ * The SaveUI class represents a user interface component that displays the metrics of the last completed
+ * save: the regions written, their size, and the time spent taking the snapshot on the game thread and
+ * writing it in the background.
+ */
+public class SaveUI extends GameObject {
+
+    private static final String SAVE_UI_TAG = "SaveUI"; // Tag for the save UI
+
+    private static final Vector2 SAVE_UI_POSITION = new Vector2(10, 110); // Position of the save UI
+    private static final Vector2 SAVE_UI_SIZE = new Vector2(360, 20); // Size of the save UI
+    private static final Color SAVE_UI_COLOR = Color.DARK_GRAY; // Color of the text
+    private static final String SAVE_FORMAT = "Saved: %d regions, %.1f KB (snapshot %.0f us, write %.1f ms)";
+    private static final float BYTES_PER_KB = 1024f;
+    private static final float NANOS_PER_MICRO = 1e3f;
+    private static final float NANOS_PER_MILLI = 1e6f;
+
+    private final Supplier<WorldSave.SaveMetrics> getMetrics;
+    private final TextRenderable textRenderable;
+    private WorldSave.SaveMetrics shownMetrics; // The metrics currently displayed, to avoid redundant updates
+
+    /**
+     * Constructs a SaveUI object with a supplier for the metrics of the last save.
+     *
+     * @param metricsSupplier A Supplier<WorldSave.SaveMetrics> that provides the metrics of the last
+     *                        completed save, or null if no save completed yet.
+     */
+    public SaveUI(Supplier<WorldSave.SaveMetrics> metricsSupplier) {
+        super(SAVE_UI_POSITION, SAVE_UI_SIZE, null);
+        this.getMetrics = metricsSupplier;
+
+        textRenderable = new TextRenderable("Saved: never");
+        textRenderable.setColor(SAVE_UI_COLOR);
+        renderer().setRenderable(textRenderable);
+
+        setCoordinateSpace(CoordinateSpace.CAMERA_COORDINATES);
+        setTag(SAVE_UI_TAG);
+    }
+
+    /**
+     * Update the save UI
+     *
+     * @param deltaTime the time passed since the last update.
+     */
+    @Override
+    public void update(float deltaTime) {
+        super.update(deltaTime);
+        WorldSave.SaveMetrics metrics = getMetrics.get();
+        if (metrics != null && !metrics.equals(shownMetrics)) {
+            shownMetrics = metrics;
+            float kilobytes = metrics.bytes() / BYTES_PER_KB;
+            textRenderable.setString(String.format(SAVE_FORMAT, metrics.regions(), kilobytes,
+                    metrics.snapshotNanos() / NANOS_PER_MICRO, metrics.writeNanos() / NANOS_PER_MILLI));
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package pepse.util;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Measures how many bytes the current thread allocates while running an operation, using the allocated
+ * bytes counters of the JVM's thread MXBean. Operations are warmed up first, so the JIT compiler has a chance
+ * to remove allocations that escape analysis can eliminate before anything is counted.
+ */
+public class AllocationMeter {
+
+    private final com.sun.management.ThreadMXBean threads;
+
+    /**
+     * Constructs an AllocationMeter.
+     *
+     * @throws UnsupportedOperationException If the JVM doesn't measure thread allocations.
+     */
+    public AllocationMeter() {
+        if (!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threadMXBean)
+                || !threadMXBean.isThreadAllocatedMemorySupported()) {
+            throw new UnsupportedOperationException("This JVM doesn't measure thread allocations");
+        }
+        threadMXBean.setThreadAllocatedMemoryEnabled(true);
+        this.threads = threadMXBean;
+    }
+
+    /**
+     * Runs an operation repeatedly and measures its average allocation.
+     *
+     * @param operation         The operation to measure. It should be repeatable as many times as requested.
+     * @param warmupIterations  The number of unmeasured runs before measuring.
+     * @param measureIterations The number of measured runs.
+     * @return The average number of bytes the operation allocated per run.
+     */
+    public long bytesPerRun(Runnable operation, int warmupIterations, int measureIterations) {
+        for (int i = 0; i < warmupIterations; i++) {
+            operation.run();
+        }
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < measureIterations; i++) {
+            operation.run();
+        }
+        long after = threads.getCurrentThreadAllocatedBytes();
+        return (after - before) / measureIterations;
+    }
+}
@@ -0,0 +1,104 @@
+package pepse.util;
+
+import danogl.gui.ImageReader;
+import danogl.gui.MessageHandler;
+import danogl.gui.rendering.ImageRenderable;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Decodes and caches the game's images by path.
+ * Images are decoded in parallel at startup, and animation frames can be packed into a single atlas
+ * image that all of their renderables share. Every later request for a path, such as another avatar or
+ * skin, reuses the decoded data.
+ */
+public class AssetManager {
+
+    private final MessageHandler messageHandler; // Receives decoding errors
+    private final Map<String, ImageRenderable> images = new ConcurrentHashMap<>(); // Decoded images by path
+
+    /**
+     * Constructs an AssetManager.
+     *
+     * @param imageReader The game's image reader, whose message handler receives decoding errors.
+     */
+    public AssetManager(ImageReader imageReader) {
+        this.messageHandler = imageReader.messageHandler();
+    }
+
+    /**
+     * Decodes the given images in parallel and caches them. Images that are already cached are skipped.
+     * The call returns once all images are decoded.
+     *
+     * @param transparent Whether the background color of the images should be made transparent.
+     * @param paths       The paths of the images to decode.
+     */
+    public void preload(boolean transparent, String... paths) {
+        // ImageReader keeps an unsynchronized cache, so every decoding task gets a reader of its own
+        Arrays.stream(paths).distinct().parallel().forEach(path -> images.computeIfAbsent(path,
+                key -> new ImageReader(messageHandler).readImage(key, transparent)));
+    }
+
+    /**
+     * Packs the given images into a single atlas image, laid out left to right, and replaces their cached
+     * entries with views into the atlas. The images are decoded first if they aren't cached yet.
+     *
+     * @param transparent Whether the background color of the images should be made transparent.
+     * @param paths       The paths of the images to pack.
+     */
+    public void packAtlas(boolean transparent, String... paths) {
+        preload(transparent, paths);
+        String[] distinctPaths = Arrays.stream(paths).distinct().toArray(String[]::new);
+
+        int atlasWidth = 0;
+        int atlasHeight = 0;
+        for (String path : distinctPaths) {
+            atlasWidth += images.get(path).width();
+            atlasHeight = Math.max(atlasHeight, images.get(path).height());
+        }
+
+        BufferedImage atlas = new BufferedImage(atlasWidth, atlasHeight, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = atlas.createGraphics();
+        int x = 0;
+        for (String path : distinctPaths) {
+            ImageRenderable image = images.get(path);
+            graphics.drawImage(image.getImage(), x, 0, null);
+            // A sub image shares the atlas raster instead of copying it
+            images.put(path, new ImageRenderable(atlas.getSubimage(x, 0, image.width(), image.height())));
+            x += image.width();
+        }
+        graphics.dispose();
+    }
+
+    /**
+     * Retrieves a cached image, decoding it on the calling thread if it wasn't preloaded.
+     *
+     * @param path        The path of the image.
+     * @param transparent Whether the background color of the image should be made transparent, if it
+     *                    has to be decoded now.
+     * @return The image renderable.
+     */
+    public ImageRenderable getImage(String path, boolean transparent) {
+        return images.computeIfAbsent(path, key -> new ImageReader(messageHandler).readImage(key, transparent));
+    }
+
+    /**
+     * Retrieves the cached images of an animation sequence, in order.
+     *
+     * @param paths       The paths of the animation frames.
+     * @param transparent Whether the background color of the frames should be made transparent, if they
+     *                    have to be decoded now.
+     * @return The frames of the animation.
+     */
+    public ImageRenderable[] getImages(String[] paths, boolean transparent) {
+        ImageRenderable[] frames = new ImageRenderable[paths.length];
+        for (int i = 0; i < paths.length; i++) {
+            frames[i] = getImage(paths[i], transparent);
+        }
+        return frames;
+    }
+}
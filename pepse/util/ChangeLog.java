@@ -0,0 +1,49 @@
+package pepse.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Tracks which keys changed, and when, through a revision number bumped on every change. Only the latest
+ * change of every key is kept, so the keys changed since a given revision are found in time proportional to
+ * their number, regardless of how many keys changed before it.
+ */
+public class ChangeLog {
+
+    private final Map<Integer, Long> revisionsByKey = new HashMap<>(); // The latest change of every key
+    private final TreeMap<Long, Integer> keysByRevision = new TreeMap<>(); // The same, ordered by revision
+    private long revision = 0;
+
+    /**
+     * Records a change of a key.
+     *
+     * @param key The key that changed.
+     */
+    public void markChanged(int key) {
+        Long previousRevision = revisionsByKey.put(key, ++revision);
+        if (previousRevision != null) {
+            keysByRevision.remove(previousRevision);
+        }
+        keysByRevision.put(revision, key);
+    }
+
+    /**
+     * @return The revision of the latest change, 0 if nothing changed yet.
+     */
+    public long getRevision() {
+        return revision;
+    }
+
+    /**
+     * Retrieves the keys changed after a revision.
+     *
+     * @param sinceRevision The revision to compare with, 0 for all keys that ever changed.
+     * @return The keys whose latest change is newer than the revision, from the oldest change to the newest.
+     */
+    public List<Integer> changedSince(long sinceRevision) {
+        return new ArrayList<>(keysByRevision.tailMap(sinceRevision, false).values());
+    }
+}
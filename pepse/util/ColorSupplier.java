@@ -1,7 +1,7 @@
 package pepse.util;
 
 import java.awt.*;
-import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Provides procedurally-generated colors around a pivot.
@@ -11,7 +11,6 @@ import java.util.Random;
 public final class ColorSupplier {
 
     private static final int DEFAULT_COLOR_DELTA = 10;
-    private final static Random random = new Random();
 
     /**
      * Returns a color similar to baseColor, with a default delta.
@@ -40,13 +39,14 @@ public final class ColorSupplier {
 
     /**
      * This method generates a random value for a color channel within the given range [min, max].
+     * A thread-local generator is used, so colors can be sampled concurrently without contention.
      *
      * @param min The lower bound of the given range.
      * @param max The upper bound of the given range.
      * @return A random number in the range [min, max], clipped to [0,255].
      */
     private static int randomChannelInRange(int min, int max) {
-        int channel = random.nextInt(max - min + 1) + min;
+        int channel = ThreadLocalRandom.current().nextInt(max - min + 1) + min;
         return Math.min(255, Math.max(channel, 0));
     }
 }
@@ -0,0 +1,77 @@
+package pepse.util;
+
+/**
+ * The eviction levels the game degrades through when it holds more live world objects than its budget,
+ * ordered from no eviction to the most aggressive one. Each level keeps the evictions of the levels below it.
+ */
+public enum EvictionLevel {
+
+    /**
+     * Nothing is evicted.
+     */
+    NONE(false, false, false),
+    /**
+     * Ground blocks deep under the surface are dropped, except around the player's edits.
+     */
+    DEEP_BLOCKS(true, false, false),
+    /**
+     * The leaves of trees outside the awake range are dropped as well.
+     */
+    FAR_LEAVES(true, true, false),
+    /**
+     * The fruits of trees outside the awake range are dropped as well.
+     */
+    FAR_FRUITS(true, true, true);
+
+    private final boolean deepBlocksEvicted;
+    private final boolean farLeavesEvicted;
+    private final boolean farFruitsEvicted;
+
+    /**
+     * Constructs an eviction level.
+     *
+     * @param deepBlocksEvicted Whether ground blocks deep under the surface are dropped.
+     * @param farLeavesEvicted  Whether the leaves of trees outside the awake range are dropped.
+     * @param farFruitsEvicted  Whether the fruits of trees outside the awake range are dropped.
+     */
+    EvictionLevel(boolean deepBlocksEvicted, boolean farLeavesEvicted, boolean farFruitsEvicted) {
+        this.deepBlocksEvicted = deepBlocksEvicted;
+        this.farLeavesEvicted = farLeavesEvicted;
+        this.farFruitsEvicted = farFruitsEvicted;
+    }
+
+    /**
+     * @return True if ground blocks deep under the surface are dropped at this level, false otherwise.
+     */
+    public boolean isDeepBlocksEvicted() {
+        return deepBlocksEvicted;
+    }
+
+    /**
+     * @return True if the leaves of trees outside the awake range are dropped at this level, false otherwise.
+     */
+    public boolean isFarLeavesEvicted() {
+        return farLeavesEvicted;
+    }
+
+    /**
+     * @return True if the fruits of trees outside the awake range are dropped at this level, false otherwise.
+     */
+    public boolean isFarFruitsEvicted() {
+        return farFruitsEvicted;
+    }
+
+    /**
+     * @return The next milder level, or this level if nothing is evicted at it.
+     */
+    public EvictionLevel milder() {
+        return ordinal() == 0 ? this : values()[ordinal() - 1];
+    }
+
+    /**
+     * @return The next more aggressive level, or this level if it is already the most aggressive.
+     */
+    public EvictionLevel harsher() {
+        return ordinal() == values().length - 1 ? this : values()[ordinal() + 1];
+    }
+}
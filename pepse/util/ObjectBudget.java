@@ -0,0 +1,120 @@
+package pepse.util;
+
+import danogl.GameObject;
+
+import java.util.function.BiConsumer;
+import java.util.function.BiPredicate;
+import java.util.function.Consumer;
+
+/**
+ * Counts the live world objects, by standing between the world and the game object collection, and steps
+ * the eviction level up whenever the count exceeds a budget. A level is only stepped back down once the
+ * objects it evicted fit in the budget again with a margin, for a while, so it does not oscillate.
+ */
+public class ObjectBudget {
+
+    private static final float RESTORE_RATIO = 0.9f; // Part of the budget that must fit before restoring
+    private static final int RESTORE_FRAMES = 120; // Consecutive frames that must fit before restoring
+
+    private final int maxObjects; // The budget of live world objects
+    private final BiConsumer<GameObject, Integer> addObject; // Adds to the game object collection
+    private final BiPredicate<GameObject, Integer> removeObject; // Removes from the game object collection
+    private final Consumer<EvictionLevel> onLevelChange; // Applies a new eviction level
+    private final int[] freedObjects = new int[EvictionLevel.values().length]; // Objects freed by each level
+    private EvictionLevel level = EvictionLevel.NONE;
+    private int liveObjects;
+    private int peakLiveObjects;
+    private long evictedObjects; // Objects removed by all level changes so far
+    private int fittingFrames; // Consecutive frames in which the last level's objects would fit
+
+    /**
+     * Constructs an ObjectBudget.
+     *
+     * @param maxObjects    The number of live world objects above which objects are evicted.
+     * @param addObject     A BiConsumer that adds a GameObject to the given layer of the game object
+     *                      collection.
+     * @param removeObject  A BiPredicate that removes a GameObject from the given layer of the game object
+     *                      collection, and tells if it was there.
+     * @param onLevelChange A Consumer that applies a new eviction level, adding and removing objects through
+     *                      this budget.
+     */
+    public ObjectBudget(int maxObjects, BiConsumer<GameObject, Integer> addObject,
+                        BiPredicate<GameObject, Integer> removeObject,
+                        Consumer<EvictionLevel> onLevelChange) {
+        this.maxObjects = maxObjects;
+        this.addObject = addObject;
+        this.removeObject = removeObject;
+        this.onLevelChange = onLevelChange;
+    }
+
+    /**
+     * Adds a world object to the game object collection and counts it.
+     *
+     * @param gameObject The object to add.
+     * @param layer      The layer to add it to.
+     */
+    public void addObject(GameObject gameObject, Integer layer) {
+        addObject.accept(gameObject, layer);
+        liveObjects++;
+        peakLiveObjects = Math.max(peakLiveObjects, liveObjects);
+    }
+
+    /**
+     * Removes a world object from the game object collection, and stops counting it if it was there.
+     *
+     * @param gameObject The object to remove.
+     * @param layer      The layer to remove it from.
+     */
+    public void removeObject(GameObject gameObject, Integer layer) {
+        if (removeObject.test(gameObject, layer)) {
+            liveObjects--;
+        }
+    }
+
+    /**
+     * Evicts more objects if the budget is exceeded, or restores the last evicted objects once they have fit
+     * in the budget for long enough. Should be called once per frame, after the world was updated.
+     */
+    public void update() {
+        if (liveObjects > maxObjects && level != level.harsher()) {
+            int liveBefore = liveObjects;
+            level = level.harsher();
+            onLevelChange.accept(level);
+            freedObjects[level.ordinal()] = Math.max(0, liveBefore - liveObjects);
+            evictedObjects += freedObjects[level.ordinal()];
+            fittingFrames = 0;
+            return;
+        }
+
+        if (level == EvictionLevel.NONE
+                || liveObjects + freedObjects[level.ordinal()] >= maxObjects * RESTORE_RATIO) {
+            fittingFrames = 0;
+        } else if (++fittingFrames >= RESTORE_FRAMES) {
+            level = level.milder();
+            onLevelChange.accept(level);
+            fittingFrames = 0;
+        }
+    }
+
+    /**
+     * Retrieves the current budget metrics.
+     *
+     * @return A snapshot of the live object counts and evictions.
+     */
+    public Metrics getMetrics() {
+        return new Metrics(liveObjects, peakLiveObjects, maxObjects, level, evictedObjects);
+    }
+
+    /**
+     * A snapshot of the budget's metrics.
+     *
+     * @param liveObjects     The number of live world objects.
+     * @param peakLiveObjects The highest number of live world objects so far.
+     * @param maxObjects      The budget of live world objects.
+     * @param level           The current eviction level.
+     * @param evictedObjects  The number of objects removed by all level changes so far.
+     */
+    public record Metrics(int liveObjects, int peakLiveObjects, int maxObjects, EvictionLevel level,
+                          long evictedObjects) {
+    }
+}
@@ -0,0 +1,94 @@
+package pepse.util;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Watches recent frame times and steps the quality level down or up to hold a target frame rate.
+ * Hysteresis is applied in two ways: the thresholds for lowering and raising the quality are apart from
+ * each other, and raising the quality requires several consecutive good sample windows, so the level does
+ * not oscillate around the budget.
+ */
+public class QualityGovernor {
+
+    private static final int SAMPLE_WINDOW = 60; // Number of frames averaged before deciding
+    private static final float DOWNGRADE_RATIO = 1.15f; // Average frame time over budget that lowers quality
+    private static final float UPGRADE_RATIO = 0.7f; // Average frame time under budget that may raise quality
+    private static final int UPGRADE_WINDOWS = 5; // Consecutive good windows required to raise quality
+
+    private final float frameBudget; // Target time of a single frame in seconds
+    private final Consumer<QualityLevel> onLevelChange; // Called whenever the level changes
+    private final float[] frameTimes = new float[SAMPLE_WINDOW]; // Ring buffer of recent frame times
+    private int sampleCount;
+    private float frameTimesSum;
+    private int goodWindows;
+    private QualityLevel level;
+
+    /**
+     * Constructs a QualityGovernor.
+     *
+     * @param targetFrameRate The frame rate the governor tries to hold.
+     * @param initialLevel    The quality level to start at.
+     * @param onLevelChange   A Consumer notified with the new level whenever the governor changes it.
+     */
+    public QualityGovernor(float targetFrameRate, QualityLevel initialLevel,
+                           Consumer<QualityLevel> onLevelChange) {
+        this.frameBudget = 1 / targetFrameRate;
+        this.level = initialLevel;
+        this.onLevelChange = onLevelChange;
+    }
+
+    /**
+     * Records the duration of the last frame, and changes the quality level once a full sample window
+     * shows the frame budget is consistently missed or comfortably met.
+     *
+     * @param deltaTime The time elapsed since the last frame in seconds.
+     */
+    public void recordFrame(float deltaTime) {
+        int index = sampleCount % SAMPLE_WINDOW;
+        frameTimesSum += deltaTime - frameTimes[index];
+        frameTimes[index] = deltaTime;
+        sampleCount++;
+
+        if (sampleCount < SAMPLE_WINDOW) {
+            return;
+        }
+
+        float averageFrameTime = frameTimesSum / SAMPLE_WINDOW;
+        if (averageFrameTime > frameBudget * DOWNGRADE_RATIO) {
+            changeLevel(level.lower());
+        } else if (averageFrameTime < frameBudget * UPGRADE_RATIO) {
+            if (sampleCount % SAMPLE_WINDOW == 0 && ++goodWindows >= UPGRADE_WINDOWS) {
+                changeLevel(level.higher());
+            }
+        } else {
+            goodWindows = 0;
+        }
+    }
+
+    /**
+     * Retrieves the current quality level.
+     *
+     * @return The current quality level.
+     */
+    public QualityLevel getLevel() {
+        return level;
+    }
+
+    /**
+     * Switches to the given level, and starts a fresh sample window so the new level is judged only by
+     * frames rendered with it.
+     *
+     * @param newLevel The level to switch to.
+     */
+    private void changeLevel(QualityLevel newLevel) {
+        goodWindows = 0;
+        sampleCount = 0;
+        frameTimesSum = 0;
+        Arrays.fill(frameTimes, 0);
+        if (newLevel != level) {
+            level = newLevel;
+            onLevelChange.accept(newLevel);
+        }
+    }
+}
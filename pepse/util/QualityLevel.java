@@ -0,0 +1,95 @@
+package pepse.util;
+
+/**
+ * The rendering quality levels the game can run at, ordered from the cheapest to the most expensive.
+ * Each level bundles the settings that the QualityGovernor toggles to hold the target frame rate.
+ */
+public enum QualityLevel {
+
+    /**
+     * Minimal quality: no leaf sway, sparse canopies, a tight streaming margin, no sky effects and light
+     * rain.
+     */
+    LOW(false, 0.4f, 0.55f, false, 0.25f),
+    /**
+     * Reduced quality: no leaf sway, thinner canopies, a narrower streaming margin and thinner rain.
+     */
+    MEDIUM(false, 0.7f, 0.6f, true, 0.5f),
+    /**
+     * Full quality, matching the original game settings.
+     */
+    HIGH(true, 1f, 2 / 3f, true, 1f);
+
+    private final boolean leavesSwaying;
+    private final float leavesDensityFactor;
+    private final float windowFactor;
+    private final boolean skyEffects;
+    private final float rainDropsFactor;
+
+    /**
+     * Constructs a quality level.
+     *
+     * @param leavesSwaying       Whether leaves run their swaying animation.
+     * @param leavesDensityFactor The factor applied to the leaves density of newly created trees.
+     * @param windowFactor        The rendered range on each side of the center, relative to the window width.
+     * @param skyEffects          Whether the night and sun halo effects are drawn.
+     * @param rainDropsFactor     The part of the raindrops pool used by the heaviest rain.
+     */
+    QualityLevel(boolean leavesSwaying, float leavesDensityFactor, float windowFactor, boolean skyEffects,
+                 float rainDropsFactor) {
+        this.leavesSwaying = leavesSwaying;
+        this.leavesDensityFactor = leavesDensityFactor;
+        this.windowFactor = windowFactor;
+        this.skyEffects = skyEffects;
+        this.rainDropsFactor = rainDropsFactor;
+    }
+
+    /**
+     * @return True if leaves should sway at this level, false otherwise.
+     */
+    public boolean isLeavesSwaying() {
+        return leavesSwaying;
+    }
+
+    /**
+     * @return The factor applied to the leaves density of newly created trees.
+     */
+    public float getLeavesDensityFactor() {
+        return leavesDensityFactor;
+    }
+
+    /**
+     * @return The rendered range on each side of the center, relative to the window width.
+     */
+    public float getWindowFactor() {
+        return windowFactor;
+    }
+
+    /**
+     * @return True if the night and sun halo effects should be drawn at this level, false otherwise.
+     */
+    public boolean isSkyEffects() {
+        return skyEffects;
+    }
+
+    /**
+     * @return The part of the raindrops pool used by the heaviest rain at this level.
+     */
+    public float getRainDropsFactor() {
+        return rainDropsFactor;
+    }
+
+    /**
+     * @return The next cheaper level, or this level if it is already the cheapest.
+     */
+    public QualityLevel lower() {
+        return ordinal() == 0 ? this : values()[ordinal() - 1];
+    }
+
+    /**
+     * @return The next more expensive level, or this level if it is already the most expensive.
+     */
+    public QualityLevel higher() {
+        return ordinal() == values().length - 1 ? this : values()[ordinal() + 1];
+    }
+}
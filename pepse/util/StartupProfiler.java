@@ -0,0 +1,111 @@
+package pepse.util;
+
+import java.io.IOException;
+import java.lang.management.ClassLoadingMXBean;
+import java.lang.management.CompilationMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measures the startup of the game as a sequence of named phases, and reports them as JSON.
+ * For every phase, the wall-clock duration and the number of classes the JVM loaded during it are recorded,
+ * which makes the effect of JVM flags such as CDS/AppCDS on each phase visible.
+ */
+public class StartupProfiler {
+
+    private static final double NANOS_IN_MILLI = 1e6;
+
+    private final ClassLoadingMXBean classLoading = ManagementFactory.getClassLoadingMXBean();
+    private final CompilationMXBean compilation = ManagementFactory.getCompilationMXBean();
+    private final long jvmStartupMillis; // Time from JVM start until the profiler was created
+    private final long startNanos;
+    private final List<Phase> phases = new ArrayList<>();
+    private long lastMarkNanos;
+    private long lastMarkLoadedClasses;
+
+    /**
+     * Constructs a StartupProfiler, whose first phase starts now. Should be created as early as possible,
+     * at the start of main.
+     */
+    public StartupProfiler() {
+        this.jvmStartupMillis = ManagementFactory.getRuntimeMXBean().getUptime();
+        this.startNanos = System.nanoTime();
+        this.lastMarkNanos = startNanos;
+        this.lastMarkLoadedClasses = classLoading.getTotalLoadedClassCount();
+    }
+
+    /**
+     * Ends the current phase and starts the next one.
+     *
+     * @param phaseName The name of the phase that just ended.
+     */
+    public void mark(String phaseName) {
+        long now = System.nanoTime();
+        long loadedClasses = classLoading.getTotalLoadedClassCount();
+        phases.add(new Phase(phaseName, now - lastMarkNanos, loadedClasses - lastMarkLoadedClasses));
+        lastMarkNanos = now;
+        lastMarkLoadedClasses = loadedClasses;
+    }
+
+    /**
+     * Builds the machine-readable report of all phases marked so far.
+     *
+     * @return The report, as a JSON object.
+     */
+    public String toJson() {
+        StringBuilder json = new StringBuilder("{\n");
+        json.append("  \"jvmStartupMillis\": ").append(jvmStartupMillis).append(",\n");
+        json.append("  \"totalMillis\": ").append(millis(lastMarkNanos - startNanos)).append(",\n");
+        json.append("  \"loadedClasses\": ").append(classLoading.getTotalLoadedClassCount()).append(",\n");
+        json.append("  \"jitMillis\": ").append(compilation.isCompilationTimeMonitoringSupported() ?
+                compilation.getTotalCompilationTime() : -1).append(",\n");
+        json.append("  \"phases\": [\n");
+        for (int i = 0; i < phases.size(); i++) {
+            Phase phase = phases.get(i);
+            json.append("    {\"name\": \"").append(phase.name)
+                    .append("\", \"millis\": ").append(millis(phase.nanos))
+                    .append(", \"loadedClasses\": ").append(phase.loadedClasses)
+                    .append(i < phases.size() - 1 ? "},\n" : "}\n");
+        }
+        json.append("  ]\n}\n");
+        return json.toString();
+    }
+
+    /**
+     * Writes the report to the given file, or to the standard output if no file is given.
+     *
+     * @param reportPath The path of the report file, or null for the standard output.
+     * @throws IOException If the report file cannot be written.
+     */
+    public void writeReport(String reportPath) throws IOException {
+        if (reportPath == null) {
+            System.out.print(toJson());
+        } else {
+            Files.writeString(Path.of(reportPath), toJson(), StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Converts nanoseconds to milliseconds.
+     *
+     * @param nanos A duration in nanoseconds.
+     * @return The duration in milliseconds.
+     */
+    private static double millis(long nanos) {
+        return nanos / NANOS_IN_MILLI;
+    }
+
+    /**
+     * A single measured startup phase.
+     *
+     * @param name          The name of the phase.
+     * @param nanos         The wall-clock duration of the phase in nanoseconds.
+     * @param loadedClasses The number of classes loaded during the phase.
+     */
+    private record Phase(String name, long nanos, long loadedClasses) {
+    }
+}
@@ -1,14 +1,15 @@
 package pepse.world;
 
 import danogl.GameObject;
-import danogl.gui.ImageReader;
 import danogl.gui.UserInputListener;
 import danogl.gui.rendering.AnimationRenderable;
 import danogl.util.Vector2;
+import pepse.util.AssetManager;
 
 import java.awt.event.KeyEvent;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Represents the player character in the game world, managing animations, movement, and energy.
@@ -64,13 +65,13 @@ public class Avatar extends GameObject {
     private float energy = MAX_ENERGY;
 
     /**
-     * Constructs an Avatar object at the specified position with input listener and image reader.
+     * Constructs an Avatar object at the specified position with input listener and asset manager.
      *
      * @param topLeftCorner The top-left corner position of the avatar
      * @param inputListener The input listener to handle user input
-     * @param imageReader   The image reader to load avatar animations
+     * @param assetManager  The asset manager holding the avatar animation frames
      */
-    public Avatar(Vector2 topLeftCorner, UserInputListener inputListener, ImageReader imageReader) {
+    public Avatar(Vector2 topLeftCorner, UserInputListener inputListener, AssetManager assetManager) {
         super(topLeftCorner, Vector2.of(AVATAR_WIDTH, AVATAR_HEIGHT), null);
         // Set the avatar's physics properties
         physics().preventIntersectionsFromDirection(Vector2.ZERO);
@@ -79,15 +80,48 @@ public class Avatar extends GameObject {
         this.inputListener = inputListener;
 
         // Load animations
-        idleAnimation = new AnimationRenderable(IDLE_FRAMES_SEQUENCE, imageReader, true, TIME_BETWEEN_FRAMES);
-        jumpAnimation = new AnimationRenderable(JUMP_FRAMES_SEQUENCE, imageReader, true, TIME_BETWEEN_FRAMES);
-        runAnimation = new AnimationRenderable(RUN_FRAMES_SEQUENCE, imageReader, true, TIME_BETWEEN_FRAMES);
+        idleAnimation = new AnimationRenderable(assetManager.getImages(IDLE_FRAMES_SEQUENCE, true),
+                TIME_BETWEEN_FRAMES);
+        jumpAnimation = new AnimationRenderable(assetManager.getImages(JUMP_FRAMES_SEQUENCE, true),
+                TIME_BETWEEN_FRAMES);
+        runAnimation = new AnimationRenderable(assetManager.getImages(RUN_FRAMES_SEQUENCE, true),
+                TIME_BETWEEN_FRAMES);
 
         // Set the initial animation
         renderer().setRenderable(idleAnimation);
         setTag(AVATAR_TAG);
     }
 
+    /**
+     * Retrieves the paths of all the avatar animation frames, so they can be preloaded and packed into an
+     * atlas before any avatar is created.
+     *
+     * @return The paths of the idle, jump, and run animation frames.
+     */
+    public static String[] getAnimationFramePaths() {
+        return Stream.of(IDLE_FRAMES_SEQUENCE, JUMP_FRAMES_SEQUENCE, RUN_FRAMES_SEQUENCE)
+                .flatMap(Stream::of)
+                .toArray(String[]::new);
+    }
+
+    /**
+     * Retrieves the paths of the avatar's idle animation frames.
+     *
+     * @return The paths of the idle animation frames.
+     */
+    public static String[] getIdleFramePaths() {
+        return IDLE_FRAMES_SEQUENCE.clone();
+    }
+
+    /**
+     * Retrieves the paths of the avatar's run animation frames.
+     *
+     * @return The paths of the run animation frames.
+     */
+    public static String[] getRunFramePaths() {
+        return RUN_FRAMES_SEQUENCE.clone();
+    }
+
     /**
      * Updates the avatar's state based on user input and game logic.
      *
@@ -117,6 +151,15 @@ public class Avatar extends GameObject {
         this.energy = Math.min(this.energy + energy, MAX_ENERGY);
     }
 
+    /**
+     * Sets the avatar's energy, clamped to the valid energy range.
+     *
+     * @param energy The new energy level
+     */
+    public void setEnergy(float energy) {
+        this.energy = Math.max(0, Math.min(energy, MAX_ENERGY));
+    }
+
     /**
      * Adds a listener to receive notifications when the avatar performs a jump.
      *
@@ -135,6 +178,15 @@ public class Avatar extends GameObject {
         listeners.remove(listener);
     }
 
+    /**
+     * Retrieves the number of listeners that receive notifications.
+     *
+     * @return The number of listeners
+     */
+    public int getListenersCount() {
+        return listeners.size();
+    }
+
     /**
      * Sets the current animation renderable of the avatar.
      *
@@ -0,0 +1,87 @@
+package pepse.world;
+
+import java.util.NavigableMap;
+import java.util.function.BiConsumer;
+
+/**
+ * Tracks the range of world columns whose objects are awake, and puts columns to sleep or wakes them up
+ * incrementally when the range moves, touching only the columns that enter or leave it.
+ */
+public class AwakeRange {
+
+    private int minX = Integer.MIN_VALUE; // Minimal awake x coordinate (inclusive)
+    private int maxX = Integer.MAX_VALUE; // Maximal awake x coordinate (exclusive)
+
+    /**
+     * Checks if a column is inside the awake range.
+     *
+     * @param x The x coordinate of the column.
+     * @return True if objects in the column should be awake, false otherwise.
+     */
+    public boolean contains(int x) {
+        return x >= minX && x < maxX;
+    }
+
+    /**
+     * Moves the awake range, putting to sleep the columns that left it and waking up the columns that
+     * entered it.
+     *
+     * @param newMinX   The new minimal awake x coordinate (inclusive).
+     * @param newMaxX   The new maximal awake x coordinate (exclusive).
+     * @param columns   The currently existing columns, mapped by their x coordinate.
+     * @param setAsleep A BiConsumer that puts a column to sleep (true) or wakes it up (false).
+     * @param <T>       The type of a column.
+     */
+    public <T> void moveTo(int newMinX, int newMaxX, NavigableMap<Integer, T> columns,
+                           BiConsumer<T, Boolean> setAsleep) {
+        if (newMinX == minX && newMaxX == maxX) {
+            return;
+        }
+
+        // Columns that left the range
+        setRangeAsleep(columns, minX, Math.min(maxX, newMinX), true, setAsleep);
+        setRangeAsleep(columns, Math.max(minX, newMaxX), maxX, true, setAsleep);
+
+        // Columns that entered the range
+        setRangeAsleep(columns, newMinX, Math.min(newMaxX, minX), false, setAsleep);
+        setRangeAsleep(columns, Math.max(newMinX, maxX), newMaxX, false, setAsleep);
+
+        minX = newMinX;
+        maxX = newMaxX;
+    }
+
+    /**
+     * Moves the awake range along with the columns when the world origin moves, without waking up or putting
+     * to sleep any column.
+     *
+     * @param shift The distance the world origin moved to the right, subtracted from every x coordinate.
+     */
+    public void rebase(int shift) {
+        if (minX != Integer.MIN_VALUE) {
+            minX -= shift;
+        }
+        if (maxX != Integer.MAX_VALUE) {
+            maxX -= shift;
+        }
+    }
+
+    /**
+     * Puts to sleep or wakes up all existing columns in the given range.
+     *
+     * @param columns   The currently existing columns, mapped by their x coordinate.
+     * @param fromX     The minimal x coordinate (inclusive).
+     * @param toX       The maximal x coordinate (exclusive).
+     * @param asleep    Whether the columns should sleep.
+     * @param setAsleep A BiConsumer that puts a column to sleep (true) or wakes it up (false).
+     * @param <T>       The type of a column.
+     */
+    private static <T> void setRangeAsleep(NavigableMap<Integer, T> columns, int fromX, int toX,
+                                           boolean asleep, BiConsumer<T, Boolean> setAsleep) {
+        if (fromX >= toX) {
+            return;
+        }
+        for (T column : columns.subMap(fromX, true, toX, false).values()) {
+            setAsleep.accept(column, asleep);
+        }
+    }
+}
@@ -2,34 +2,283 @@ package pepse.world;
 
 import danogl.GameObject;
 import danogl.components.CoordinateSpace;
-import danogl.gui.ImageReader;
-import danogl.gui.rendering.Renderable;
 import danogl.util.Vector2;
+import pepse.util.AssetManager;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.function.DoubleSupplier;
 
 /**
- * Represents a background image in the game world.
+ * Represents the background image in the game world, as layers that scroll at different rates relative to
+ * the camera. The background image is split into a sky layer and layers of land, told apart by their colors.
+ * The image is scaled to the window once, and every layer is mirrored into a tile that wraps seamlessly and
+ * cached, so scrolling only moves where the tiles are drawn. The image's background color stays transparent
+ * in the sky layer, so the sky shows through it.
  */
 public class Background {
 
-    private static final String BG_PATH = "assets/bg.png";
+    /**
+     * The path of the background image
+     */
+    public static final String BG_PATH = "assets/bg.png";
     private static final String BG_TAG = "background";
+    private static final float SKY_SCROLL_RATE = 0.02f; // Sky scrolling relative to the camera
+    private static final float MOUNTAINS_SCROLL_RATE = 0.1f; // Far land scrolling relative to the camera
+    private static final float HILLS_SCROLL_RATE = 0.25f; // Near land scrolling relative to the camera
+    private static final float LAND_TOP = 0.3f; // Part of the image's height above which there's only sky
+    private static final float HILLS_TOP = 0.76f; // Part of the image's height where the near land starts
+    private static final float HILLS_FEATHER = 0.06f; // Part of the image's height the near land fades in
+    private static final int LAND_GREENNESS = 4; // Green over blue from which a pixel is fully land
+    private static final int SKY_BLUENESS = 4; // Blue over green from which a pixel is fully sky
+    private static final int LAND_MARGIN = 2; // Pixels around the land also replaced in the sky
 
     /**
      * Creates a GameObject representing the background image.
      *
      * @param windowDimensions The dimensions of the game window.
-     * @param imageReader      The ImageReader instance to read the background image.
+     * @param assetManager     The AssetManager instance holding the background image.
+     * @param getCameraX       A supplier of the left edge of the camera in world coordinates, which the
+     *                         layers scroll with.
      * @return A GameObject instance representing the background.
      */
-    public static GameObject create(Vector2 windowDimensions, ImageReader imageReader) {
-        // Read the background image
-        Renderable bgImage = imageReader.readImage(BG_PATH, true);
+    public static GameObject create(Vector2 windowDimensions, AssetManager assetManager,
+                                    DoubleSupplier getCameraX) {
+        int width = (int) windowDimensions.x();
+        int height = (int) windowDimensions.y();
+        BufferedImage image = scaleToWindow(assetManager.getImage(BG_PATH, true).getImage(), width, height);
+
+        // Split the image into sky and land, and the land into far and near layers
+        BufferedImage[] skyAndLand = splitSkyAndLand(image);
+        int landTop = (int) (height * LAND_TOP);
+        int hillsTop = (int) (height * HILLS_TOP);
+        int hillsFeather = (int) (height * HILLS_FEATHER);
+        // The near land is drawn over the far land, which goes on below it so nothing shows through
+        ParallaxLayer[] layers = {
+                createLayer(skyAndLand[0], 0, height, 0, SKY_SCROLL_RATE),
+                createLayer(skyAndLand[1], landTop, height, 0, MOUNTAINS_SCROLL_RATE),
+                createLayer(skyAndLand[1], hillsTop, height, hillsFeather, HILLS_SCROLL_RATE)
+        };
 
         // Create the background GameObject
-        GameObject background = new GameObject(Vector2.ZERO, windowDimensions, bgImage);
+        GameObject background = new GameObject(Vector2.ZERO, windowDimensions,
+                (graphics, topLeftCorner, dimensions, rotation, isFlippedHorizontally, isFlippedVertically,
+                 opaqueness) -> renderLayers(graphics, topLeftCorner, layers, getCameraX.getAsDouble()));
         background.setCoordinateSpace(CoordinateSpace.CAMERA_COORDINATES);
         background.setTag(BG_TAG);
 
         return background;
     }
+
+    /**
+     * Scales an image to the window, once, so its layers are cut at the size they're drawn at.
+     *
+     * @param source       The image.
+     * @param windowWidth  The width of the window.
+     * @param windowHeight The height of the window.
+     * @return The scaled image.
+     */
+    private static BufferedImage scaleToWindow(BufferedImage source, int windowWidth, int windowHeight) {
+        BufferedImage scaled = new BufferedImage(windowWidth, windowHeight, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = scaled.createGraphics();
+        graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+                RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        graphics.drawImage(source, 0, 0, windowWidth, windowHeight, null);
+        graphics.dispose();
+        return scaled;
+    }
+
+    /**
+     * Splits an image into its sky and its land. Land pixels are greener than they are blue. In the sky,
+     * they're replaced by the average sky of their row, along with a margin around them so no outline of the
+     * land is left behind, and the sky can scroll apart from the land. Transparent pixels are sky.
+     *
+     * @param image The image.
+     * @return The sky and the land, as images of the same size.
+     */
+    private static BufferedImage[] splitSkyAndLand(BufferedImage image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int[] skyPixels = image.getRGB(0, 0, width, height, null, 0, width);
+        int[] landPixels = new int[skyPixels.length];
+        int landTop = (int) (height * LAND_TOP);
+
+        float[] landAlphas = new float[skyPixels.length];
+        for (int i = landTop * width; i < skyPixels.length; i++) {
+            landAlphas[i] = getLandAlpha(skyPixels[i]) * (skyPixels[i] >>> 24) / 0xFF;
+            landPixels[i] = ((int) (landAlphas[i] * 0xFF) << 24) | (skyPixels[i] & 0xFFFFFF);
+        }
+
+        // Grow the land by the margin, along the rows and then along the columns
+        float[] rowCoverage = new float[skyPixels.length];
+        for (int y = landTop; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                for (int neighborX = Math.max(0, x - LAND_MARGIN);
+                     neighborX <= Math.min(width - 1, x + LAND_MARGIN); neighborX++) {
+                    rowCoverage[y * width + x] = Math.max(rowCoverage[y * width + x],
+                            landAlphas[y * width + neighborX]);
+                }
+            }
+        }
+
+        int skyColor = 0; // The average sky of the last row with any sky, replacing the land in the sky
+        float[] coverage = new float[width]; // The land's alpha, grown by the margin, along a row
+        for (int y = landTop; y < height; y++) {
+            long red = 0;
+            long green = 0;
+            long blue = 0;
+            int skyCount = 0;
+            for (int x = 0; x < width; x++) {
+                coverage[x] = 0;
+                for (int neighborY = Math.max(landTop, y - LAND_MARGIN);
+                     neighborY <= Math.min(height - 1, y + LAND_MARGIN); neighborY++) {
+                    coverage[x] = Math.max(coverage[x], rowCoverage[neighborY * width + x]);
+                }
+                int rgb = skyPixels[y * width + x];
+                if (coverage[x] == 0 && rgb >>> 24 != 0) {
+                    red += (rgb >> 16) & 0xFF;
+                    green += (rgb >> 8) & 0xFF;
+                    blue += rgb & 0xFF;
+                    skyCount++;
+                }
+            }
+            if (skyCount > 0) {
+                skyColor = (int) (red / skyCount) << 16 | (int) (green / skyCount) << 8
+                        | (int) (blue / skyCount);
+            }
+            for (int x = 0; x < width; x++) {
+                int i = y * width + x;
+                skyPixels[i] = blend(skyPixels[i], skyColor, coverage[x]);
+            }
+        }
+
+        BufferedImage sky = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        sky.setRGB(0, 0, width, height, skyPixels, 0, width);
+        BufferedImage land = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        land.setRGB(0, 0, width, height, landPixels, 0, width);
+        return new BufferedImage[]{sky, land};
+    }
+
+    /**
+     * Tells how much of a pixel is land, by how much greener than blue it is.
+     *
+     * @param rgb The pixel's color.
+     * @return The part of the pixel that is land, between 0 and 1.
+     */
+    private static float getLandAlpha(int rgb) {
+        int greenOverBlue = ((rgb >> 8) & 0xFF) - (rgb & 0xFF);
+        float landAlpha = (greenOverBlue + SKY_BLUENESS) / (float) (LAND_GREENNESS + SKY_BLUENESS);
+        return Math.max(0, Math.min(1, landAlpha));
+    }
+
+    /**
+     * Blends two colors.
+     *
+     * @param from   The color at weight 0.
+     * @param to     The color at weight 1.
+     * @param weight The weight of the second color, between 0 and 1.
+     * @return The blended color, with the alpha of the first.
+     */
+    private static int blend(int from, int to, float weight) {
+        int blended = from & 0xFF000000;
+        for (int shift = 0; shift < Integer.SIZE - Byte.SIZE; shift += Byte.SIZE) {
+            int fromChannel = (from >> shift) & 0xFF;
+            int toChannel = (to >> shift) & 0xFF;
+            blended |= Math.round(fromChannel + (toChannel - fromChannel) * weight) << shift;
+        }
+        return blended;
+    }
+
+    /**
+     * Cuts a horizontal band of an image the size of the window, and mirrors it into a tile twice as wide,
+     * which wraps around without a seam.
+     *
+     * @param image      The image.
+     * @param top        The top row of the band.
+     * @param bottom     The row below the band.
+     * @param feather    The rows over which the band fades in from its top.
+     * @param scrollRate How fast the layer scrolls relative to the camera.
+     * @return The layer.
+     */
+    private static ParallaxLayer createLayer(BufferedImage image, int top, int bottom, int feather,
+                                             float scrollRate) {
+        int width = image.getWidth();
+        int height = bottom - top;
+        BufferedImage band = image.getSubimage(0, top, width, height);
+        if (feather > 0) {
+            band = fadeIn(band, feather);
+        }
+
+        // Premultiplied alpha is the fastest to blend when drawn
+        int imageType = band.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB_PRE
+                : BufferedImage.TYPE_INT_RGB;
+        BufferedImage tile = new BufferedImage(2 * width, height, imageType);
+        Graphics2D graphics = tile.createGraphics();
+        graphics.drawImage(band, 0, 0, null);
+        // Put a mirrored copy to the right, so the tile's ends match
+        graphics.drawImage(band, 2 * width, 0, width, height, 0, 0, width, height, null);
+        graphics.dispose();
+        return new ParallaxLayer(tile, top, scrollRate);
+    }
+
+    /**
+     * Copies an image, fading its top rows in from transparent.
+     *
+     * @param image   The image.
+     * @param feather The number of rows to fade in.
+     * @return The faded copy.
+     */
+    private static BufferedImage fadeIn(BufferedImage image, int feather) {
+        BufferedImage faded = new BufferedImage(image.getWidth(), image.getHeight(),
+                BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = faded.createGraphics();
+        graphics.drawImage(image, 0, 0, null);
+        graphics.dispose();
+
+        int[] row = new int[image.getWidth()];
+        for (int y = 0; y < feather; y++) {
+            faded.getRGB(0, y, row.length, 1, row, 0, row.length);
+            float fade = (float) y / feather;
+            for (int x = 0; x < row.length; x++) {
+                row[x] = ((int) (fade * (row[x] >>> 24)) << 24) | (row[x] & 0xFFFFFF);
+            }
+            faded.setRGB(0, y, row.length, 1, row, 0, row.length);
+        }
+        return faded;
+    }
+
+    /**
+     * Draws the layers from the farthest to the nearest, each at its scrolled offset. Only blits the cached
+     * tiles, at most twice each, so nothing is scaled or allocated.
+     *
+     * @param graphics      The graphics to draw with.
+     * @param topLeftCorner The top-left corner of the background on screen.
+     * @param layers        The layers.
+     * @param cameraX       The left edge of the camera in world coordinates.
+     */
+    private static void renderLayers(Graphics2D graphics, Vector2 topLeftCorner, ParallaxLayer[] layers,
+                                     double cameraX) {
+        int left = (int) topLeftCorner.x();
+        int top = (int) topLeftCorner.y();
+        for (ParallaxLayer layer : layers) {
+            int tileWidth = layer.tile().getWidth();
+            int offset = Math.floorMod((long) (cameraX * layer.scrollRate()), tileWidth);
+            int y = top + layer.top();
+            graphics.drawImage(layer.tile(), left - offset, y, null);
+            // The tile is twice as wide as the window, so it only ends inside the window past its middle
+            if (offset > tileWidth / 2) {
+                graphics.drawImage(layer.tile(), left - offset + tileWidth, y, null);
+            }
+        }
+    }
+
+    /**
+     * A cached background layer.
+     *
+     * @param tile       The layer scaled to the window and mirrored, twice the window's width.
+     * @param top        The top of the layer in the window.
+     * @param scrollRate How fast the layer scrolls relative to the camera.
+     */
+    private record ParallaxLayer(BufferedImage tile, int top, float scrollRate) {
+    }
 }
@@ -0,0 +1,106 @@
+package pepse.world;
+
+import java.awt.*;
+
+/**
+ * The biomes of the world. Each biome bundles the look of its ground, the height of its hills and the
+ * density and shape of its trees. Biomes are ordered by the value of the biome noise they are picked at.
+ */
+public enum Biome {
+
+    /**
+     * Flat sand with a few short, pale trees.
+     */
+    DESERT(new Color(230, 196, 120), 3, 0.02f, new Color(150, 170, 60), 0.25f, 60, 60),
+    /**
+     * Rolling grassland, matching the original game settings.
+     */
+    MEADOW(new Color(212, 123, 74), 7, 0.1f, new Color(50, 200, 30), 0.5f, 120, 150),
+    /**
+     * Dark soil under dense, tall trees with thick canopies.
+     */
+    FOREST(new Color(150, 100, 60), 9, 0.22f, new Color(30, 130, 40), 0.7f, 170, 120),
+    /**
+     * Steep rocky hills with sparse, stunted trees.
+     */
+    HIGHLANDS(new Color(140, 130, 120), 14, 0.05f, new Color(90, 150, 90), 0.4f, 90, 90);
+
+    private final Color groundColor;
+    private final int terrainAmplitude;
+    private final float treesDensity;
+    private final Color leafColor;
+    private final float leavesDensity;
+    private final int minTrunkHeight;
+    private final int addedTrunkHeight;
+
+    /**
+     * Constructs a biome.
+     *
+     * @param groundColor      The base color of the ground blocks.
+     * @param terrainAmplitude The height of the hills, in blocks.
+     * @param treesDensity     The chance of a column to have a tree.
+     * @param leafColor        The base color of the leaves.
+     * @param leavesDensity    The chance of every cell of a canopy to have a leaf.
+     * @param minTrunkHeight   The minimal height of a trunk.
+     * @param addedTrunkHeight The range of random height added to the minimal height of a trunk.
+     */
+    Biome(Color groundColor, int terrainAmplitude, float treesDensity, Color leafColor, float leavesDensity,
+          int minTrunkHeight, int addedTrunkHeight) {
+        this.groundColor = groundColor;
+        this.terrainAmplitude = terrainAmplitude;
+        this.treesDensity = treesDensity;
+        this.leafColor = leafColor;
+        this.leavesDensity = leavesDensity;
+        this.minTrunkHeight = minTrunkHeight;
+        this.addedTrunkHeight = addedTrunkHeight;
+    }
+
+    /**
+     * @return The base color of the ground blocks.
+     */
+    public Color getGroundColor() {
+        return groundColor;
+    }
+
+    /**
+     * @return The height of the hills, in blocks.
+     */
+    public int getTerrainAmplitude() {
+        return terrainAmplitude;
+    }
+
+    /**
+     * @return The chance of a column to have a tree.
+     */
+    public float getTreesDensity() {
+        return treesDensity;
+    }
+
+    /**
+     * @return The base color of the leaves.
+     */
+    public Color getLeafColor() {
+        return leafColor;
+    }
+
+    /**
+     * @return The chance of every cell of a canopy to have a leaf.
+     */
+    public float getLeavesDensity() {
+        return leavesDensity;
+    }
+
+    /**
+     * @return The minimal height of a trunk.
+     */
+    public int getMinTrunkHeight() {
+        return minTrunkHeight;
+    }
+
+    /**
+     * @return The range of random height added to the minimal height of a trunk.
+     */
+    public int getAddedTrunkHeight() {
+        return addedTrunkHeight;
+    }
+}
@@ -0,0 +1,103 @@
+package pepse.world;
+
+import pepse.util.NoiseGenerator;
+
+/**
+ * Picks the biome of every part of the world from a low-frequency noise channel. The world is cut into
+ * chunks of columns that share a biome. A chunk's biome is evaluated the first time it is needed and cached
+ * in a fixed number of slots, so every block of a chunk reuses a single evaluation, and adding biomes costs
+ * nothing per block. Lookups may run concurrently: a slot only ever holds an immutable entry, and a lookup
+ * that misses it evaluates the chunk again, to the same biome.
+ */
+public class BiomeMap {
+
+    /**
+     * The number of columns in a chunk, which all share a biome
+     */
+    public static final int CHUNK_COLUMNS = 16;
+    private static final int CHUNK_WIDTH = CHUNK_COLUMNS * Block.BLOCK_SIZE;
+    private static final int BIOME_SCALE = 16; // Chunks across the lowest frequency of the biome noise
+    private static final float[] BIOME_THRESHOLDS = {-0.2f, 0.08f, 0.25f}; // Noise picking each next biome
+    private static final int CACHE_SLOTS = 256; // Number of chunks whose biome is kept
+    private static final Biome[] BIOMES = Biome.values();
+
+    private final NoiseGenerator noiseGenerator;
+    private final ChunkBiome[] cache = new ChunkBiome[CACHE_SLOTS]; // Cached biomes, in slots by chunk
+
+    /**
+     * Constructs a BiomeMap.
+     *
+     * @param seed The seed of the world.
+     */
+    public BiomeMap(int seed) {
+        this.noiseGenerator = new NoiseGenerator(seed, BIOME_SCALE);
+    }
+
+    /**
+     * Retrieves the biome of a column.
+     *
+     * @param x The world x coordinate of the column.
+     * @return The biome of the column's chunk.
+     */
+    public Biome biomeAt(int x) {
+        return biomeOfChunk(Math.floorDiv(x, CHUNK_WIDTH));
+    }
+
+    /**
+     * Computes the height of the hills at a point. Amplitudes are blended between the centers of the two
+     * nearest chunks, so the ground doesn't break where biomes meet.
+     *
+     * @param x The world x coordinate.
+     * @return The height of the hills, in blocks.
+     */
+    public float terrainAmplitudeAt(double x) {
+        double position = x / CHUNK_WIDTH - 0.5;
+        int chunk = (int) Math.floor(position);
+        int leftAmplitude = biomeOfChunk(chunk).getTerrainAmplitude();
+        int rightAmplitude = biomeOfChunk(chunk + 1).getTerrainAmplitude();
+        if (leftAmplitude == rightAmplitude) {
+            return leftAmplitude;
+        }
+        return (float) (leftAmplitude + (rightAmplitude - leftAmplitude) * (position - chunk));
+    }
+
+    /**
+     * Retrieves the biome of a chunk, evaluating it if it isn't cached.
+     *
+     * @param chunk The index of the chunk.
+     * @return The biome of the chunk.
+     */
+    private Biome biomeOfChunk(int chunk) {
+        int slot = Math.floorMod(chunk, CACHE_SLOTS);
+        ChunkBiome entry = cache[slot];
+        if (entry == null || entry.chunk() != chunk) {
+            entry = new ChunkBiome(chunk, pickBiome(chunk));
+            cache[slot] = entry;
+        }
+        return entry.biome();
+    }
+
+    /**
+     * Evaluates the biome noise at the center of a chunk and picks the biome it falls in.
+     *
+     * @param chunk The index of the chunk.
+     * @return The biome of the chunk.
+     */
+    private Biome pickBiome(int chunk) {
+        double noise = noiseGenerator.noise(chunk + 0.5, 1);
+        int index = 0;
+        while (index < BIOME_THRESHOLDS.length && noise >= BIOME_THRESHOLDS[index]) {
+            index++;
+        }
+        return BIOMES[index];
+    }
+
+    /**
+     * The cached biome of a chunk.
+     *
+     * @param chunk The index of the chunk.
+     * @param biome The biome of the chunk.
+     */
+    private record ChunkBiome(int chunk, Biome biome) {
+    }
+}
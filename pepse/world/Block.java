@@ -1,6 +1,5 @@
 package pepse.world;
 
-import danogl.GameObject;
 import danogl.components.GameObjectPhysics;
 import danogl.gui.rendering.Renderable;
 import danogl.util.Vector2;
@@ -8,7 +7,7 @@ import danogl.util.Vector2;
 /**
  * Represents a block GameObject in the game world.
  */
-public class Block extends GameObject {
+public class Block extends SleepableGameObject {
 
     /**
      * The size of the block.
@@ -0,0 +1,190 @@
+package pepse.world;
+
+import java.nio.ByteBuffer;
+import java.util.BitSet;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The player's edits to a single terrain column, stored as deltas against procedural generation:
+ * generated cells that were removed, generated cells whose color was overridden, and cells where blocks were
+ * placed. Generated cells are identified by their depth below the column's surface, placed cells by their
+ * absolute row.
+ * <p>
+ * Binary layout, big-endian:
+ * <pre>
+ * byte  removedWordsCount
+ * long  removedWords      bit i: the generated cell at depth i was removed
+ * byte  colorsCount
+ * per color override:     byte depth, int rgb
+ * short placedCount
+ * per placed cell:        int row, int rgb
+ * </pre>
+ */
+public class ColumnEdits {
+
+    private final BitSet removed = new BitSet(); // Removed generated cells, by depth
+    private final Map<Integer, Integer> colors = new TreeMap<>(); // Color overrides by depth, as RGB
+    private final Map<Integer, Integer> placed = new TreeMap<>(); // Placed cells by row, as RGB
+    private boolean shared = false; // Whether a save snapshot holds the edits, so they must not change
+
+    /**
+     * Checks if a generated cell was removed.
+     *
+     * @param depth The depth of the cell below the surface.
+     * @return True if the cell was removed, false otherwise.
+     */
+    public boolean isRemoved(int depth) {
+        return removed.get(depth);
+    }
+
+    /**
+     * Retrieves the color override of a generated cell.
+     *
+     * @param depth The depth of the cell below the surface.
+     * @return The RGB color of the cell, or null if its color wasn't overridden.
+     */
+    public Integer colorOf(int depth) {
+        return colors.get(depth);
+    }
+
+    /**
+     * Retrieves the placed cells.
+     *
+     * @return The RGB colors of the placed cells, mapped by their row.
+     */
+    public Map<Integer, Integer> getPlacedCells() {
+        return placed;
+    }
+
+    /**
+     * Removes a generated cell.
+     *
+     * @param depth The depth of the cell below the surface.
+     */
+    public void removeGenerated(int depth) {
+        removed.set(depth);
+        colors.remove(depth);
+    }
+
+    /**
+     * Puts a block back into a removed generated cell.
+     *
+     * @param depth The depth of the cell below the surface.
+     * @param rgb   The RGB color of the block.
+     */
+    public void restoreGenerated(int depth, int rgb) {
+        removed.clear(depth);
+        colors.put(depth, rgb);
+    }
+
+    /**
+     * Places a block in a cell outside of the generated ones.
+     *
+     * @param row The row of the cell.
+     * @param rgb The RGB color of the block.
+     */
+    public void place(int row, int rgb) {
+        placed.put(row, rgb);
+    }
+
+    /**
+     * Removes a previously placed block.
+     *
+     * @param row The row of the cell.
+     */
+    public void removePlaced(int row) {
+        placed.remove(row);
+    }
+
+    /**
+     * Checks if the column has no edits left.
+     *
+     * @return True if the column is as it was generated, false otherwise.
+     */
+    public boolean isEmpty() {
+        return removed.isEmpty() && colors.isEmpty() && placed.isEmpty();
+    }
+
+    /**
+     * Marks the edits as held by a snapshot that is read on another thread. Shared edits must not change
+     * anymore: TerrainEdits replaces them with a copy before the column is edited again.
+     */
+    public void share() {
+        shared = true;
+    }
+
+    /**
+     * Checks if the edits are held by a snapshot.
+     *
+     * @return True if the edits must not change, false otherwise.
+     */
+    public boolean isShared() {
+        return shared;
+    }
+
+    /**
+     * Copies the edits.
+     *
+     * @return A new, unshared copy of the edits.
+     */
+    public ColumnEdits copy() {
+        ColumnEdits copy = new ColumnEdits();
+        copy.removed.or(removed);
+        copy.colors.putAll(colors);
+        copy.placed.putAll(placed);
+        return copy;
+    }
+
+    /**
+     * Computes the size of the encoded edits.
+     *
+     * @return The number of bytes write will put.
+     */
+    public int encodedSize() {
+        return Byte.BYTES + removed.toLongArray().length * Long.BYTES
+                + Byte.BYTES + colors.size() * (Byte.BYTES + Integer.BYTES)
+                + Short.BYTES + placed.size() * 2 * Integer.BYTES;
+    }
+
+    /**
+     * Encodes the edits into the buffer, at its current position.
+     *
+     * @param buffer The buffer to write to.
+     */
+    public void write(ByteBuffer buffer) {
+        long[] removedWords = removed.toLongArray();
+        buffer.put((byte) removedWords.length);
+        for (long word : removedWords) {
+            buffer.putLong(word);
+        }
+        buffer.put((byte) colors.size());
+        colors.forEach((depth, rgb) -> buffer.put(depth.byteValue()).putInt(rgb));
+        buffer.putShort((short) placed.size());
+        placed.forEach((row, rgb) -> buffer.putInt(row).putInt(rgb));
+    }
+
+    /**
+     * Decodes edits from the buffer, at its current position.
+     *
+     * @param buffer The buffer to read from.
+     * @return The decoded edits.
+     */
+    public static ColumnEdits read(ByteBuffer buffer) {
+        ColumnEdits edits = new ColumnEdits();
+        long[] removedWords = new long[Byte.toUnsignedInt(buffer.get())];
+        for (int i = 0; i < removedWords.length; i++) {
+            removedWords[i] = buffer.getLong();
+        }
+        edits.removed.or(BitSet.valueOf(removedWords));
+        int colorsCount = Byte.toUnsignedInt(buffer.get());
+        for (int i = 0; i < colorsCount; i++) {
+            edits.colors.put(Byte.toUnsignedInt(buffer.get()), buffer.getInt());
+        }
+        int placedCount = Short.toUnsignedInt(buffer.getShort());
+        for (int i = 0; i < placedCount; i++) {
+            edits.placed.put(buffer.getInt(), buffer.getInt());
+        }
+        return edits;
+    }
+}
@@ -0,0 +1,201 @@
+package pepse.world;
+
+import danogl.GameObject;
+import danogl.collisions.Layer;
+import danogl.gui.rendering.ImageRenderable;
+import danogl.util.Vector2;
+import pepse.world.trees.Flora;
+import pepse.world.trees.Tree;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * A level-of-detail stand-in for the world beyond the rendered range, seen when the camera zooms out.
+ * The world is cut into fixed-width strips, each drawn as a single GameObject whose image is painted straight
+ * from the heightmap and from the deterministic placement of the trees, with every tree as a flat silhouette.
+ * The number of strips depends only on the zoom level, so the live object count stays roughly constant.
+ * Strips never cover the columns of the rendered range, where the real blocks and trees are.
+ */
+public class DistantTerrain {
+
+    private static final int STRIP_COLUMNS = 16; // Number of columns in a strip
+    private static final int STRIP_WIDTH = STRIP_COLUMNS * Block.BLOCK_SIZE;
+    private static final int PIXEL_SIZE = Block.BLOCK_SIZE / 3; // World pixels per strip image pixel
+    private static final int TREE_REACH = 5 * Block.BLOCK_SIZE; // Covers the sideways reach of any leaves
+
+    private final Terrain terrain;
+    private final Flora flora;
+    private final Map<Integer, Strip> strips = new HashMap<>(); // Live strips by strip index
+
+    /**
+     * Constructs a DistantTerrain.
+     *
+     * @param terrain The terrain, for its heightmap.
+     * @param flora   The flora, for the placement of its trees.
+     */
+    public DistantTerrain(Terrain terrain, Flora flora) {
+        this.terrain = terrain;
+        this.flora = flora;
+    }
+
+    /**
+     * Shows the strips in view that aren't fully inside the rendered range, and removes all others.
+     * Strips partly inside the rendered range are repainted when the rendered range moves.
+     *
+     * @param viewMinX     The minimal x coordinate in view.
+     * @param viewMaxX     The maximal x coordinate in view.
+     * @param detailMinX   The minimal x coordinate of the rendered range (inclusive).
+     * @param detailMaxX   The maximal x coordinate of the rendered range (exclusive).
+     * @param addObject    A BiConsumer that accepts a GameObject and an Integer representing the layer
+     *                     to which the object should be added in the GameObjectCollection.
+     * @param removeObject A BiConsumer that accepts a GameObject and an Integer representing the layer
+     *                     to which the object should be removed from in the GameObjectCollection.
+     */
+    public void update(int viewMinX, int viewMaxX, int detailMinX, int detailMaxX,
+                       BiConsumer<GameObject, Integer> addObject,
+                       BiConsumer<GameObject, Integer> removeObject) {
+        int firstStrip = Math.floorDiv(viewMinX, STRIP_WIDTH);
+        int lastStrip = Math.floorDiv(viewMaxX, STRIP_WIDTH);
+
+        for (Iterator<Map.Entry<Integer, Strip>> it = strips.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<Integer, Strip> entry = it.next();
+            int index = entry.getKey();
+            if (index < firstStrip || index > lastStrip || isCovered(index, detailMinX, detailMaxX)) {
+                removeObject.accept(entry.getValue().object, Layer.BACKGROUND);
+                it.remove();
+            }
+        }
+
+        for (int index = firstStrip; index <= lastStrip; index++) {
+            if (isCovered(index, detailMinX, detailMaxX)) {
+                continue;
+            }
+            // Trees near the strip may reach into it, so they count when comparing the rendered range
+            int stripMinX = index * STRIP_WIDTH;
+            int skippedMinX = Math.max(stripMinX - TREE_REACH, detailMinX);
+            int skippedMaxX = Math.min(stripMinX + STRIP_WIDTH + TREE_REACH, detailMaxX);
+            if (skippedMinX >= skippedMaxX) {
+                skippedMinX = skippedMaxX = 0;
+            }
+            Strip strip = strips.get(index);
+            if (strip != null && strip.skippedMinX == skippedMinX && strip.skippedMaxX == skippedMaxX) {
+                continue;
+            }
+            if (strip != null) {
+                removeObject.accept(strip.object, Layer.BACKGROUND);
+            }
+            strip = new Strip(createStripObject(stripMinX, skippedMinX, skippedMaxX),
+                    skippedMinX, skippedMaxX);
+            strips.put(index, strip);
+            addObject.accept(strip.object, Layer.BACKGROUND);
+        }
+    }
+
+    /**
+     * Removes all strips when the world origin moves, since they are kept by their position. The strips in
+     * view are painted again on the next update.
+     *
+     * @param removeObject A BiConsumer that accepts a GameObject and an Integer representing the layer
+     *                     to which the object should be removed from in the GameObjectCollection.
+     */
+    public void rebase(BiConsumer<GameObject, Integer> removeObject) {
+        for (Strip strip : strips.values()) {
+            removeObject.accept(strip.object, Layer.BACKGROUND);
+        }
+        strips.clear();
+    }
+
+    /**
+     * Checks if a strip lies fully inside the rendered range.
+     *
+     * @param index      The index of the strip.
+     * @param detailMinX The minimal x coordinate of the rendered range (inclusive).
+     * @param detailMaxX The maximal x coordinate of the rendered range (exclusive).
+     * @return True if the strip isn't needed, false otherwise.
+     */
+    private static boolean isCovered(int index, int detailMinX, int detailMaxX) {
+        return index * STRIP_WIDTH >= detailMinX && (index + 1) * STRIP_WIDTH <= detailMaxX;
+    }
+
+    /**
+     * Paints a strip and wraps it in a GameObject.
+     *
+     * @param stripMinX   The x coordinate of the strip's first column.
+     * @param skippedMinX The minimal x coordinate of the columns left out of the strip (inclusive).
+     * @param skippedMaxX The maximal x coordinate of the columns left out of the strip (exclusive).
+     * @return The strip's GameObject.
+     */
+    private GameObject createStripObject(int stripMinX, int skippedMinX, int skippedMaxX) {
+        int firstTreeX = stripMinX - TREE_REACH;
+        int lastTreeX = stripMinX + STRIP_WIDTH + TREE_REACH;
+
+        // Find the vertical extent of the strip, from the highest tree top to the lowest block
+        float top = Float.MAX_VALUE;
+        float bottom = -Float.MAX_VALUE;
+        for (int x = stripMinX; x < stripMinX + STRIP_WIDTH; x += Block.BLOCK_SIZE) {
+            float surfaceY = surfaceYAt(x);
+            top = Math.min(top, surfaceY);
+            bottom = Math.max(bottom, surfaceY + Terrain.TERRAIN_DEPTH * Block.BLOCK_SIZE);
+        }
+        int[] trunkHeights = new int[(lastTreeX - firstTreeX) / Block.BLOCK_SIZE];
+        for (int i = 0; i < trunkHeights.length; i++) {
+            int x = firstTreeX + i * Block.BLOCK_SIZE;
+            trunkHeights[i] = x >= skippedMinX && x < skippedMaxX ? 0 : flora.trunkHeightInColumn(x);
+            if (trunkHeights[i] > 0) {
+                top = Math.min(top, terrain.groundHeightAt(x) - Tree.getTreeHeight(trunkHeights[i]));
+            }
+        }
+        top = (float) Math.floor(top / PIXEL_SIZE) * PIXEL_SIZE;
+
+        // Paint the ground columns, then the tree silhouettes over them
+        BufferedImage image = new BufferedImage(STRIP_WIDTH / PIXEL_SIZE,
+                (int) Math.ceil((bottom - top) / PIXEL_SIZE), BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.scale(1.0 / PIXEL_SIZE, 1.0 / PIXEL_SIZE);
+        graphics.translate(-stripMinX, -top);
+        for (int x = stripMinX; x < stripMinX + STRIP_WIDTH; x += Block.BLOCK_SIZE) {
+            if (x < skippedMinX || x >= skippedMaxX) {
+                float surfaceY = surfaceYAt(x);
+                graphics.setColor(terrain.biomeAt(x).getGroundColor());
+                graphics.fill(new Rectangle.Float(x, surfaceY, Block.BLOCK_SIZE,
+                        Terrain.TERRAIN_DEPTH * Block.BLOCK_SIZE));
+            }
+        }
+        for (int i = 0; i < trunkHeights.length; i++) {
+            if (trunkHeights[i] > 0) {
+                int x = firstTreeX + i * Block.BLOCK_SIZE;
+                Tree.paintSilhouette(graphics, x, terrain.groundHeightAt(x), trunkHeights[i],
+                        terrain.biomeAt(x));
+            }
+        }
+        graphics.dispose();
+
+        return new GameObject(new Vector2(stripMinX, top),
+                new Vector2(STRIP_WIDTH, image.getHeight() * PIXEL_SIZE), new ImageRenderable(image));
+    }
+
+    /**
+     * Computes the top of the generated surface block of a column.
+     *
+     * @param x The x coordinate of the column.
+     * @return The y coordinate of the column's top generated block.
+     */
+    private float surfaceYAt(int x) {
+        return (float) Math.floor(terrain.groundHeightAt(x) / Block.BLOCK_SIZE) * Block.BLOCK_SIZE;
+    }
+
+    /**
+     * A live strip, and the columns it leaves to the rendered range.
+     *
+     * @param object      The GameObject drawing the strip.
+     * @param skippedMinX The minimal x coordinate of the columns left out of the strip (inclusive).
+     * @param skippedMaxX The maximal x coordinate of the columns left out of the strip (exclusive).
+     */
+    private record Strip(GameObject object, int skippedMinX, int skippedMaxX) {
+    }
+}
@@ -4,30 +4,35 @@ import danogl.GameObject;
 import danogl.components.CoordinateSpace;
 import danogl.gui.rendering.RectangleRenderable;
 import danogl.util.Vector2;
-
-import java.awt.*;
+import pepse.world.daynight.WorldClock;
 
 /**
  * Represents the sky GameObject in the game world.
  */
 public class Sky {
 
-    private static final Color BASIC_SKY_COLOR = Color.decode("#80C6E5");
     private static final String SKY_TAG = "sky";
 
     /**
-     * Creates a GameObject representing the sky with a basic color.
+     * Creates a GameObject representing the sky, tinted by the time of day.
      *
      * @param windowDimensions The dimensions of the game window.
+     * @param clock            The clock that tells the time of day.
      * @return A GameObject instance representing the sky.
      */
-    public static GameObject create(Vector2 windowDimensions) {
+    public static GameObject create(Vector2 windowDimensions, WorldClock clock) {
+        // Prepare a renderable per tint, so changing the tint doesn't allocate
+        RectangleRenderable[] tints = new RectangleRenderable[WorldClock.SKY_TINTS_COUNT];
+        for (int i = 0; i < WorldClock.SKY_TINTS_COUNT; i++) {
+            tints[i] = new RectangleRenderable(WorldClock.getSkyTint(i));
+        }
+
         // Create the sky GameObject
-        GameObject sky = new GameObject(Vector2.ZERO, windowDimensions,
-                new RectangleRenderable(BASIC_SKY_COLOR));
+        GameObject sky = new GameObject(Vector2.ZERO, windowDimensions, tints[clock.getSkyTintIndex()]);
 
         sky.setCoordinateSpace(CoordinateSpace.CAMERA_COORDINATES);
         sky.setTag(SKY_TAG);
+        sky.addComponent((float deltaTime) -> sky.renderer().setRenderable(tints[clock.getSkyTintIndex()]));
 
         return sky;
     }
@@ -0,0 +1,78 @@
+package pepse.world;
+
+import danogl.GameObject;
+import danogl.gui.rendering.Renderable;
+import danogl.util.Vector2;
+
+/**
+ * A GameObject that can be put to sleep while it is off-screen.
+ * A sleeping object skips its update and component ticks, and only accumulates the time it slept.
+ * When it wakes up, it catches up on that time at once instead of replaying every frame.
+ */
+public class SleepableGameObject extends GameObject {
+
+    private boolean asleep; // Whether the object currently skips its updates
+    private float sleptTime; // Time accumulated while asleep, in seconds
+
+    /**
+     * Constructs an awake SleepableGameObject.
+     *
+     * @param topLeftCorner The top-left corner position of the object.
+     * @param dimensions    The dimensions (size) of the object.
+     * @param renderable    The renderable component of the object.
+     */
+    public SleepableGameObject(Vector2 topLeftCorner, Vector2 dimensions, Renderable renderable) {
+        super(topLeftCorner, dimensions, renderable);
+    }
+
+    /**
+     * Updates the object, or only accumulates the elapsed time while it is asleep.
+     *
+     * @param deltaTime The time elapsed since the last update in seconds.
+     */
+    @Override
+    public void update(float deltaTime) {
+        if (asleep) {
+            sleptTime += deltaTime;
+            return;
+        }
+        super.update(deltaTime);
+    }
+
+    /**
+     * Puts the object to sleep or wakes it up. Waking up catches up on the time slept.
+     *
+     * @param asleep Whether the object should sleep.
+     */
+    public void setAsleep(boolean asleep) {
+        if (this.asleep == asleep) {
+            return;
+        }
+        this.asleep = asleep;
+        if (!asleep) {
+            float timeToCatchUp = sleptTime;
+            sleptTime = 0;
+            catchUp(timeToCatchUp);
+        }
+    }
+
+    /**
+     * Checks if the object is asleep.
+     *
+     * @return True if the object currently skips its updates, false otherwise.
+     */
+    public boolean isAsleep() {
+        return asleep;
+    }
+
+    /**
+     * Brings the object up to date after it slept. By default, a single update covers the whole time slept,
+     * which is enough for scheduled tasks and immovable objects. Objects with periodic animations should
+     * override this to advance their animation phase analytically.
+     *
+     * @param sleptTime The time the object slept, in seconds.
+     */
+    protected void catchUp(float sleptTime) {
+        super.update(sleptTime);
+    }
+}
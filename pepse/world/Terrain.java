@@ -10,35 +10,52 @@ import pepse.util.PepseConstants;
 
 import java.awt.*;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.TreeMap;
 import java.util.function.BiConsumer;
 
 
 /**
  * Represents the terrain in the game world, managing the generation and rendering of the ground blocks.
+ * Coordinates are relative to a world origin that can be moved with rebase, so live blocks keep small
+ * coordinates however far the avatar walks. The heightmap and the player's edits are always looked up at
+ * world coordinates, so moving the origin doesn't change the terrain. The height of the hills and the color
+ * of the ground follow the biome of every column.
  */
 public class Terrain {
 
-    private static final Color BASE_GROUND_COLOR = new Color(212, 123, 74);
-    private static final int TERRAIN_DEPTH = 20;
-    private static final int FACTOR_MULT = 7;
+    /**
+     * The number of generated blocks in every column
+     */
+    public static final int TERRAIN_DEPTH = 20;
 
     private final float groundHeightAtX0;
     private final NoiseGenerator noiseGenerator;
+    private final BiomeMap biomes; // The biomes, which shape the hills and color the ground
     private final TreeMap<Integer, List<Block>> mappedGroundBlocks = new TreeMap<>();
-    private int leftColumn;
-    private int rightColumn;
+    private final AwakeRange awakeRange = new AwakeRange(); // Range of columns whose blocks are awake
+    private final TerrainEdits edits; // The player's edits, applied on every rebuild
+    private final Set<Integer> solidColumns = new HashSet<>(); // Live columns whose blocks all collide
+    private int blockDepth = TERRAIN_DEPTH; // Number of generated blocks in columns away from edits
+    private int leftColumn = Integer.MAX_VALUE; // No columns yet, set by the first created column
+    private int rightColumn = Integer.MIN_VALUE;
+    private int originX = 0; // The world x-coordinate of x = 0, for generation and edits
 
     /**
      * Constructs a Terrain object with the specified window dimensions and seed.
      *
      * @param windowDimensions The dimensions of the game window.
      * @param seed             The seed value for the noise generator.
+     * @param edits            The player's edits to the terrain, applied over the generated columns.
      */
-    public Terrain(Vector2 windowDimensions, int seed) {
+    public Terrain(Vector2 windowDimensions, int seed, TerrainEdits edits) {
+        this.edits = edits;
         this.groundHeightAtX0 = windowDimensions.y() * PepseConstants.SKY_TERRAIN_RATIO;
         this.noiseGenerator = new NoiseGenerator(seed, (int) groundHeightAtX0);
+        this.biomes = new BiomeMap(seed);
     }
 
     /**
@@ -48,10 +65,55 @@ public class Terrain {
      * @return The height of the ground at the specified x-coordinate.
      */
     public float groundHeightAt(float x) {
-        float noise = (float) noiseGenerator.noise(x, Block.BLOCK_SIZE * FACTOR_MULT);
+        double worldX = originX + (double) x;
+        float amplitude = Block.BLOCK_SIZE * biomes.terrainAmplitudeAt(worldX);
+        float noise = (float) noiseGenerator.noise(worldX, amplitude);
         return groundHeightAtX0 + noise;
     }
 
+    /**
+     * Calculates the height of a column's surface with the player's edits, moving the generated ground height
+     * by the blocks dug from the top of the column or placed over it.
+     *
+     * @param x The x-coordinate of the column, a multiple of the block size.
+     * @return The height of the column's top block, or of the bottom of the terrain if every block was dug.
+     */
+    public float surfaceHeightAt(int x) {
+        float groundHeight = groundHeightAt(x);
+        ColumnEdits columnEdits = edits.get(originX + x);
+        if (columnEdits == null) {
+            return groundHeight;
+        }
+
+        // The top block is the highest of the first generated block left and the placed blocks, which are
+        // only built above the generated ones or below them
+        int surfaceRow = surfaceRowAt(x);
+        int depth = 0;
+        while (depth < TERRAIN_DEPTH && columnEdits.isRemoved(depth)) {
+            depth++;
+        }
+        int topRow = depth < TERRAIN_DEPTH ? surfaceRow + depth : Integer.MAX_VALUE;
+        for (int row : columnEdits.getPlacedCells().keySet()) {
+            if (row < surfaceRow || row >= surfaceRow + TERRAIN_DEPTH) {
+                topRow = Math.min(topRow, row);
+            }
+        }
+        if (topRow == Integer.MAX_VALUE) {
+            topRow = surfaceRow + TERRAIN_DEPTH;
+        }
+        return groundHeight + (topRow - surfaceRow) * Block.BLOCK_SIZE;
+    }
+
+    /**
+     * Retrieves the biome of a column.
+     *
+     * @param x The x-coordinate of the column.
+     * @return The biome of the column.
+     */
+    public Biome biomeAt(int x) {
+        return biomes.biomeAt(originX + x);
+    }
+
     /**
      * Creates ground blocks within the specified x-coordinate range.
      *
@@ -61,7 +123,6 @@ public class Terrain {
      */
     public List<Block> createInRange(int minX, int maxX) {
         List<Block> newGroundBlocks = new ArrayList<>();
-        RectangleRenderable rectangleRenderable;
 
         // Adjust leftColumn and rightColumn bounds
         int normilizedMinX = (int) (Math.floor((double) minX / Block.BLOCK_SIZE) * Block.BLOCK_SIZE);
@@ -78,27 +139,165 @@ public class Terrain {
 
         // Create ground blocks in the given range
         for (int x = normilizedMinX; x < normilizedMaxX; x += Block.BLOCK_SIZE) {
+            List<Block> blockColumn = createColumn(x);
+            newGroundBlocks.addAll(blockColumn);
+            mappedGroundBlocks.put(x, blockColumn);
+            if (edits.isNearEdits(originX + x)) {
+                solidColumns.add(x);
+            }
+        }
 
-            // Calculate the ground block values at the given position
-            float y = (float) Math.floor(groundHeightAt(x) / Block.BLOCK_SIZE) * Block.BLOCK_SIZE;
-
-            List<Block> blockColumn = new ArrayList<>();
-            for (int i = 0; i < TERRAIN_DEPTH; i++) {
-                rectangleRenderable =
-                        new RectangleRenderable(ColorSupplier.approximateColor(BASE_GROUND_COLOR));
+        return newGroundBlocks;
+    }
 
-                // Create a block at the given position
-                Block groundBlock = new Block(new Vector2(x, y), rectangleRenderable);
-                newGroundBlocks.add(groundBlock);
-                blockColumn.add(groundBlock);
+    /**
+     * Creates the ground blocks of a single column, from the surface downwards, without registering them.
+     * The player's edits to the column are applied over the generated blocks. Columns are independent of
+     * each other given the seed and the edits, so this method may be called concurrently as long as the
+     * edits don't change meanwhile.
+     *
+     * @param x The x-coordinate of the column, a multiple of the block size.
+     * @return The blocks of the column, from the top block down.
+     */
+    public List<Block> createColumn(int x) {
+        // Calculate the ground block values at the given position
+        int surfaceRow = surfaceRowAt(x);
+        ColumnEdits columnEdits = edits.get(originX + x);
 
-                // Move the y position for the next block
-                y += Block.BLOCK_SIZE;
+        List<Block> blockColumn = new ArrayList<>(TERRAIN_DEPTH);
+        boolean asleep = !awakeRange.contains(x);
+        int depth = edits.isNearEdits(originX + x) ? TERRAIN_DEPTH : blockDepth;
+        Color groundColor = biomeAt(x).getGroundColor();
+        if (columnEdits != null) {
+            // Placed blocks above the surface come first, so the top block stays first
+            for (Map.Entry<Integer, Integer> cell : columnEdits.getPlacedCells().entrySet()) {
+                if (cell.getKey() < surfaceRow) {
+                    blockColumn.add(createBlock(x, cell.getKey(), new Color(cell.getValue()), asleep));
+                }
             }
-            mappedGroundBlocks.put(x, blockColumn);
         }
+        for (int i = 0; i < depth; i++) {
+            if (columnEdits != null && columnEdits.isRemoved(i)) {
+                continue;
+            }
+            Integer rgb = columnEdits == null ? null : columnEdits.colorOf(i);
+            Color color = rgb == null ? ColorSupplier.approximateColor(groundColor) : new Color(rgb);
+            blockColumn.add(createBlock(x, surfaceRow + i, color, asleep));
+        }
+        if (columnEdits != null) {
+            for (Map.Entry<Integer, Integer> cell : columnEdits.getPlacedCells().entrySet()) {
+                if (cell.getKey() >= surfaceRow + TERRAIN_DEPTH) {
+                    blockColumn.add(createBlock(x, cell.getKey(), new Color(cell.getValue()), asleep));
+                }
+            }
+        }
+        return blockColumn;
+    }
 
-        return newGroundBlocks;
+    /**
+     * Creates a single ground block.
+     *
+     * @param x      The x-coordinate of the block's column.
+     * @param row    The row of the block.
+     * @param color  The color of the block.
+     * @param asleep Whether the block starts asleep.
+     * @return The new block.
+     */
+    private static Block createBlock(int x, int row, Color color, boolean asleep) {
+        Block groundBlock = new Block(new Vector2(x, row * Block.BLOCK_SIZE), new RectangleRenderable(color));
+        groundBlock.setAsleep(asleep);
+        return groundBlock;
+    }
+
+    /**
+     * Registers a column created by createColumn, and adds its blocks to the game object's collection.
+     *
+     * @param x           The x-coordinate of the column.
+     * @param blockColumn The blocks of the column, from the top block down.
+     * @param addObject   A BiConsumer that accepts a GameObject and an Integer representing the layer
+     *                    to which the object should be added in the GameObjectCollection.
+     */
+    public void addCreatedColumn(int x, List<Block> blockColumn, BiConsumer<GameObject, Integer> addObject) {
+        mappedGroundBlocks.put(x, blockColumn);
+
+        // Adjust leftColumn and rightColumn bounds
+        if (leftColumn > x) {
+            leftColumn = x;
+        }
+        if (rightColumn < x) {
+            rightColumn = x;
+        }
+
+        if (edits.isNearEdits(originX + x)) {
+            solidColumns.add(x);
+        }
+        for (int i = 0; i < blockColumn.size(); i++) {
+            addObject.accept(blockColumn.get(i), layerOf(x, i));
+        }
+    }
+
+    /**
+     * Retrieves the layer of a block in a live column. Only the top block collides with other objects,
+     * unless the column or a neighbor was edited and the column may have exposed sides.
+     *
+     * @param x     The x-coordinate of the column.
+     * @param index The index of the block in the column, from the top block down.
+     * @return The layer of the block.
+     */
+    private int layerOf(int x, int index) {
+        return index == 0 || solidColumns.contains(x) ? Layer.STATIC_OBJECTS : Layer.BACKGROUND;
+    }
+
+    /**
+     * Runs an action on every live ground block, column by column from left to right and from the top block
+     * down.
+     *
+     * @param action A BiConsumer called with every block and the layer it belongs in.
+     */
+    public void forEachBlock(BiConsumer<Block, Integer> action) {
+        mappedGroundBlocks.forEach((x, blockColumn) -> {
+            for (int i = 0; i < blockColumn.size(); i++) {
+                action.accept(blockColumn.get(i), layerOf(x, i));
+            }
+        });
+    }
+
+    /**
+     * Changes the number of generated blocks in every column, trimming or extending the live columns in
+     * place. Columns at or next to the player's edits always keep their full depth, so digging never reaches
+     * a missing block.
+     *
+     * @param depth        The number of generated blocks in columns away from edits, at least 1.
+     * @param addObject    A BiConsumer that accepts a GameObject and an Integer representing the layer
+     *                     to which the object should be added in the GameObjectCollection.
+     * @param removeObject A BiConsumer that accepts a GameObject and an Integer representing the layer
+     *                     to which the object should be removed from in the GameObjectCollection.
+     */
+    public void setBlockDepth(int depth, BiConsumer<GameObject, Integer> addObject,
+                              BiConsumer<GameObject, Integer> removeObject) {
+        blockDepth = depth;
+        for (Map.Entry<Integer, List<Block>> entry : mappedGroundBlocks.entrySet()) {
+            int x = entry.getKey();
+            List<Block> blockColumn = entry.getValue();
+            if (solidColumns.contains(x)) {
+                continue;
+            }
+
+            // Columns away from edits hold exactly their generated blocks, from the surface down
+            while (blockColumn.size() > depth) {
+                int index = blockColumn.size() - 1;
+                removeObject.accept(blockColumn.remove(index), layerOf(x, index));
+            }
+            int surfaceRow = surfaceRowAt(x);
+            boolean asleep = !awakeRange.contains(x);
+            Color groundColor = biomeAt(x).getGroundColor();
+            for (int i = blockColumn.size(); i < depth; i++) {
+                Color color = ColorSupplier.approximateColor(groundColor);
+                Block block = createBlock(x, surfaceRow + i, color, asleep);
+                blockColumn.add(block);
+                addObject.accept(block, layerOf(x, i));
+            }
+        }
     }
 
     /**
@@ -109,15 +308,7 @@ public class Terrain {
      *                     to which the object should be removed from in the GameObjectCollection.
      */
     public void removeColumn(int x, BiConsumer<GameObject, Integer> removeObject) {
-        boolean firstBlock = true;
-        for (Block block : mappedGroundBlocks.remove(x)) {
-            if (firstBlock) {
-                removeObject.accept(block, Layer.STATIC_OBJECTS);
-                firstBlock = false;
-            } else {
-                removeObject.accept(block, Layer.BACKGROUND);
-            }
-        }
+        removeColumnBlocks(x, removeObject);
 
         // Adjust leftColumn and rightColumn bounds if necessary
         if (x == leftColumn) {
@@ -147,24 +338,183 @@ public class Terrain {
      *                  to which the object should be added in the GameObjectCollection.
      */
     public void addInRange(int minX, int maxX, BiConsumer<GameObject, Integer> addObject) {
-        boolean firstBlock = true;
-        int counter = 0;
-        for (Block block : createInRange(minX, maxX)) {
-            if (firstBlock) {
-                addObject.accept(block, Layer.STATIC_OBJECTS);
-                firstBlock = false;
-            } else {
-                addObject.accept(block, Layer.BACKGROUND);
+        for (int x = normalizeCoordinate(minX); x <= normalizeCoordinate(maxX); x += Block.BLOCK_SIZE) {
+            addCreatedColumn(x, createColumn(x), addObject);
+        }
+    }
+
+    /**
+     * Removes the block at a point, if there is one. The removal is recorded as an edit, so it persists when
+     * the column is rebuilt.
+     *
+     * @param point        The point to dig at.
+     * @param addObject    A BiConsumer that accepts a GameObject and an Integer representing the layer
+     *                     to which the object should be added in the GameObjectCollection.
+     * @param removeObject A BiConsumer that accepts a GameObject and an Integer representing the layer
+     *                     to which the object should be removed from in the GameObjectCollection.
+     * @return True if a block was removed, false otherwise.
+     */
+    public boolean removeBlockAt(Vector2 point, BiConsumer<GameObject, Integer> addObject,
+                                 BiConsumer<GameObject, Integer> removeObject) {
+        int x = normalizeCoordinate((int) Math.floor(point.x()));
+        int row = (int) Math.floor(point.y() / Block.BLOCK_SIZE);
+        int depth = row - surfaceRowAt(x);
+        ColumnEdits columnEdits = edits.get(originX + x);
+        if (columnEdits != null && columnEdits.getPlacedCells().containsKey(row)) {
+            edits.edit(originX + x).removePlaced(row);
+        } else if (depth >= 0 && depth < TERRAIN_DEPTH
+                && (columnEdits == null || !columnEdits.isRemoved(depth))) {
+            edits.edit(originX + x).removeGenerated(depth);
+        } else {
+            return false;
+        }
+        refreshColumns(x, addObject, removeObject);
+        return true;
+    }
+
+    /**
+     * Places a block at a point, if the cell there is empty. The placement is recorded as an edit, so it
+     * persists when the column is rebuilt.
+     *
+     * @param point        The point to place the block at.
+     * @param addObject    A BiConsumer that accepts a GameObject and an Integer representing the layer
+     *                     to which the object should be added in the GameObjectCollection.
+     * @param removeObject A BiConsumer that accepts a GameObject and an Integer representing the layer
+     *                     to which the object should be removed from in the GameObjectCollection.
+     * @return True if a block was placed, false otherwise.
+     */
+    public boolean placeBlockAt(Vector2 point, BiConsumer<GameObject, Integer> addObject,
+                                BiConsumer<GameObject, Integer> removeObject) {
+        int x = normalizeCoordinate((int) Math.floor(point.x()));
+        int row = (int) Math.floor(point.y() / Block.BLOCK_SIZE);
+        int depth = row - surfaceRowAt(x);
+        ColumnEdits columnEdits = edits.get(originX + x);
+        int rgb = ColorSupplier.approximateColor(biomeAt(x).getGroundColor()).getRGB();
+        if (depth >= 0 && depth < TERRAIN_DEPTH) {
+            if (columnEdits == null || !columnEdits.isRemoved(depth)) {
+                return false;
             }
-            counter++;
-            if (counter == TERRAIN_DEPTH) {
-                firstBlock = true;
-                counter = 0;
+            edits.edit(originX + x).restoreGenerated(depth, rgb);
+        } else {
+            if (columnEdits != null && columnEdits.getPlacedCells().containsKey(row)) {
+                return false;
             }
+            edits.edit(originX + x).place(row, rgb);
+        }
+        refreshColumns(x, addObject, removeObject);
+        return true;
+    }
 
+    /**
+     * Rebuilds a live column and its live neighbors, after the column's edits changed. The neighbors are
+     * rebuilt too, since the edit may have exposed their sides.
+     *
+     * @param x            The x-coordinate of the edited column.
+     * @param addObject    A BiConsumer that accepts a GameObject and an Integer representing the layer
+     *                     to which the object should be added in the GameObjectCollection.
+     * @param removeObject A BiConsumer that accepts a GameObject and an Integer representing the layer
+     *                     to which the object should be removed from in the GameObjectCollection.
+     */
+    public void refreshColumns(int x, BiConsumer<GameObject, Integer> addObject,
+                               BiConsumer<GameObject, Integer> removeObject) {
+        for (int column = x - Block.BLOCK_SIZE; column <= x + Block.BLOCK_SIZE; column += Block.BLOCK_SIZE) {
+            if (mappedGroundBlocks.containsKey(column)) {
+                removeColumnBlocks(column, removeObject);
+                addCreatedColumn(column, createColumn(column), addObject);
+            }
         }
     }
 
+    /**
+     * Unregisters a live column and removes its blocks from the game object's collection, without touching
+     * the terrain bounds.
+     *
+     * @param x            The x-coordinate of the column.
+     * @param removeObject A BiConsumer that accepts a GameObject and an Integer representing the layer
+     *                     to which the object should be removed from in the GameObjectCollection.
+     */
+    private void removeColumnBlocks(int x, BiConsumer<GameObject, Integer> removeObject) {
+        List<Block> blockColumn = mappedGroundBlocks.remove(x);
+        for (int i = 0; i < blockColumn.size(); i++) {
+            removeObject.accept(blockColumn.get(i), layerOf(x, i));
+        }
+        solidColumns.remove(x);
+    }
+
+    /**
+     * Computes the row of the generated surface block of a column.
+     *
+     * @param x The x-coordinate of the column.
+     * @return The row of the column's top generated block.
+     */
+    private int surfaceRowAt(int x) {
+        return (int) Math.floor(groundHeightAt(x) / Block.BLOCK_SIZE);
+    }
+
+    /**
+     * Moves the range of columns whose ground blocks are awake. Blocks outside of it skip their updates
+     * until they come back into the range.
+     *
+     * @param minX The minimal awake x-coordinate (inclusive).
+     * @param maxX The maximal awake x-coordinate (exclusive).
+     */
+    public void setAwakeRange(int minX, int maxX) {
+        awakeRange.moveTo(normalizeCoordinate(minX), normalizeCoordinate(maxX), mappedGroundBlocks,
+                (blockColumn, asleep) -> {
+                    for (Block block : blockColumn) {
+                        block.setAsleep(asleep);
+                    }
+                });
+    }
+
+    /**
+     * Moves the world origin to the right, moving every live column to the left by the same distance so it
+     * stays in place in the world. The terrain generated from now on is the same as it would have been.
+     *
+     * @param shift The distance to move the origin, a multiple of the block size.
+     */
+    public void rebase(int shift) {
+        originX += shift;
+        Vector2 offset = new Vector2(-shift, 0);
+        Map<Integer, List<Block>> columns = new TreeMap<>(mappedGroundBlocks);
+        mappedGroundBlocks.clear();
+        for (Map.Entry<Integer, List<Block>> entry : columns.entrySet()) {
+            for (Block block : entry.getValue()) {
+                block.setTopLeftCorner(block.getTopLeftCorner().add(offset));
+            }
+            mappedGroundBlocks.put(entry.getKey() - shift, entry.getValue());
+        }
+        Set<Integer> solid = new HashSet<>(solidColumns);
+        solidColumns.clear();
+        for (int x : solid) {
+            solidColumns.add(x - shift);
+        }
+        if (!mappedGroundBlocks.isEmpty()) {
+            leftColumn -= shift;
+            rightColumn -= shift;
+        }
+        awakeRange.rebase(shift);
+    }
+
+    /**
+     * Retrieves the world x-coordinate of x = 0.
+     *
+     * @return The distance the origin was moved by, in total.
+     */
+    public int getOriginX() {
+        return originX;
+    }
+
+    /**
+     * Normalizes the x-coordinate to the nearest block size multiple.
+     *
+     * @param x The x-coordinate to normalize.
+     * @return The normalized x-coordinate.
+     */
+    private static int normalizeCoordinate(int x) {
+        return (int) (Math.floor((double) x / Block.BLOCK_SIZE) * Block.BLOCK_SIZE);
+    }
+
     /**
      * Retrieves the leftmost x-coordinate of the terrain.
      *
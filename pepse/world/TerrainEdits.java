@@ -0,0 +1,141 @@
+package pepse.world;
+
+import pepse.util.ChangeLog;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * A sparse overlay of the player's edits to the terrain, recording only deltas against procedural
+ * generation. Only edited columns have an entry, so memory scales with the number of edits rather than with
+ * the distance explored.
+ */
+public class TerrainEdits {
+
+    private final Map<Integer, ColumnEdits> columns = new HashMap<>(); // Edits by column x coordinate
+    private final Set<Integer> changedColumns = new HashSet<>(); // Columns edited since the last drain
+    private final ChangeLog changeLog = new ChangeLog(); // When each column was last edited
+    private Consumer<Integer> onColumnChanged = x -> { }; // Called when the edits of a column change
+
+    /**
+     * Retrieves the edits of a column.
+     *
+     * @param x The x coordinate of the column.
+     * @return The edits of the column, or null if the column wasn't edited.
+     */
+    public ColumnEdits get(int x) {
+        return columns.get(x);
+    }
+
+    /**
+     * Retrieves the edits of a column for editing, creating them if needed, and marks the column as changed.
+     * Edits held by a snapshot are copied first, so the snapshot keeps seeing them as they were. The column
+     * changed callback runs before the edits are made, so it should only note the column.
+     *
+     * @param x The x coordinate of the column.
+     * @return The edits of the column.
+     */
+    public ColumnEdits edit(int x) {
+        changedColumns.add(x);
+        changeLog.markChanged(x);
+        onColumnChanged.accept(x);
+        ColumnEdits columnEdits = columns.computeIfAbsent(x, key -> new ColumnEdits());
+        if (columnEdits.isShared()) {
+            columnEdits = columnEdits.copy();
+            columns.put(x, columnEdits);
+        }
+        return columnEdits;
+    }
+
+    /**
+     * Takes the edits of a column for a snapshot, without copying them. The edits are marked as shared, so
+     * they never change afterwards and may be read on another thread.
+     *
+     * @param x The x coordinate of the column.
+     * @return The edits of the column, or null if the column has no edits.
+     */
+    public ColumnEdits snapshot(int x) {
+        ColumnEdits columnEdits = columns.get(x);
+        if (columnEdits == null || columnEdits.isEmpty()) {
+            return null;
+        }
+        columnEdits.share();
+        return columnEdits;
+    }
+
+    /**
+     * Adds previously saved edits of a column, unless the column was already edited since. Added edits are
+     * recorded in the change log, so they are streamed to joined players, but they aren't marked as changed
+     * for saving since they already are saved.
+     *
+     * @param x     The x coordinate of the column.
+     * @param edits The saved edits of the column.
+     * @return True if the edits were added, false if the column already had newer edits.
+     */
+    public boolean putSaved(int x, ColumnEdits edits) {
+        if (columns.putIfAbsent(x, edits) != null) {
+            return false;
+        }
+        changeLog.markChanged(x);
+        onColumnChanged.accept(x);
+        return true;
+    }
+
+    /**
+     * Replaces the edits of a column with edits received from the authoritative copy of the world. Only
+     * joined players call this, and they neither serve nor save the world, so the change log and the
+     * changed columns are left untouched.
+     *
+     * @param x     The x coordinate of the column.
+     * @param edits The new edits of the column.
+     */
+    public void replace(int x, ColumnEdits edits) {
+        columns.put(x, edits);
+        onColumnChanged.accept(x);
+    }
+
+    /**
+     * Sets the callback run when the edits of a column change, by editing, adding saved edits or replacing
+     * them.
+     *
+     * @param onColumnChanged A Consumer called with the world x coordinate of every changed column.
+     */
+    public void setOnColumnChanged(Consumer<Integer> onColumnChanged) {
+        this.onColumnChanged = onColumnChanged;
+    }
+
+    /**
+     * Retrieves the log of edits, which tells when each column was last edited.
+     *
+     * @return The change log, keyed by column x coordinate.
+     */
+    public ChangeLog getChangeLog() {
+        return changeLog;
+    }
+
+    /**
+     * Checks if a column or one of its neighbors was edited, in which case the column may have exposed sides
+     * and all of its blocks should collide.
+     *
+     * @param x The x coordinate of the column.
+     * @return True if the column or a neighbor has edits, false otherwise.
+     */
+    public boolean isNearEdits(int x) {
+        return columns.containsKey(x) || columns.containsKey(x - Block.BLOCK_SIZE)
+                || columns.containsKey(x + Block.BLOCK_SIZE);
+    }
+
+    /**
+     * Returns the columns edited since the last call, and forgets them.
+     *
+     * @return The x coordinates of the changed columns.
+     */
+    public Set<Integer> drainChangedColumns() {
+        Set<Integer> drained = new HashSet<>(changedColumns);
+        changedColumns.clear();
+        return drained;
+    }
+}
@@ -0,0 +1,135 @@
+package pepse.world;
+
+import danogl.GameObject;
+import pepse.world.trees.Flora;
+import pepse.world.trees.Tree;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.BiConsumer;
+
+/**
+ * Generates whole ranges of the world at once, for startup or for a jump to an arbitrary x coordinate.
+ * Columns are independent given the seed, so the range is split into chunks that are built in parallel
+ * with fork-join, and the results are then merged into the game on the calling thread.
+ */
+public class WorldGenerator {
+
+    private static final int CHUNK_COLUMNS = 8; // Number of columns built by a single task
+
+    private final Terrain terrain;
+    private final Flora flora;
+    private final ForkJoinPool pool; // The pool the columns are built in
+
+    /**
+     * Constructs a WorldGenerator that builds columns in the common fork-join pool.
+     *
+     * @param terrain The terrain whose ground blocks are generated.
+     * @param flora   The flora whose trees are generated.
+     */
+    public WorldGenerator(Terrain terrain, Flora flora) {
+        this(terrain, flora, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructs a WorldGenerator that builds columns in a given fork-join pool.
+     *
+     * @param terrain The terrain whose ground blocks are generated.
+     * @param flora   The flora whose trees are generated.
+     * @param pool    The pool the columns are built in, which sets the number of threads.
+     */
+    public WorldGenerator(Terrain terrain, Flora flora, ForkJoinPool pool) {
+        this.terrain = terrain;
+        this.flora = flora;
+        this.pool = pool;
+    }
+
+    /**
+     * Generates the ground blocks and trees of all columns in the given range in parallel, then adds them
+     * to the game object's collection.
+     *
+     * @param minX      The minimum x-coordinate (inclusive).
+     * @param maxX      The maximum x-coordinate (inclusive).
+     * @param addObject A BiConsumer that accepts a GameObject and an Integer representing the layer
+     *                  to which the object should be added in the GameObjectCollection.
+     * @param avatar    The avatar object to add as a listener to the trees.
+     */
+    public void addInRange(int minX, int maxX, BiConsumer<GameObject, Integer> addObject, Avatar avatar) {
+        int firstColumn = normalizeCoordinate(minX);
+        int columnsCount = (normalizeCoordinate(maxX) - firstColumn) / Block.BLOCK_SIZE + 1;
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        List<Block>[] blockColumns = new List[columnsCount];
+        Tree[] trees = new Tree[columnsCount];
+        pool.invoke(new ChunkTask(firstColumn, 0, columnsCount, blockColumns, trees));
+
+        // The game object's collection isn't thread safe, so merging happens on the calling thread
+        for (int i = 0; i < columnsCount; i++) {
+            int x = firstColumn + i * Block.BLOCK_SIZE;
+            terrain.addCreatedColumn(x, blockColumns[i], addObject);
+            if (trees[i] != null) {
+                flora.addCreatedTree(x, trees[i], addObject, avatar);
+            }
+        }
+    }
+
+    /**
+     * Normalizes the x coordinate to the nearest block size multiple.
+     *
+     * @param x The x coordinate to normalize.
+     * @return The normalized x coordinate.
+     */
+    private static int normalizeCoordinate(int x) {
+        return (int) (Math.floor((double) x / Block.BLOCK_SIZE) * Block.BLOCK_SIZE);
+    }
+
+    /**
+     * A fork-join task that builds a range of columns, splitting it in half until it is small enough.
+     */
+    private class ChunkTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int firstColumn; // The x coordinate of the column at index 0
+        private final int from; // First column index of this task (inclusive)
+        private final int to; // Last column index of this task (exclusive)
+        private final List<Block>[] blockColumns; // Output ground blocks, by column index
+        private final Tree[] trees; // Output trees, by column index
+
+        /**
+         * Constructs a ChunkTask.
+         *
+         * @param firstColumn  The x coordinate of the column at index 0.
+         * @param from         First column index of this task (inclusive).
+         * @param to           Last column index of this task (exclusive).
+         * @param blockColumns Output ground blocks, by column index.
+         * @param trees        Output trees, by column index.
+         */
+        ChunkTask(int firstColumn, int from, int to, List<Block>[] blockColumns, Tree[] trees) {
+            this.firstColumn = firstColumn;
+            this.from = from;
+            this.to = to;
+            this.blockColumns = blockColumns;
+            this.trees = trees;
+        }
+
+        /**
+         * Builds the columns of this task directly, or splits them between two subtasks.
+         */
+        @Override
+        protected void compute() {
+            if (to - from <= CHUNK_COLUMNS) {
+                for (int i = from; i < to; i++) {
+                    int x = firstColumn + i * Block.BLOCK_SIZE;
+                    blockColumns[i] = terrain.createColumn(x);
+                    trees[i] = flora.createTreeInColumn(x);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new ChunkTask(firstColumn, from, middle, blockColumns, trees),
+                    new ChunkTask(firstColumn, middle, to, blockColumns, trees));
+        }
+    }
+}
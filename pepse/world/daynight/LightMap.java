@@ -0,0 +1,317 @@
+package pepse.world.daynight;
+
+import danogl.GameObject;
+import danogl.util.Vector2;
+import pepse.world.Block;
+import pepse.world.Terrain;
+import pepse.world.trees.Flora;
+import pepse.world.trees.Tree;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The LightMap class shades the world locally, by the sun and by glowing fruits at night.
+ * The light of every block-sized cell of the rendered columns is computed from the sun angle, the slope of
+ * the terrain, the depth under the surface and the shadows of nearby trees, and cached as one pixel of an
+ * image drawn stretched over the world. Columns are only computed when they enter the rendered range or are
+ * marked dirty by an edit or a growing tree, and all of them are recomputed only when the sun crosses into
+ * another angle bucket, so no per-pixel work happens on most frames.
+ */
+public class LightMap extends GameObject {
+
+    private static final String LIGHT_MAP_TAG = "lightMap"; // Tag for the light map GameObject
+    private static final int SUN_ANGLE_BUCKETS = 96; // Number of sun angles the light is computed for
+    private static final float FULL_CIRCLE = 360f;
+    private static final float AMBIENT_LIGHT = 0.2f; // Light of surfaces the sun doesn't reach
+    private static final float MAX_SHADE = 0.6f; // Opacity of the shade over a block without light
+    private static final float DEPTH_FALLOFF = 0.85f; // Part of the light kept by every block down
+    private static final float SHADOW_LIGHT = 0.5f; // Part of the sunlight left in the shadow of a tree
+    private static final int SHADOW_REACH = 12 * Block.BLOCK_SIZE; // Farthest column a tree shadows
+    private static final int TREE_REACH = 5 * Block.BLOCK_SIZE; // Covers the sideways reach of any fruits
+    private static final float GLOW_RADIUS = 2.5f * Block.BLOCK_SIZE; // Distance a fruit's glow reaches
+    private static final float GLOW_OPACITY = 0.45f; // Opacity of a fruit's glow at midnight
+    private static final Color GLOW_COLOR = new Color(255, 210, 120); // Color of the fruits' glow
+    private static final int NO_COLUMN = Integer.MIN_VALUE; // Marks a slot that holds no column
+
+    private final Terrain terrain;
+    private final Flora flora;
+    private final int topRow; // The row of the light map's first cell
+    private final int rows; // The number of cells in every column
+    private final int capacity; // The number of columns the light map can hold
+    private final BufferedImage image; // A pixel per cell, columns in slots by their x coordinate
+    private final int[] slotColumns; // The x coordinate of the column in every slot
+    private final int[] columnPixels; // Reused for computing a column
+    private final Map<Integer, Integer> trunkHeights = new HashMap<>(); // Trunk heights of columns not live
+    private final List<Vector2> glowingFruits = new ArrayList<>(); // Reused for computing a column
+    private int bucket = -1; // The sun angle bucket the cached columns were computed for
+    private Vector2 sunDirection = Vector2.UP; // Direction towards the sun, at the bucket's angle
+    private int minX; // The minimal x coordinate of the covered columns (inclusive)
+    private int maxX; // The maximal x coordinate of the covered columns (exclusive)
+
+    /**
+     * Constructs a LightMap.
+     *
+     * @param terrain          The terrain, for its heightmap.
+     * @param flora            The flora, for the placement of its trees and their fruits.
+     * @param windowDimensions The dimensions of the game window.
+     * @param maxRangeWidth    The maximal width of the rendered range, in pixels.
+     */
+    public LightMap(Terrain terrain, Flora flora, Vector2 windowDimensions, int maxRangeWidth) {
+        super(Vector2.ZERO, Vector2.ZERO, null);
+        this.terrain = terrain;
+        this.flora = flora;
+
+        // Cover a window height above and below the ground at x = 0, beyond the terrain's hills and depth
+        float groundHeightAtX0 = terrain.groundHeightAt(0);
+        this.topRow = (int) Math.floor((groundHeightAtX0 - windowDimensions.y()) / Block.BLOCK_SIZE);
+        this.rows = (int) Math.ceil(2 * windowDimensions.y() / Block.BLOCK_SIZE);
+        this.capacity = maxRangeWidth / Block.BLOCK_SIZE + 2;
+        this.image = new BufferedImage(capacity, rows, BufferedImage.TYPE_INT_ARGB);
+        this.slotColumns = new int[capacity];
+        this.columnPixels = new int[rows];
+        Arrays.fill(slotColumns, NO_COLUMN);
+
+        renderer().setRenderable(this::renderLight);
+        setTag(LIGHT_MAP_TAG);
+    }
+
+    /**
+     * Covers the given range of columns, computing the columns that entered it, or all of them if the sun
+     * crossed into another angle bucket.
+     *
+     * @param sunAngle The sun's angle in degrees, 0 at midday.
+     * @param minX     The minimal x coordinate of the rendered range (inclusive).
+     * @param maxX     The maximal x coordinate of the rendered range (exclusive).
+     */
+    public void update(float sunAngle, int minX, int maxX) {
+        maxX = Math.min(maxX, minX + capacity * Block.BLOCK_SIZE);
+        if (minX != this.minX || maxX != this.maxX) {
+            this.minX = minX;
+            this.maxX = maxX;
+            setTopLeftCorner(new Vector2(minX, topRow * Block.BLOCK_SIZE));
+            setDimensions(new Vector2(maxX - minX, rows * Block.BLOCK_SIZE));
+        }
+
+        int newBucket = Math.floorMod((int) Math.floor(sunAngle / FULL_CIRCLE * SUN_ANGLE_BUCKETS),
+                SUN_ANGLE_BUCKETS);
+        boolean recomputeAll = newBucket != bucket;
+        if (recomputeAll) {
+            bucket = newBucket;
+            float bucketAngle = (bucket + 0.5f) * FULL_CIRCLE / SUN_ANGLE_BUCKETS;
+            sunDirection = Vector2.UP.rotated(bucketAngle);
+            trunkHeights.keySet().removeIf(
+                    x -> x < this.minX - SHADOW_REACH || x >= this.maxX + SHADOW_REACH);
+        }
+        for (int x = minX; x < maxX; x += Block.BLOCK_SIZE) {
+            int slot = slotOf(x);
+            if (recomputeAll || slotColumns[slot] != x) {
+                computeColumn(x);
+                slotColumns[slot] = x;
+                image.setRGB(slot, 0, 1, rows, columnPixels, 0, 1);
+            }
+        }
+    }
+
+    /**
+     * Marks the columns whose light a change to a column may affect, so they are computed again on the next
+     * update. A column's surface lights it and its neighbors, and its tree shadows and lights the columns
+     * around it.
+     *
+     * @param x The x coordinate of the changed column.
+     */
+    public void markDirty(int x) {
+        for (int column = x - SHADOW_REACH; column <= x + SHADOW_REACH; column += Block.BLOCK_SIZE) {
+            int slot = slotOf(column);
+            if (slotColumns[slot] == column) {
+                slotColumns[slot] = NO_COLUMN;
+            }
+        }
+    }
+
+    /**
+     * Forgets all computed columns when the world origin moves, since they are kept by x coordinate. They
+     * are computed again on the next update.
+     */
+    public void rebase() {
+        Arrays.fill(slotColumns, NO_COLUMN);
+        trunkHeights.clear();
+    }
+
+    /**
+     * Computes the light of every cell of a column into columnPixels, as a shade over the ground blocks and
+     * a glow around the fruits.
+     *
+     * @param x The x coordinate of the column.
+     */
+    private void computeColumn(int x) {
+        float surfaceY = terrain.surfaceHeightAt(x);
+        int surfaceRow = (int) Math.floor(surfaceY / Block.BLOCK_SIZE);
+
+        // Surfaces facing the sun get more of its light, by the slope of the terrain at the column
+        float slope = (terrain.surfaceHeightAt(x + Block.BLOCK_SIZE)
+                - terrain.surfaceHeightAt(x - Block.BLOCK_SIZE)) / (2 * Block.BLOCK_SIZE);
+        Vector2 normal = new Vector2(slope, -1).normalized();
+        float sunLight = Math.max(0, -sunDirection.y()) * Math.max(0, normal.dot(sunDirection));
+        if (sunLight > 0 && isShadowed(x + Block.BLOCK_SIZE / 2f, surfaceY)) {
+            sunLight *= SHADOW_LIGHT;
+        }
+        float surfaceLight = AMBIENT_LIGHT + (1 - AMBIENT_LIGHT) * sunLight;
+
+        // Fruits glow from sunset to sunrise, brightest at midnight
+        float glow = GLOW_OPACITY * Math.max(0, sunDirection.y());
+        collectGlowingFruits(x, glow);
+
+        float cellCenterX = x + Block.BLOCK_SIZE / 2f;
+        float light = surfaceLight; // The light of the cell, fading with every block down
+        for (int row = 0; row < rows; row++) {
+            float shade = 0;
+            int depth = topRow + row - surfaceRow;
+            if (depth >= 0 && depth < Terrain.TERRAIN_DEPTH) {
+                shade = MAX_SHADE * (1 - light);
+                light *= DEPTH_FALLOFF;
+            }
+            float cellGlow = 0;
+            float cellCenterY = (topRow + row + 0.5f) * Block.BLOCK_SIZE;
+            for (Vector2 fruitCenter : glowingFruits) {
+                float distance = (float) Math.hypot(fruitCenter.x() - cellCenterX,
+                        fruitCenter.y() - cellCenterY);
+                cellGlow = Math.max(cellGlow, glow * Math.max(0, 1 - distance / GLOW_RADIUS));
+            }
+            columnPixels[row] = blend(shade, cellGlow);
+        }
+    }
+
+    /**
+     * Checks if the tree canopies near a point block the sun from it.
+     *
+     * @param x The x coordinate of the point.
+     * @param y The y coordinate of the point.
+     * @return True if the point is in the shadow of a tree, false otherwise.
+     */
+    private boolean isShadowed(float x, float y) {
+        int column = (int) Math.floor(x / Block.BLOCK_SIZE) * Block.BLOCK_SIZE;
+        for (int treeX = column - SHADOW_REACH; treeX <= column + SHADOW_REACH; treeX += Block.BLOCK_SIZE) {
+            // Live trees may still be saplings, columns without a live tree use the grown tree's height
+            Tree tree = flora.getTreeInColumn(treeX);
+            int trunkHeight = tree != null ? tree.getTrunkHeight()
+                    : trunkHeights.computeIfAbsent(treeX, flora::trunkHeightInColumn);
+            if (trunkHeight == 0) {
+                continue;
+            }
+
+            // Follow the ray towards the sun up to the height of the canopy's center, and check if it is
+            // inside the canopy there. Trees stand on the generated ground, whatever was dug under them
+            float canopyCenterY = terrain.groundHeightAt(treeX) - trunkHeight;
+            float rayLength = (canopyCenterY - y) / sunDirection.y();
+            if (rayLength <= 0) {
+                continue;
+            }
+            // Trunks are a column wide, and canopies are centered above them
+            float rayX = x + sunDirection.x() * rayLength;
+            if (Math.abs(rayX - (treeX + Block.BLOCK_SIZE / 2f)) <= Tree.getCanopyHalfSize(trunkHeight)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Collects the centers of the uneaten fruits whose glow may reach a column.
+     *
+     * @param x    The x coordinate of the column.
+     * @param glow The opacity of a fruit's glow at this time of day.
+     */
+    private void collectGlowingFruits(int x, float glow) {
+        glowingFruits.clear();
+        if (glow <= 0) {
+            return;
+        }
+        float columnCenterX = x + Block.BLOCK_SIZE / 2f;
+        int reach = TREE_REACH + (int) Math.ceil(GLOW_RADIUS);
+        for (int treeX = x - reach; treeX <= x + reach; treeX += Block.BLOCK_SIZE) {
+            Tree tree = flora.getTreeInColumn(treeX);
+            if (tree == null) {
+                continue;
+            }
+            tree.forEachFruit(fruit -> {
+                if (fruit.isExists() && Math.abs(fruit.getCenter().x() - columnCenterX) < GLOW_RADIUS) {
+                    glowingFruits.add(fruit.getCenter());
+                }
+            });
+        }
+    }
+
+    /**
+     * Blends a fruit's glow over a shade into a single pixel.
+     *
+     * @param shade The opacity of the black shade.
+     * @param glow  The opacity of the glow drawn over the shade.
+     * @return The pixel, as an ARGB value.
+     */
+    private static int blend(float shade, float glow) {
+        float alpha = glow + shade * (1 - glow);
+        if (alpha <= 0) {
+            return 0;
+        }
+        float glowPart = glow / alpha;
+        return Math.round(alpha * 255) << 24
+                | Math.round(GLOW_COLOR.getRed() * glowPart) << 16
+                | Math.round(GLOW_COLOR.getGreen() * glowPart) << 8
+                | Math.round(GLOW_COLOR.getBlue() * glowPart);
+    }
+
+    /**
+     * Computes the slot of a column in the light map's image.
+     *
+     * @param x The x coordinate of the column.
+     * @return The index of the image column holding the column.
+     */
+    private int slotOf(int x) {
+        return Math.floorMod(Math.floorDiv(x, Block.BLOCK_SIZE), capacity);
+    }
+
+    /**
+     * Draws the cached light of the covered columns, stretched smoothly over them. The columns may wrap
+     * around the end of the image, in which case they are drawn in two parts.
+     *
+     * @param graphics              The graphics to draw with.
+     * @param topLeftCorner         The top-left corner of the light map on screen.
+     * @param dimensions            The dimensions of the light map on screen.
+     * @param rotation              The rotation of the object, ignored.
+     * @param isFlippedHorizontally Whether the object is flipped horizontally, ignored.
+     * @param isFlippedVertically   Whether the object is flipped vertically, ignored.
+     * @param opaqueness            The opaqueness of the object, ignored.
+     */
+    private void renderLight(Graphics2D graphics, Vector2 topLeftCorner, Vector2 dimensions, double rotation,
+                             boolean isFlippedHorizontally, boolean isFlippedVertically, double opaqueness) {
+        int columns = (maxX - minX) / Block.BLOCK_SIZE;
+        if (columns <= 0) {
+            return;
+        }
+        Object previousInterpolation = graphics.getRenderingHint(RenderingHints.KEY_INTERPOLATION);
+        graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+                RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+
+        float columnWidth = dimensions.x() / columns;
+        int top = Math.round(topLeftCorner.y());
+        int bottom = Math.round(topLeftCorner.y() + dimensions.y());
+        int firstSlot = slotOf(minX);
+        int firstPart = Math.min(columns, capacity - firstSlot);
+        int split = Math.round(topLeftCorner.x() + firstPart * columnWidth);
+        graphics.drawImage(image, Math.round(topLeftCorner.x()), top, split, bottom,
+                firstSlot, 0, firstSlot + firstPart, rows, null);
+        if (firstPart < columns) {
+            graphics.drawImage(image, split, top, Math.round(topLeftCorner.x() + dimensions.x()), bottom,
+                    0, 0, columns - firstPart, rows, null);
+        }
+
+        graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, previousInterpolation != null ?
+                previousInterpolation : RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+    }
+}
@@ -9,7 +9,7 @@ import java.awt.*;
 
 /**
  * The SunHalo class represents a visual halo effect around the sun in the game.
- * It creates a GameObject that follows the sun's position, providing a glowing halo.
+ * It creates a GameObject that stays around the sun, providing a glowing halo.
  */
 public class SunHalo {
 
@@ -18,12 +18,14 @@ public class SunHalo {
     private static final String SUN_HALO_TAG = "sunHalo"; // Tag for the sun halo GameObject
 
     /**
-     * Creates a sun halo effect GameObject that follows the sun.
+     * Creates a sun halo effect GameObject around the sun.
      *
-     * @param sun The GameObject representing the sun.
+     * @param sun              The GameObject representing the sun.
+     * @param windowDimensions The dimensions of the game window.
+     * @param clock            The clock that tells the time of day, and so where the sun is.
      * @return The GameObject representing the sun halo effect.
      */
-    public static GameObject create(GameObject sun) {
+    public static GameObject create(GameObject sun, Vector2 windowDimensions, WorldClock clock) {
         // Calculate the halo size based on the sun's dimensions
         Vector2 haloSize = sun.getDimensions().mult(HALO_SIZE_FACTOR);
         // Create the sun halo GameObject with a translucent yellow oval renderable
@@ -31,8 +33,9 @@ public class SunHalo {
         sunHalo.setCoordinateSpace(CoordinateSpace.CAMERA_COORDINATES);
         sunHalo.setTag(SUN_HALO_TAG);
 
-        // Add a component to update the sun halo position to match the sun position (every frame)
-        sunHalo.addComponent((float deltaTime) -> sunHalo.setCenter(sun.getCenter()));
+        // Read the sun's position from the clock rather than from the sun, so the halo never lags a frame
+        sunHalo.setCenter(Sun.getCenter(windowDimensions, clock));
+        sunHalo.addComponent((float deltaTime) -> sunHalo.setCenter(Sun.getCenter(windowDimensions, clock)));
 
         return sunHalo;
     }
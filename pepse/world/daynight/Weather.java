@@ -0,0 +1,161 @@
+package pepse.world.daynight;
+
+import danogl.GameObject;
+import danogl.components.CoordinateSpace;
+import danogl.util.Vector2;
+
+import java.awt.*;
+import java.awt.geom.Path2D;
+import java.util.Random;
+
+/**
+ * The Weather class represents the rain that falls at night.
+ * Raindrops aren't GameObjects: they live in primitive arrays, recycled from a fixed pool, and a single
+ * camera-space GameObject draws them as streaks in batches of one draw call each. The rain follows the day
+ * cycle, from dry at midday to the heaviest rain at midnight.
+ */
+public class Weather extends GameObject {
+
+    private static final String WEATHER_TAG = "weather"; // Tag for the weather GameObject
+    private static final int MAX_DROPS = 1500; // Size of the raindrops pool
+    private static final int BATCH_SIZE = 256; // Number of raindrops drawn in a single draw call
+    private static final float FALL_SPEED = 900; // Base falling speed of raindrops, in pixels per second
+    private static final float FALL_SPEED_VARIANCE = 300; // Random falling speed added to the base speed
+    private static final float WIND_SPEED = -120; // Horizontal speed of raindrops, in pixels per second
+    private static final float STREAK_TIME = 0.02f; // The length of a raindrop's streak, in seconds of motion
+    private static final Color DROP_COLOR = new Color(170, 190, 230, 160); // Color of the raindrops
+    private static final Stroke DROP_STROKE = new BasicStroke(1.5f); // Stroke of the raindrops
+    private static final int RANDOM_SEED = 1; // Seed of the raindrops' positions and speeds
+
+    private final WorldClock clock; // Tells the time of day, and so how heavy the rain is
+    private final float width;
+    private final float height;
+    private final float[] x = new float[MAX_DROPS]; // Raindrop positions, the first activeCount in use
+    private final float[] y = new float[MAX_DROPS];
+    private final float[] speedY = new float[MAX_DROPS];
+    private final Random random = new Random(RANDOM_SEED);
+    private final Path2D.Float batch = new Path2D.Float(); // Reused for every batch of streaks
+    private int activeCount = 0;
+    private float dropsFactor = 1; // Part of the pool used by the heaviest rain
+
+    /**
+     * Constructs a Weather object covering the window.
+     *
+     * @param windowDimensions The dimensions of the game window.
+     * @param clock            The clock that tells the time of day.
+     */
+    public Weather(Vector2 windowDimensions, WorldClock clock) {
+        super(Vector2.ZERO, windowDimensions, null);
+        this.clock = clock;
+        this.width = windowDimensions.x();
+        this.height = windowDimensions.y();
+        renderer().setRenderable(this::renderDrops);
+        setCoordinateSpace(CoordinateSpace.CAMERA_COORDINATES);
+        setTag(WEATHER_TAG);
+    }
+
+    /**
+     * Sets the part of the raindrops pool used by the heaviest rain, so the rain thins out at lower quality.
+     *
+     * @param dropsFactor The part of the pool to use, between 0 and 1.
+     */
+    public void setDropsFactor(float dropsFactor) {
+        this.dropsFactor = dropsFactor;
+    }
+
+    /**
+     * Moves the raindrops, recycles the ones that left the window, and spawns or retires raindrops towards
+     * the intensity of the current time of day.
+     *
+     * @param deltaTime The time elapsed since the last update in seconds.
+     */
+    @Override
+    public void update(float deltaTime) {
+        super.update(deltaTime);
+        int targetCount = (int) (MAX_DROPS * dropsFactor * getIntensity());
+
+        for (int i = 0; i < activeCount; i++) {
+            y[i] += speedY[i] * deltaTime;
+            x[i] += WIND_SPEED * deltaTime;
+            if (y[i] <= height) {
+                continue;
+            }
+            if (activeCount > targetCount) {
+                // Retire the raindrop by moving the last active one into its place
+                activeCount--;
+                x[i] = x[activeCount];
+                y[i] = y[activeCount];
+                speedY[i] = speedY[activeCount];
+                i--;
+            } else {
+                spawn(i, y[i] - height);
+            }
+        }
+
+        // New raindrops start anywhere above the window, so they enter it evenly instead of as a front
+        while (activeCount < targetCount) {
+            spawn(activeCount++, -random.nextFloat() * height);
+        }
+    }
+
+    /**
+     * Computes the intensity of the rain at the current time of day: none during the day, rising from
+     * sunset to the heaviest rain at midnight and falling again until sunrise.
+     *
+     * @return The intensity, between 0 and 1.
+     */
+    private float getIntensity() {
+        // The sun points down from its orbit's center at midnight
+        return Math.max(0, clock.getSunDirectionY());
+    }
+
+    /**
+     * Places a raindrop at a random horizontal position, with a random falling speed.
+     *
+     * @param index The index of the raindrop in the pool.
+     * @param dropY The vertical position of the raindrop.
+     */
+    private void spawn(int index, float dropY) {
+        // Raindrops drift with the wind, so they start spread over the width they may drift into
+        float drift = -WIND_SPEED * height / FALL_SPEED;
+        x[index] = random.nextFloat() * (width + drift);
+        y[index] = dropY;
+        speedY[index] = FALL_SPEED + random.nextFloat() * FALL_SPEED_VARIANCE;
+    }
+
+    /**
+     * Draws all active raindrops as streaks, in batches of a single draw call each.
+     *
+     * @param graphics              The graphics to draw with.
+     * @param topLeftCorner         The top-left corner of the weather object on screen.
+     * @param dimensions            The dimensions of the weather object on screen.
+     * @param rotation              The rotation of the object, ignored.
+     * @param isFlippedHorizontally Whether the object is flipped horizontally, ignored.
+     * @param isFlippedVertically   Whether the object is flipped vertically, ignored.
+     * @param opaqueness            The opaqueness of the object, ignored.
+     */
+    private void renderDrops(Graphics2D graphics, Vector2 topLeftCorner, Vector2 dimensions, double rotation,
+                             boolean isFlippedHorizontally, boolean isFlippedVertically, double opaqueness) {
+        if (activeCount == 0) {
+            return;
+        }
+        Color previousColor = graphics.getColor();
+        Stroke previousStroke = graphics.getStroke();
+        graphics.setColor(DROP_COLOR);
+        graphics.setStroke(DROP_STROKE);
+
+        float left = topLeftCorner.x();
+        float top = topLeftCorner.y();
+        for (int first = 0; first < activeCount; first += BATCH_SIZE) {
+            batch.reset();
+            for (int i = first; i < Math.min(first + BATCH_SIZE, activeCount); i++) {
+                batch.moveTo(left + x[i], top + y[i]);
+                batch.lineTo(left + x[i] - WIND_SPEED * STREAK_TIME, top + y[i] - speedY[i] * STREAK_TIME);
+            }
+            graphics.draw(batch);
+        }
+
+        graphics.setColor(previousColor);
+        graphics.setStroke(previousStroke);
+    }
+}
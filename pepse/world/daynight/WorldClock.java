@@ -0,0 +1,224 @@
+package pepse.world.daynight;
+
+import danogl.util.Vector2;
+
+import java.awt.*;
+
+/**
+ * The WorldClock class is the single source of the time of day in the game.
+ * Time is kept in one accumulator, and everything that follows the day-night cycle reads it analytically:
+ * the sun's position, the night's opacity and the sky's tint come from lookup tables precomputed per degree
+ * of the sun's angle, so the effects never drift apart, even when the clock is scaled, paused or
+ * fast-forwarded.
+ */
+public class WorldClock {
+
+    /**
+     * The number of sky tints in a day, one per degree of the sun's angle.
+     */
+    public static final int SKY_TINTS_COUNT = 360;
+
+    private static final int DEGREES = 360; // Entries in each lookup table, one per degree of the sun's angle
+    private static final float MIDNIGHT_DEGREE = 180f; // The sun's angle at midnight
+    private static final float MIDNIGHT_OPACITY = 0.5f; // Opacity of the night effect at midnight
+    private static final Color DAY_SKY_COLOR = Color.decode("#80C6E5"); // Sky tint while the sun is high
+    private static final Color DUSK_SKY_COLOR = Color.decode("#F0A868"); // Sky tint at sunrise and sunset
+    private static final Color NIGHT_SKY_COLOR = Color.decode("#1E2B4D"); // Sky tint at midnight
+    private static final float DUSK_ELEVATION = 0.35f; // Sun elevation below which the sky turns to dusk
+
+    // Unit direction from the sun's orbit center to the sun, with an entry for 360 degrees to interpolate to
+    private static final float[] SUN_DIRECTION_X = new float[DEGREES + 1];
+    private static final float[] SUN_DIRECTION_Y = new float[DEGREES + 1];
+    private static final float[] NIGHT_OPACITY = new float[DEGREES + 1];
+    private static final Color[] SKY_TINT = new Color[SKY_TINTS_COUNT];
+
+    static {
+        for (int degree = 0; degree <= DEGREES; degree++) {
+            Vector2 direction = Vector2.UP.rotated(degree);
+            SUN_DIRECTION_X[degree] = direction.x();
+            SUN_DIRECTION_Y[degree] = direction.y();
+
+            // Night deepens from midday to midnight and lifts back, easing in and out like a cubic transition
+            float progress = 1 - Math.abs(degree - MIDNIGHT_DEGREE) / MIDNIGHT_DEGREE;
+            NIGHT_OPACITY[degree] = MIDNIGHT_OPACITY * progress * progress * (3 - 2 * progress);
+        }
+        for (int degree = 0; degree < SKY_TINTS_COUNT; degree++) {
+            float elevation = -SUN_DIRECTION_Y[degree];
+            Color tint = blend(DAY_SKY_COLOR, DUSK_SKY_COLOR,
+                    Math.max(0, 1 - Math.abs(elevation) / DUSK_ELEVATION));
+            SKY_TINT[degree] = blend(tint, NIGHT_SKY_COLOR, Math.max(0, -elevation));
+        }
+    }
+
+    private final float cycleLength; // The length of a full day-night cycle, in clock seconds
+    private double time = 0; // Clock seconds since the first midday, the clock's only accumulator
+    private float timeScale = 1; // Clock seconds that pass per real second
+    private boolean paused = false;
+
+    /**
+     * Constructs a WorldClock starting at midday.
+     *
+     * @param cycleLength The length of a full day-night cycle, in seconds at the normal time scale.
+     */
+    public WorldClock(float cycleLength) {
+        this.cycleLength = cycleLength;
+    }
+
+    /**
+     * Advances the clock by the real time of a frame, unless it is paused. Should be called once per frame,
+     * before the game objects are updated.
+     *
+     * @param deltaTime The real time elapsed since the last frame in seconds.
+     */
+    public void advance(float deltaTime) {
+        if (!paused) {
+            time += deltaTime * timeScale;
+        }
+    }
+
+    /**
+     * Moves the clock forward at once, whether it is paused or not.
+     *
+     * @param clockSeconds The clock seconds to skip.
+     */
+    public void fastForward(float clockSeconds) {
+        time += clockSeconds;
+    }
+
+    /**
+     * Sets how fast the clock runs.
+     *
+     * @param timeScale The clock seconds that pass per real second.
+     */
+    public void setTimeScale(float timeScale) {
+        this.timeScale = timeScale;
+    }
+
+    /**
+     * Retrieves how fast the clock runs.
+     *
+     * @return The clock seconds that pass per real second.
+     */
+    public float getTimeScale() {
+        return timeScale;
+    }
+
+    /**
+     * Pauses or resumes the clock.
+     *
+     * @param paused Whether the clock should stop advancing.
+     */
+    public void setPaused(boolean paused) {
+        this.paused = paused;
+    }
+
+    /**
+     * Checks if the clock is paused.
+     *
+     * @return True if the clock doesn't advance, false otherwise.
+     */
+    public boolean isPaused() {
+        return paused;
+    }
+
+    /**
+     * Retrieves the length of a full day-night cycle.
+     *
+     * @return The length of the cycle, in clock seconds.
+     */
+    public float getCycleLength() {
+        return cycleLength;
+    }
+
+    /**
+     * Retrieves the time since the clock started.
+     *
+     * @return The clock seconds since the first midday.
+     */
+    public double getTime() {
+        return time;
+    }
+
+    /**
+     * Retrieves the sun's angle, which tells the time of day.
+     *
+     * @return The angle in degrees, from 0 at midday through 180 at midnight, below 360.
+     */
+    public float getSunAngle() {
+        return (float) (time % cycleLength / cycleLength * DEGREES);
+    }
+
+    /**
+     * Retrieves the horizontal part of the direction from the sun's orbit center to the sun.
+     *
+     * @return The horizontal part of the unit direction.
+     */
+    public float getSunDirectionX() {
+        return lookUp(SUN_DIRECTION_X);
+    }
+
+    /**
+     * Retrieves the vertical part of the direction from the sun's orbit center to the sun.
+     *
+     * @return The vertical part of the unit direction, -1 at midday and 1 at midnight.
+     */
+    public float getSunDirectionY() {
+        return lookUp(SUN_DIRECTION_Y);
+    }
+
+    /**
+     * Retrieves the opacity of the night effect at the current time of day.
+     *
+     * @return The opacity, from 0 at midday to its highest at midnight.
+     */
+    public float getNightOpacity() {
+        return lookUp(NIGHT_OPACITY);
+    }
+
+    /**
+     * Retrieves the index of the sky tint at the current time of day, which changes once per degree.
+     *
+     * @return The index of the tint, to pass to getSkyTint.
+     */
+    public int getSkyTintIndex() {
+        return (int) getSunAngle() % SKY_TINTS_COUNT;
+    }
+
+    /**
+     * Retrieves one of the sky tints of the day.
+     *
+     * @param index The index of the tint, below 360, as returned by getSkyTintIndex.
+     * @return The color of the sky at that time of day.
+     */
+    public static Color getSkyTint(int index) {
+        return SKY_TINT[index];
+    }
+
+    /**
+     * Reads a per-degree lookup table at the current sun angle, interpolating between its degrees.
+     *
+     * @param table The table, with an entry for 360 degrees equal to its entry for 0.
+     * @return The interpolated value.
+     */
+    private float lookUp(float[] table) {
+        float angle = getSunAngle();
+        int degree = Math.min((int) angle, DEGREES - 1);
+        float fraction = angle - degree;
+        return table[degree] + (table[degree + 1] - table[degree]) * fraction;
+    }
+
+    /**
+     * Blends two colors.
+     *
+     * @param from   The color at weight 0.
+     * @param to     The color at weight 1.
+     * @param weight The weight of the second color, between 0 and 1.
+     * @return The blended color.
+     */
+    private static Color blend(Color from, Color to, float weight) {
+        return new Color(
+                Math.round(from.getRed() + (to.getRed() - from.getRed()) * weight),
+                Math.round(from.getGreen() + (to.getGreen() - from.getGreen()) * weight),
+                Math.round(from.getBlue() + (to.getBlue() - from.getBlue()) * weight));
+    }
+}
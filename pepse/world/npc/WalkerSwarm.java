@@ -0,0 +1,233 @@
+package pepse.world.npc;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * Simulates a large number of wandering NPC walkers. The state of the walkers is kept in parallel primitive
+ * arrays indexed by walker, and integrated in a single loop against the terrain heightmap rather than through
+ * per-object physics and collisions. Walkers walk in one direction for a while, turn around now and then, and
+ * rest to regain their energy once it runs out.
+ */
+public class WalkerSwarm {
+
+    /**
+     * The width of a walker
+     */
+    public static final float WALKER_WIDTH = 25;
+    /**
+     * The height of a walker
+     */
+    public static final float WALKER_HEIGHT = 30;
+    /**
+     * The number of frames in the walking animation
+     */
+    public static final int WALK_FRAMES_COUNT = 6;
+
+    // Movement constants
+    private static final float WALK_VELOCITY = 60;
+    private static final float GRAVITY = 600;
+    private static final float MIN_TURN_TIME = 2; // Minimal time between turns, in seconds
+    private static final float MAX_TURN_TIME = 10; // Maximal time between turns, in seconds
+
+    // Energy constants, per second
+    private static final float WALK_ENERGY = 8;
+    private static final float REST_ENERGY = 20;
+    private static final float MAX_ENERGY = 100;
+    private static final float TIME_BETWEEN_FRAMES = 0.1f;
+
+    private final DoubleUnaryOperator groundHeightAt; // Ground height at a given x coordinate
+    private final Random random;
+
+    // The state of the walkers, by walker index
+    private float[] x;
+    private float[] y;
+    private float[] velocityX;
+    private float[] velocityY;
+    private float[] heading; // -1 when heading left, 1 when heading right
+    private float[] energy;
+    private float[] turnTimeLeft;
+    private float[] frameTime; // Time spent on the current animation frame
+    private int[] frame; // The current animation frame, 0 while resting
+    private boolean[] resting;
+    private int size = 0;
+
+    /**
+     * Constructs a WalkerSwarm.
+     *
+     * @param initialCapacity The number of walkers to allocate room for.
+     * @param groundHeightAt  A function that returns the ground height at a given x coordinate.
+     * @param seed            The seed for the walkers' random decisions.
+     */
+    public WalkerSwarm(int initialCapacity, DoubleUnaryOperator groundHeightAt, int seed) {
+        this.groundHeightAt = groundHeightAt;
+        this.random = new Random(seed);
+        x = new float[initialCapacity];
+        y = new float[initialCapacity];
+        velocityX = new float[initialCapacity];
+        velocityY = new float[initialCapacity];
+        heading = new float[initialCapacity];
+        energy = new float[initialCapacity];
+        turnTimeLeft = new float[initialCapacity];
+        frameTime = new float[initialCapacity];
+        frame = new int[initialCapacity];
+        resting = new boolean[initialCapacity];
+    }
+
+    /**
+     * Adds a walker standing on the ground.
+     *
+     * @param spawnX The x coordinate of the walker's left edge.
+     * @return The index of the new walker.
+     */
+    public int spawn(float spawnX) {
+        if (size == x.length) {
+            grow();
+        }
+        int i = size++;
+        x[i] = spawnX;
+        y[i] = (float) groundHeightAt.applyAsDouble(spawnX + WALKER_WIDTH / 2) - WALKER_HEIGHT;
+        heading[i] = random.nextBoolean() ? 1 : -1;
+        energy[i] = random.nextFloat() * MAX_ENERGY;
+        turnTimeLeft[i] = nextTurnTime();
+        return i;
+    }
+
+    /**
+     * Advances all walkers by a time step.
+     *
+     * @param deltaTime The time elapsed since the last update in seconds.
+     */
+    public void update(float deltaTime) {
+        for (int i = 0; i < size; i++) {
+            // Decide whether to walk or rest
+            if (resting[i]) {
+                energy[i] += REST_ENERGY * deltaTime;
+                if (energy[i] >= MAX_ENERGY) {
+                    energy[i] = MAX_ENERGY;
+                    resting[i] = false;
+                }
+            } else {
+                energy[i] -= WALK_ENERGY * deltaTime;
+                if (energy[i] <= 0) {
+                    energy[i] = 0;
+                    resting[i] = true;
+                }
+            }
+            turnTimeLeft[i] -= deltaTime;
+            if (turnTimeLeft[i] <= 0) {
+                heading[i] = -heading[i];
+                turnTimeLeft[i] = nextTurnTime();
+            }
+            velocityX[i] = resting[i] ? 0 : heading[i] * WALK_VELOCITY;
+
+            // Integrate, then stand on the ground if below it
+            velocityY[i] += GRAVITY * deltaTime;
+            x[i] += velocityX[i] * deltaTime;
+            y[i] += velocityY[i] * deltaTime;
+            float groundY = (float) groundHeightAt.applyAsDouble(x[i] + WALKER_WIDTH / 2) - WALKER_HEIGHT;
+            if (y[i] >= groundY) {
+                y[i] = groundY;
+                velocityY[i] = 0;
+            }
+
+            // Advance the walking animation
+            if (resting[i]) {
+                frame[i] = 0;
+                frameTime[i] = 0;
+            } else {
+                frameTime[i] += deltaTime;
+                if (frameTime[i] >= TIME_BETWEEN_FRAMES) {
+                    frameTime[i] -= TIME_BETWEEN_FRAMES;
+                    frame[i] = (frame[i] + 1) % WALK_FRAMES_COUNT;
+                }
+            }
+        }
+    }
+
+    /**
+     * Moves all walkers to the left when the world origin moves to the right, so they stay in place in the
+     * world.
+     *
+     * @param shift The distance the world origin moved.
+     */
+    public void rebase(float shift) {
+        for (int i = 0; i < size; i++) {
+            x[i] -= shift;
+        }
+    }
+
+    /**
+     * @return The number of walkers.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param i The index of the walker.
+     * @return The x coordinate of the walker's left edge.
+     */
+    public float getX(int i) {
+        return x[i];
+    }
+
+    /**
+     * @param i The index of the walker.
+     * @return The y coordinate of the walker's top edge.
+     */
+    public float getY(int i) {
+        return y[i];
+    }
+
+    /**
+     * @param i The index of the walker.
+     * @return The current frame of the walker's walking animation.
+     */
+    public int getFrame(int i) {
+        return frame[i];
+    }
+
+    /**
+     * @param i The index of the walker.
+     * @return True if the walker is heading left, false otherwise.
+     */
+    public boolean isHeadingLeft(int i) {
+        return heading[i] < 0;
+    }
+
+    /**
+     * @param i The index of the walker.
+     * @return True if the walker is resting, false if it is walking.
+     */
+    public boolean isResting(int i) {
+        return resting[i];
+    }
+
+    /**
+     * Draws the time until a walker turns around.
+     *
+     * @return The time until the next turn, in seconds.
+     */
+    private float nextTurnTime() {
+        return MIN_TURN_TIME + random.nextFloat() * (MAX_TURN_TIME - MIN_TURN_TIME);
+    }
+
+    /**
+     * Doubles the capacity of the state arrays.
+     */
+    private void grow() {
+        int capacity = Math.max(1, x.length * 2);
+        x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity);
+        velocityX = Arrays.copyOf(velocityX, capacity);
+        velocityY = Arrays.copyOf(velocityY, capacity);
+        heading = Arrays.copyOf(heading, capacity);
+        energy = Arrays.copyOf(energy, capacity);
+        turnTimeLeft = Arrays.copyOf(turnTimeLeft, capacity);
+        frameTime = Arrays.copyOf(frameTime, capacity);
+        frame = Arrays.copyOf(frame, capacity);
+        resting = Arrays.copyOf(resting, capacity);
+    }
+}
@@ -0,0 +1,100 @@
+package pepse.world.npc;
+
+import danogl.GameObject;
+import danogl.collisions.Layer;
+import danogl.gui.rendering.Renderable;
+import danogl.util.Vector2;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ * Materializes the walkers of a WalkerSwarm near the camera as GameObjects, so only they are rendered.
+ * The GameObjects are pooled and only carry the visuals; they are reassigned to whichever walkers are in
+ * range on every update, and added to or removed from the game only when the number of walkers in range
+ * changes.
+ */
+public class WalkerViews {
+
+    /**
+     * The layer of the walkers' GameObjects, drawn behind the avatar and colliding with nothing
+     */
+    public static final int WALKERS_LAYER = Layer.DEFAULT - 1;
+
+    private final WalkerSwarm swarm;
+    private final Renderable[] walkFrames; // The walking animation frames, by frame index
+    private final Renderable restFrame; // The frame shown while resting
+    private final List<GameObject> views = new ArrayList<>(); // Pooled views, the first activeCount live
+    private int activeCount = 0;
+
+    /**
+     * Constructs a WalkerViews.
+     *
+     * @param swarm      The walkers to materialize.
+     * @param walkFrames The walking animation frames, one per walking animation frame of the swarm.
+     * @param restFrame  The frame shown while a walker is resting.
+     */
+    public WalkerViews(WalkerSwarm swarm, Renderable[] walkFrames, Renderable restFrame) {
+        this.swarm = swarm;
+        this.walkFrames = walkFrames;
+        this.restFrame = restFrame;
+    }
+
+    /**
+     * Shows the walkers within a range of x coordinates, and hides all others.
+     *
+     * @param minX         The minimal x coordinate to show walkers at.
+     * @param maxX         The maximal x coordinate to show walkers at.
+     * @param addObject    A BiConsumer that accepts a GameObject and an Integer representing the layer
+     *                     to which the object should be added in the GameObjectCollection.
+     * @param removeObject A BiConsumer that accepts a GameObject and an Integer representing the layer
+     *                     to which the object should be removed from in the GameObjectCollection.
+     */
+    public void update(float minX, float maxX, BiConsumer<GameObject, Integer> addObject,
+                       BiConsumer<GameObject, Integer> removeObject) {
+        int shown = 0;
+        for (int i = 0; i < swarm.size(); i++) {
+            float x = swarm.getX(i);
+            if (x + WalkerSwarm.WALKER_WIDTH < minX || x > maxX) {
+                continue;
+            }
+            GameObject view = viewAt(shown++, addObject);
+            view.setTopLeftCorner(new Vector2(x, swarm.getY(i)));
+            Renderable renderable = swarm.isResting(i) ? restFrame : walkFrames[swarm.getFrame(i)];
+            if (view.renderer().getRenderable() != renderable) {
+                view.renderer().setRenderable(renderable);
+            }
+            if (view.renderer().isFlippedHorizontally() != swarm.isHeadingLeft(i)) {
+                view.renderer().setIsFlippedHorizontally(swarm.isHeadingLeft(i));
+            }
+        }
+
+        // Hide the views no longer needed, keeping them for later
+        while (activeCount > shown) {
+            removeObject.accept(views.get(--activeCount), WALKERS_LAYER);
+        }
+    }
+
+    /**
+     * Retrieves a live view, adding views to the game as needed.
+     *
+     * @param index     The index of the view.
+     * @param addObject A BiConsumer that accepts a GameObject and an Integer representing the layer
+     *                  to which the object should be added in the GameObjectCollection.
+     * @return The view.
+     */
+    private GameObject viewAt(int index, BiConsumer<GameObject, Integer> addObject) {
+        if (index < activeCount) {
+            return views.get(index);
+        }
+        if (index == views.size()) {
+            views.add(new GameObject(Vector2.ZERO,
+                    new Vector2(WalkerSwarm.WALKER_WIDTH, WalkerSwarm.WALKER_HEIGHT), restFrame));
+        }
+        GameObject view = views.get(index);
+        addObject.accept(view, WALKERS_LAYER);
+        activeCount++;
+        return view;
+    }
+}
@@ -0,0 +1,53 @@
+package pepse.world.save;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Replaces save files atomically: the new content is written to a temporary file next to the target, forced
+ * to the storage device, then moved over the target in one step. A crash while saving leaves either the old
+ * file or the new one, never a partly written file.
+ */
+final class AtomicFile {
+
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    // Prevent instantiation
+    private AtomicFile() {
+        throw new UnsupportedOperationException("AtomicFile class cannot be instantiated");
+    }
+
+    /**
+     * Writes a file, replacing any existing one atomically.
+     *
+     * @param path    The path of the file.
+     * @param buffers The content of the file, from the current position to the limit of every buffer.
+     * @return The number of bytes written.
+     * @throws IOException If the file cannot be written.
+     */
+    static long write(Path path, ByteBuffer... buffers) throws IOException {
+        Path tempPath = path.resolveSibling(path.getFileName() + TEMP_SUFFIX);
+        long written = 0;
+        try (FileChannel channel = FileChannel.open(tempPath, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (ByteBuffer buffer : buffers) {
+                while (buffer.hasRemaining()) {
+                    written += channel.write(buffer);
+                }
+            }
+            channel.force(true);
+        }
+        try {
+            Files.move(tempPath, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return written;
+    }
+}
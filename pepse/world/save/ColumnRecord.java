@@ -0,0 +1,200 @@
+package pepse.world.save;
+
+import pepse.world.ColumnEdits;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The saved state of a single world column: the changes made to the column's tree and terrain since it was
+ * generated. Only columns that differ from procedural generation get a record.
+ * <p>
+ * Binary layout, big-endian:
+ * <pre>
+ * byte  flags            bit 0: the column has a tree state, bit 1: the column has terrain edits
+ * int   trunkRgb         (tree state only)
+ * byte  fruitsCount      (tree state only)
+ * per fruit:
+ *   byte  exists
+ *   int   rgb
+ *   float respawnTimeLeft
+ * terrain edits          (terrain edits only) as encoded by ColumnEdits
+ * </pre>
+ */
+public class ColumnRecord {
+
+    private static final byte TREE_FLAG = 1;
+    private static final byte EDITS_FLAG = 2;
+    private static final int TREE_HEADER_BYTES = Integer.BYTES + Byte.BYTES;
+    private static final int FRUIT_BYTES = Byte.BYTES + Integer.BYTES + Float.BYTES;
+
+    private final boolean treeState; // Whether the record holds the state of the column's tree
+    private final int trunkRgb;
+    private final boolean[] fruitsExist;
+    private final int[] fruitsRgb;
+    private final float[] fruitsRespawnTimeLeft;
+    private final ColumnEdits edits; // The terrain edits of the column, or null
+
+    /**
+     * Constructs a ColumnRecord holding the state of the column's tree.
+     *
+     * @param trunkRgb              The RGB color of the trunk.
+     * @param fruitsExist           Whether each fruit exists.
+     * @param fruitsRgb             The RGB color of each fruit.
+     * @param fruitsRespawnTimeLeft The time left until each eaten fruit respawns, in seconds.
+     */
+    public ColumnRecord(int trunkRgb, boolean[] fruitsExist, int[] fruitsRgb, float[] fruitsRespawnTimeLeft) {
+        this(true, trunkRgb, fruitsExist, fruitsRgb, fruitsRespawnTimeLeft, null);
+    }
+
+    /**
+     * Constructs a ColumnRecord.
+     *
+     * @param treeState             Whether the record holds the state of the column's tree.
+     * @param trunkRgb              The RGB color of the trunk.
+     * @param fruitsExist           Whether each fruit exists.
+     * @param fruitsRgb             The RGB color of each fruit.
+     * @param fruitsRespawnTimeLeft The time left until each eaten fruit respawns, in seconds.
+     * @param edits                 The terrain edits of the column, or null.
+     */
+    private ColumnRecord(boolean treeState, int trunkRgb, boolean[] fruitsExist, int[] fruitsRgb,
+                         float[] fruitsRespawnTimeLeft, ColumnEdits edits) {
+        this.treeState = treeState;
+        this.trunkRgb = trunkRgb;
+        this.fruitsExist = fruitsExist;
+        this.fruitsRgb = fruitsRgb;
+        this.fruitsRespawnTimeLeft = fruitsRespawnTimeLeft;
+        this.edits = edits;
+    }
+
+    /**
+     * Creates a record holding only the terrain edits of a column.
+     *
+     * @param edits The terrain edits of the column.
+     * @return The new record.
+     */
+    public static ColumnRecord ofEdits(ColumnEdits edits) {
+        return new ColumnRecord(false, 0, new boolean[0], new int[0], new float[0], edits);
+    }
+
+    /**
+     * Creates a copy of this record with different terrain edits.
+     *
+     * @param edits The terrain edits of the column, or null for none.
+     * @return The new record.
+     */
+    public ColumnRecord withEdits(ColumnEdits edits) {
+        return new ColumnRecord(treeState, trunkRgb, fruitsExist, fruitsRgb, fruitsRespawnTimeLeft, edits);
+    }
+
+    /**
+     * @return Whether the record holds the state of the column's tree.
+     */
+    public boolean hasTreeState() {
+        return treeState;
+    }
+
+    /**
+     * @return The terrain edits of the column, or null if the record has none.
+     */
+    public ColumnEdits getEdits() {
+        return edits;
+    }
+
+    /**
+     * @return The RGB color of the trunk.
+     */
+    public int getTrunkRgb() {
+        return trunkRgb;
+    }
+
+    /**
+     * @return The number of fruits in the record.
+     */
+    public int getFruitsCount() {
+        return fruitsExist.length;
+    }
+
+    /**
+     * @param index The index of the fruit.
+     * @return Whether the fruit exists.
+     */
+    public boolean fruitExists(int index) {
+        return fruitsExist[index];
+    }
+
+    /**
+     * @param index The index of the fruit.
+     * @return The RGB color of the fruit.
+     */
+    public int getFruitRgb(int index) {
+        return fruitsRgb[index];
+    }
+
+    /**
+     * @param index The index of the fruit.
+     * @return The time left until the fruit respawns, in seconds.
+     */
+    public float getFruitRespawnTimeLeft(int index) {
+        return fruitsRespawnTimeLeft[index];
+    }
+
+    /**
+     * Computes the size of the encoded record.
+     *
+     * @return The number of bytes write will put.
+     */
+    public int encodedSize() {
+        int size = Byte.BYTES;
+        if (treeState) {
+            size += TREE_HEADER_BYTES + fruitsExist.length * FRUIT_BYTES;
+        }
+        if (edits != null) {
+            size += edits.encodedSize();
+        }
+        return size;
+    }
+
+    /**
+     * Encodes the record into the buffer, at its current position.
+     *
+     * @param buffer The buffer to write to.
+     */
+    public void write(ByteBuffer buffer) {
+        buffer.put((byte) ((treeState ? TREE_FLAG : 0) | (edits != null ? EDITS_FLAG : 0)));
+        if (treeState) {
+            buffer.putInt(trunkRgb);
+            buffer.put((byte) fruitsExist.length);
+            for (int i = 0; i < fruitsExist.length; i++) {
+                buffer.put((byte) (fruitsExist[i] ? 1 : 0));
+                buffer.putInt(fruitsRgb[i]);
+                buffer.putFloat(fruitsRespawnTimeLeft[i]);
+            }
+        }
+        if (edits != null) {
+            edits.write(buffer);
+        }
+    }
+
+    /**
+     * Decodes a record from the buffer, at its current position.
+     *
+     * @param buffer The buffer to read from.
+     * @return The decoded record.
+     */
+    public static ColumnRecord read(ByteBuffer buffer) {
+        byte flags = buffer.get();
+        boolean treeState = (flags & TREE_FLAG) != 0;
+        int trunkRgb = treeState ? buffer.getInt() : 0;
+        int fruitsCount = treeState ? Byte.toUnsignedInt(buffer.get()) : 0;
+        boolean[] fruitsExist = new boolean[fruitsCount];
+        int[] fruitsRgb = new int[fruitsCount];
+        float[] fruitsRespawnTimeLeft = new float[fruitsCount];
+        for (int i = 0; i < fruitsCount; i++) {
+            fruitsExist[i] = buffer.get() != 0;
+            fruitsRgb[i] = buffer.getInt();
+            fruitsRespawnTimeLeft[i] = buffer.getFloat();
+        }
+        ColumnEdits edits = (flags & EDITS_FLAG) != 0 ? ColumnEdits.read(buffer) : null;
+        return new ColumnRecord(treeState, trunkRgb, fruitsExist, fruitsRgb, fruitsRespawnTimeLeft, edits);
+    }
+}
@@ -0,0 +1,234 @@
+package pepse.world.save;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Reads and writes region files: the saved state of a fixed-size group of consecutive world columns.
+ * <p>
+ * Binary layout, big-endian:
+ * <pre>
+ * int   magic             "PEPR"
+ * short version
+ * byte  flags             bit 0: the data section is deflate-compressed
+ * byte  reserved
+ * int   regionIndex
+ * int   dataLength        length of the uncompressed data section
+ * REGION_COLUMNS x (int offset, int length)
+ *                         per column index, the position of its record in the uncompressed data section,
+ *                         a length of 0 meaning the column has no record
+ * data section            the column records, compressed as a whole if the compression flag is set
+ * </pre>
+ * Uncompressed regions are read straight from the file's buffer.
+ */
+public final class RegionFile {
+
+    /**
+     * The number of columns in a region
+     */
+    public static final int REGION_COLUMNS = 32;
+
+    private static final int MAGIC = 0x50455052; // "PEPR"
+    private static final short VERSION = 2;
+    private static final short OLDEST_READABLE_VERSION = 1; // Version 1 records never have terrain edits
+    private static final byte COMPRESSED_FLAG = 1;
+    private static final int HEADER_BYTES = Integer.BYTES + Short.BYTES + 2 * Byte.BYTES + 2 * Integer.BYTES
+            + REGION_COLUMNS * 2 * Integer.BYTES;
+    private static final int MAX_DEFLATE_RATIO = 1032; // Highest ratio deflate can compress data by
+    private static final String FILE_PREFIX = "r.";
+    private static final String FILE_SUFFIX = ".region";
+
+    // Prevent instantiation
+    private RegionFile() {
+        throw new UnsupportedOperationException("RegionFile class cannot be instantiated");
+    }
+
+    /**
+     * Retrieves the path of a region's file in the save directory.
+     *
+     * @param directory   The save directory.
+     * @param regionIndex The index of the region.
+     * @return The path of the region file.
+     */
+    public static Path pathOf(Path directory, int regionIndex) {
+        return directory.resolve(FILE_PREFIX + regionIndex + FILE_SUFFIX);
+    }
+
+    /**
+     * Writes a region file, replacing any existing one atomically.
+     *
+     * @param path        The path of the region file.
+     * @param regionIndex The index of the region.
+     * @param records     The records of the region, mapped by column index within the region.
+     * @param compress    Whether to compress the data section.
+     * @return The size of the file, in bytes.
+     * @throws IOException If the file cannot be written.
+     */
+    public static long write(Path path, int regionIndex, Map<Integer, ColumnRecord> records, boolean compress)
+            throws IOException {
+        int dataLength = 0;
+        for (ColumnRecord record : records.values()) {
+            dataLength += record.encodedSize();
+        }
+
+        // Encode the records and their index
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        ByteBuffer data = ByteBuffer.allocate(dataLength);
+        header.putInt(MAGIC).putShort(VERSION).put(compress ? COMPRESSED_FLAG : 0).put((byte) 0)
+                .putInt(regionIndex).putInt(dataLength);
+        for (int column = 0; column < REGION_COLUMNS; column++) {
+            ColumnRecord record = records.get(column);
+            if (record == null) {
+                header.putInt(0).putInt(0);
+                continue;
+            }
+            header.putInt(data.position()).putInt(record.encodedSize());
+            record.write(data);
+        }
+        header.flip();
+        data.flip();
+
+        if (compress) {
+            data = deflate(data);
+        }
+
+        return AtomicFile.write(path, header, data);
+    }
+
+    /**
+     * Reads a region file.
+     *
+     * @param path The path of the region file.
+     * @return The records of the region, mapped by column index within the region. Empty if the region
+     * file doesn't exist.
+     * @throws IOException If the file cannot be read or is malformed.
+     */
+    public static Map<Integer, ColumnRecord> read(Path path) throws IOException {
+        Map<Integer, ColumnRecord> records = new HashMap<>();
+        if (!Files.exists(path)) {
+            return records;
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Corrupt region file: " + path);
+            }
+            // Read into the heap rather than mapping the file: on Windows a mapped file can't be replaced
+            // until the mapping is garbage collected, which would fail the next save of the region
+            ByteBuffer file = ByteBuffer.allocate((int) channel.size());
+            while (file.hasRemaining() && channel.read(file) >= 0) {
+                // Keep reading until the buffer is full or the file ends
+            }
+            file.flip();
+            if (file.limit() < HEADER_BYTES) {
+                throw new IOException("Corrupt region file: " + path);
+            }
+            int magic = file.getInt();
+            short version = file.getShort();
+            if (magic != MAGIC || version < OLDEST_READABLE_VERSION || version > VERSION) {
+                throw new IOException("Not a supported region file: " + path);
+            }
+            boolean compressed = (file.get() & COMPRESSED_FLAG) != 0;
+            file.get(); // Reserved
+            file.getInt(); // Region index
+            int dataLength = file.getInt();
+
+            ByteBuffer data = file.slice(HEADER_BYTES, file.limit() - HEADER_BYTES);
+            long maxDataLength = compressed ? (long) data.remaining() * MAX_DEFLATE_RATIO : data.remaining();
+            if (dataLength < 0 || dataLength > maxDataLength) {
+                throw new IOException("Corrupt region file: " + path);
+            }
+            if (compressed) {
+                data = inflate(data, dataLength);
+            }
+
+            for (int column = 0; column < REGION_COLUMNS; column++) {
+                int offset = file.getInt();
+                int length = file.getInt();
+                if (offset < 0 || length < 0 || offset > data.limit() - length) {
+                    throw new IOException("Corrupt region file: " + path);
+                }
+                if (length > 0) {
+                    records.put(column, readRecord(data.slice(offset, length), path));
+                }
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Reads a column record from its slice of the data section.
+     *
+     * @param buffer The slice holding the record.
+     * @param path   The path of the region file, for the error message.
+     * @return The record.
+     * @throws IOException If the record doesn't fit in its slice or is malformed.
+     */
+    private static ColumnRecord readRecord(ByteBuffer buffer, Path path) throws IOException {
+        try {
+            return ColumnRecord.read(buffer);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+            throw new IOException("Corrupt region file: " + path, e);
+        }
+    }
+
+    /**
+     * Compresses a buffer with deflate.
+     *
+     * @param data The buffer to compress, from its position to its limit.
+     * @return The compressed data, ready to be read.
+     */
+    private static ByteBuffer deflate(ByteBuffer data) {
+        Deflater deflater = new Deflater();
+        deflater.setInput(data);
+        deflater.finish();
+        ByteBuffer compressed = ByteBuffer.allocate(data.remaining() + 64);
+        while (!deflater.finished()) {
+            if (!compressed.hasRemaining()) {
+                compressed = ByteBuffer.allocate(compressed.capacity() * 2).put(compressed.flip());
+            }
+            deflater.deflate(compressed);
+        }
+        deflater.end();
+        return compressed.flip();
+    }
+
+    /**
+     * Decompresses a deflate-compressed buffer.
+     *
+     * @param data       The compressed buffer, from its position to its limit.
+     * @param dataLength The length of the uncompressed data.
+     * @return The uncompressed data, ready to be read.
+     * @throws IOException If the data is corrupted.
+     */
+    private static ByteBuffer inflate(ByteBuffer data, int dataLength) throws IOException {
+        Inflater inflater = new Inflater();
+        inflater.setInput(data);
+        ByteBuffer uncompressed = ByteBuffer.allocate(dataLength);
+        try {
+            while (uncompressed.hasRemaining() && !inflater.finished()) {
+                if (inflater.inflate(uncompressed) == 0 && inflater.needsInput()) {
+                    throw new IOException("Truncated region data");
+                }
+                if (inflater.needsDictionary()) {
+                    throw new IOException("Corrupted region data");
+                }
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupted region data", e);
+        } finally {
+            inflater.end();
+        }
+        return uncompressed.flip();
+    }
+}
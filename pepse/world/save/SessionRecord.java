@@ -0,0 +1,105 @@
+package pepse.world.save;
+
+import danogl.util.Vector2;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The saved state of a play session that isn't tied to any world column: the avatar's position and energy.
+ * <p>
+ * Binary layout, big-endian:
+ * <pre>
+ * int   magic       "PEPS"
+ * short version
+ * int   seed
+ * float avatarX
+ * float avatarY
+ * float energy
+ * </pre>
+ */
+public class SessionRecord {
+
+    private static final int MAGIC = 0x50455053; // "PEPS"
+    private static final short VERSION = 1;
+    private static final int RECORD_BYTES = Integer.BYTES + Short.BYTES + Integer.BYTES + 3 * Float.BYTES;
+
+    private final int seed;
+    private final Vector2 avatarTopLeftCorner;
+    private final float energy;
+
+    /**
+     * Constructs a SessionRecord.
+     *
+     * @param seed                The seed of the world.
+     * @param avatarTopLeftCorner The top-left corner position of the avatar.
+     * @param energy              The energy of the avatar.
+     */
+    public SessionRecord(int seed, Vector2 avatarTopLeftCorner, float energy) {
+        this.seed = seed;
+        this.avatarTopLeftCorner = avatarTopLeftCorner;
+        this.energy = energy;
+    }
+
+    /**
+     * @return The seed of the world.
+     */
+    public int getSeed() {
+        return seed;
+    }
+
+    /**
+     * @return The top-left corner position of the avatar.
+     */
+    public Vector2 getAvatarTopLeftCorner() {
+        return avatarTopLeftCorner;
+    }
+
+    /**
+     * @return The energy of the avatar.
+     */
+    public float getEnergy() {
+        return energy;
+    }
+
+    /**
+     * Writes the record to a file, replacing any existing one atomically.
+     *
+     * @param path The path of the session file.
+     * @return The size of the file, in bytes.
+     * @throws IOException If the file cannot be written.
+     */
+    public long write(Path path) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(RECORD_BYTES);
+        buffer.putInt(MAGIC).putShort(VERSION).putInt(seed)
+                .putFloat(avatarTopLeftCorner.x()).putFloat(avatarTopLeftCorner.y()).putFloat(energy);
+        buffer.flip();
+        return AtomicFile.write(path, buffer);
+    }
+
+    /**
+     * Reads a record from a file.
+     *
+     * @param path The path of the session file.
+     * @return The session record.
+     * @throws IOException If the file cannot be read or is malformed.
+     */
+    public static SessionRecord read(Path path) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(RECORD_BYTES);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // Keep reading until the record is complete or the file ends
+            }
+        }
+        buffer.flip();
+        if (buffer.remaining() < RECORD_BYTES || buffer.getInt() != MAGIC || buffer.getShort() != VERSION) {
+            throw new IOException("Not a supported session file: " + path);
+        }
+        int seed = buffer.getInt();
+        Vector2 avatarTopLeftCorner = new Vector2(buffer.getFloat(), buffer.getFloat());
+        return new SessionRecord(seed, avatarTopLeftCorner, buffer.getFloat());
+    }
+}
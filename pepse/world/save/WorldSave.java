@@ -0,0 +1,334 @@
+package pepse.world.save;
+
+import pepse.world.Block;
+import pepse.world.ColumnEdits;
+import pepse.world.TerrainEdits;
+import pepse.world.trees.Tree;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Saves and resumes the state of the world in a save directory holding a session file and region files.
+ * Only columns that differ from procedural generation, through their tree or through terrain edits, are
+ * stored, and only the regions near the avatar are read, on a background thread, as the avatar moves. Saves
+ * are written on the same background thread. All other methods must be called on the game thread.
+ */
+public class WorldSave {
+
+    private static final String SESSION_FILE = "session.dat";
+
+    private final Path directory;
+    private final boolean compress; // Whether region files are written compressed
+    private final TerrainEdits terrainEdits; // The live terrain edits, saved and restored with the regions
+    private final Consumer<Integer> onEditsLoaded; // Reports columns whose saved edits were restored
+    private final Consumer<String> onLoadError; // Reports regions that could not be read
+    private final ExecutorService ioExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "world-save-io");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Map<Integer, ColumnRecord> records = new HashMap<>(); // Known tree records, by column x
+    private final Map<Integer, Tree> pendingTrees = new HashMap<>(); // Live trees waiting for their region
+    private final Set<Integer> requestedRegions = new HashSet<>(); // Regions loaded or being loaded
+    private final Set<Integer> loadedRegions = new HashSet<>(); // Regions merged into records
+    private final Set<Integer> dirtyRegions = new HashSet<>(); // Regions with records changed since saving
+    private final Queue<LoadedRegion> completedLoads = new ConcurrentLinkedQueue<>();
+    private final Queue<Integer> failedRegions = new ConcurrentLinkedQueue<>(); // Regions to save again
+    private final List<CompletableFuture<Void>> pendingLoads = new ArrayList<>();
+
+    /**
+     * Constructs a WorldSave.
+     *
+     * @param directory     The save directory.
+     * @param compress      Whether region files are written compressed.
+     * @param terrainEdits  The live terrain edits, which saved edits are restored into.
+     * @param onEditsLoaded A Consumer that receives, on the game thread, the x coordinate of every column
+     *                      whose saved edits were restored, so it can be rebuilt if it is live.
+     * @param onLoadError   A Consumer that receives, on the game thread, a message for every region file that
+     *                      could not be read. Such regions are treated as empty.
+     */
+    public WorldSave(Path directory, boolean compress, TerrainEdits terrainEdits,
+                     Consumer<Integer> onEditsLoaded, Consumer<String> onLoadError) {
+        this.directory = directory;
+        this.compress = compress;
+        this.terrainEdits = terrainEdits;
+        this.onEditsLoaded = onEditsLoaded;
+        this.onLoadError = onLoadError;
+    }
+
+    /**
+     * Reads the saved session, if there is one for the given seed.
+     *
+     * @param seed The seed of the current world.
+     * @return The saved session, or null if there is no saved session for the seed.
+     * @throws IOException If the session file exists but cannot be read.
+     */
+    public SessionRecord loadSession(int seed) throws IOException {
+        Path sessionPath = directory.resolve(SESSION_FILE);
+        if (!Files.exists(sessionPath)) {
+            return null;
+        }
+        SessionRecord session = SessionRecord.read(sessionPath);
+        return session.getSeed() == seed ? session : null;
+    }
+
+    /**
+     * Starts loading, on a background thread, the regions within the given distance of a position that
+     * weren't loaded yet.
+     *
+     * @param x        The x coordinate to load around.
+     * @param distance The distance from x to load, in pixels.
+     */
+    public void requestRegionsAround(float x, float distance) {
+        int firstRegion = regionOf(columnOf(x - distance));
+        int lastRegion = regionOf(columnOf(x + distance));
+        for (int region = firstRegion; region <= lastRegion; region++) {
+            if (requestedRegions.add(region)) {
+                int regionIndex = region;
+                pendingLoads.add(CompletableFuture.runAsync(() -> {
+                    Path regionPath = RegionFile.pathOf(directory, regionIndex);
+                    try {
+                        completedLoads.add(new LoadedRegion(regionIndex, RegionFile.read(regionPath), null));
+                    } catch (IOException e) {
+                        completedLoads.add(new LoadedRegion(regionIndex, new HashMap<>(),
+                                "Failed to read " + regionPath + ": " + e.getMessage()));
+                    } catch (RuntimeException e) {
+                        // A malformed file that slipped past the checks must not leave the region pending
+                        completedLoads.add(new LoadedRegion(regionIndex, new HashMap<>(),
+                                "Failed to read " + regionPath + ": " + e));
+                    }
+                }, ioExecutor));
+            }
+        }
+    }
+
+    /**
+     * Blocks until all requested regions are loaded, then merges them. Meant for startup, before the first
+     * frame is drawn.
+     */
+    public void awaitRequestedRegions() {
+        CompletableFuture.allOf(pendingLoads.toArray(new CompletableFuture<?>[0])).join();
+        pollLoadedRegions();
+    }
+
+    /**
+     * Merges the regions whose loading completed, applies their records to live trees that were waiting
+     * for them, and restores their terrain edits.
+     */
+    public void pollLoadedRegions() {
+        pendingLoads.removeIf(CompletableFuture::isDone);
+        LoadedRegion loadedRegion;
+        while ((loadedRegion = completedLoads.poll()) != null) {
+            int regionIndex = loadedRegion.index;
+            if (loadedRegion.error != null) {
+                onLoadError.accept(loadedRegion.error);
+            }
+            loadedRegions.add(regionIndex);
+            for (Map.Entry<Integer, ColumnRecord> entry : loadedRegion.records.entrySet()) {
+                int x = (regionIndex * RegionFile.REGION_COLUMNS + entry.getKey()) * Block.BLOCK_SIZE;
+                ColumnRecord record = entry.getValue();
+
+                // Records taken from live trees since the load started are newer than the file
+                if (record.hasTreeState()) {
+                    records.putIfAbsent(x, record.withEdits(null));
+                    Tree tree = pendingTrees.remove(x);
+                    if (tree != null) {
+                        tree.applyRecord(records.get(x));
+                    }
+                }
+
+                // So are edits made since the load started
+                if (record.getEdits() != null && terrainEdits.putSaved(x, record.getEdits())) {
+                    onEditsLoaded.accept(x);
+                }
+            }
+            pendingTrees.keySet().removeIf(x -> regionOf(columnOf(x)) == regionIndex);
+        }
+    }
+
+    /**
+     * Restores the saved state of a tree that was just created. If its region is still loading, the state
+     * is applied once the region arrives.
+     *
+     * @param x    The x coordinate of the tree's column.
+     * @param tree The newly created tree.
+     */
+    public void restoreTree(int x, Tree tree) {
+        if (!loadedRegions.contains(regionOf(columnOf(x)))) {
+            pendingTrees.put(x, tree);
+            return;
+        }
+        ColumnRecord record = records.get(x);
+        if (record != null) {
+            tree.applyRecord(record);
+        }
+    }
+
+    /**
+     * Keeps the state of a tree that is about to be removed from the game, so it can be restored and saved.
+     *
+     * @param x    The x coordinate of the tree's column.
+     * @param tree The tree being removed.
+     */
+    public void storeTree(int x, Tree tree) {
+        pendingTrees.remove(x);
+        ColumnRecord record = tree.toRecord();
+        if (record != null) {
+            records.put(x, record);
+            dirtyRegions.add(regionOf(columnOf(x)));
+        }
+    }
+
+    /**
+     * Saves the session and every region changed since the last save, through its trees or its terrain
+     * edits, without blocking on the disk. A snapshot of the changed regions is taken at once: the states of
+     * live trees are taken first, records are immutable and terrain edits are shared copy-on-write, so only
+     * references are collected. The snapshot is then encoded and written on the background thread, where
+     * regions that were never loaded are first merged with their file, and every file is replaced
+     * atomically. Regions that fail to save are saved again by the next save.
+     *
+     * @param session     The session state to save.
+     * @param forEachTree A Consumer that runs a given BiConsumer on the x coordinate and tree of every live
+     *                    tree.
+     * @return A future completed with the metrics of the save once its files are written, or completed
+     *         exceptionally if a file cannot be read or written.
+     */
+    public CompletableFuture<SaveMetrics> save(SessionRecord session,
+                                               Consumer<BiConsumer<Integer, Tree>> forEachTree) {
+        long snapshotStart = System.nanoTime();
+        forEachTree.accept((x, tree) -> {
+            if (!pendingTrees.containsKey(x)) {
+                storeTree(x, tree);
+            }
+        });
+        for (int x : terrainEdits.drainChangedColumns()) {
+            dirtyRegions.add(regionOf(columnOf(x)));
+        }
+        Integer failedRegion;
+        while ((failedRegion = failedRegions.poll()) != null) {
+            dirtyRegions.add(failedRegion);
+        }
+
+        List<RegionSnapshot> snapshots = new ArrayList<>(dirtyRegions.size());
+        for (int region : dirtyRegions) {
+            Map<Integer, ColumnRecord> regionRecords = new HashMap<>();
+            int firstColumnX = region * RegionFile.REGION_COLUMNS * Block.BLOCK_SIZE;
+            for (int column = 0; column < RegionFile.REGION_COLUMNS; column++) {
+                int x = firstColumnX + column * Block.BLOCK_SIZE;
+                ColumnRecord treeRecord = records.get(x);
+                ColumnEdits columnEdits = terrainEdits.snapshot(x);
+                if (treeRecord != null) {
+                    regionRecords.put(column, treeRecord.withEdits(columnEdits));
+                } else if (columnEdits != null) {
+                    regionRecords.put(column, ColumnRecord.ofEdits(columnEdits));
+                }
+            }
+            snapshots.add(new RegionSnapshot(region, regionRecords, !loadedRegions.contains(region)));
+        }
+        dirtyRegions.clear();
+        long snapshotNanos = System.nanoTime() - snapshotStart;
+        return CompletableFuture.supplyAsync(() -> writeSnapshot(session, snapshots, snapshotNanos),
+                ioExecutor);
+    }
+
+    /**
+     * Writes a snapshot of the session and of the changed regions, on the background thread.
+     *
+     * @param session       The session state to save.
+     * @param snapshots     The changed regions.
+     * @param snapshotNanos The time the game thread spent taking the snapshot, in nanoseconds.
+     * @return The metrics of the save.
+     * @throws CompletionException If a file cannot be read or written, caused by the failure.
+     */
+    private SaveMetrics writeSnapshot(SessionRecord session, List<RegionSnapshot> snapshots,
+                                      long snapshotNanos) {
+        long writeStart = System.nanoTime();
+        long bytes = 0;
+        int written = 0;
+        try {
+            Files.createDirectories(directory);
+            for (RegionSnapshot snapshot : snapshots) {
+                Path regionPath = RegionFile.pathOf(directory, snapshot.index);
+                Map<Integer, ColumnRecord> regionRecords = snapshot.records;
+                if (snapshot.mergeWithFile) {
+                    regionRecords = RegionFile.read(regionPath);
+                    regionRecords.putAll(snapshot.records);
+                }
+                bytes += RegionFile.write(regionPath, snapshot.index, regionRecords, compress);
+                written++;
+            }
+            bytes += session.write(directory.resolve(SESSION_FILE));
+        } catch (IOException | RuntimeException e) {
+            // A malformed region file fails the merge with unchecked exceptions, which must not drop the
+            // regions left to write either
+            for (RegionSnapshot snapshot : snapshots.subList(written, snapshots.size())) {
+                failedRegions.add(snapshot.index);
+            }
+            throw new CompletionException(e);
+        }
+        return new SaveMetrics(snapshots.size(), bytes, snapshotNanos, System.nanoTime() - writeStart);
+    }
+
+    /**
+     * Converts an x coordinate to a column index.
+     *
+     * @param x The x coordinate.
+     * @return The index of the column containing x.
+     */
+    private static int columnOf(float x) {
+        return (int) Math.floor(x / Block.BLOCK_SIZE);
+    }
+
+    /**
+     * Converts a column index to a region index.
+     *
+     * @param column The column index.
+     * @return The index of the region containing the column.
+     */
+    private static int regionOf(int column) {
+        return Math.floorDiv(column, RegionFile.REGION_COLUMNS);
+    }
+
+    /**
+     * The records of a region, read on the background thread.
+     *
+     * @param index   The index of the region.
+     * @param records The records of the region, mapped by column index within the region.
+     * @param error   A message describing why the region file could not be read, or null.
+     */
+    private record LoadedRegion(int index, Map<Integer, ColumnRecord> records, String error) {
+    }
+
+    /**
+     * The records of a changed region, taken on the game thread to be written on the background thread.
+     *
+     * @param index         The index of the region.
+     * @param records       The records of the region, mapped by column index within the region.
+     * @param mergeWithFile Whether the region was never loaded, so its file holds records to keep.
+     */
+    private record RegionSnapshot(int index, Map<Integer, ColumnRecord> records, boolean mergeWithFile) {
+    }
+
+    /**
+     * The metrics of a completed save.
+     *
+     * @param regions       The number of region files written.
+     * @param bytes         The total size of the files written, in bytes.
+     * @param snapshotNanos The time the game thread spent taking the snapshot, in nanoseconds.
+     * @param writeNanos    The time the background thread spent encoding and writing the files, in
+     *                      nanoseconds.
+     */
+    public record SaveMetrics(int regions, long bytes, long snapshotNanos, long writeNanos) {
+    }
+}
@@ -0,0 +1,250 @@
+package pepse.world.trees;
+
+import danogl.GameObject;
+import danogl.util.Vector2;
+import pepse.world.SleepableGameObject;
+
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Represents all the leaves of a tree as a single GameObject. The leaves are baked into one renderable that
+ * draws them in a single pass, and the canopy sways as a whole by turning and scaling that renderable.
+ * Leaves are turned one by one only while an effect needs it, such as the rotation when the avatar jumps.
+ * The swaying is computed from a single phase accumulator rather than from transitions, so a canopy that
+ * slept off-screen can jump straight to the right phase when it wakes up. The leaves are kept in order of
+ * their distance from the canopy's center, so a growing canopy fills in from the middle by drawing only its
+ * first leaves.
+ */
+public class Canopy extends SleepableGameObject {
+
+    private static final String CANOPY_TAG = "canopy";
+    // Leaves used to sway by 7 degrees and grow by a factor of 1.2 each around their own center. The canopy
+    // turns and grows as a whole around its center, which moves its outer leaves much further, so it sways
+    // less
+    private static final float START_SWAY_ANGLE = -3f; // Canopy angle at one end of the sway
+    private static final float END_SWAY_ANGLE = 3f; // Canopy angle at the other end of the sway
+    private static final float SCALE_FACTOR = 1.05f; // Canopy size at the end of the sway
+    private static final float SWAYING_DURATION = 2f;
+    private static final float SWAYING_PERIOD = 2 * SWAYING_DURATION; // Back and forth
+    private static final float HALF_FACTOR = 0.5f;
+    private static final Vector2 LEAF_CENTER = Vector2.ONES.mult(Tree.LEAF_SIZE * HALF_FACTOR); // In a leaf
+    private static final float ANGLES_TO_ROTATE = 90f; // Rotation of every leaf when the avatar jumps
+    private static final float ROTATION_DURATION = 2f;
+    private static final float SAPLING_LEAVES = 0.15f; // Share of the leaves a sapling's canopy shows
+
+    private final Vector2 restDimensions; // The dimensions of the canopy at rest
+    private final int[] leavesX; // Top-left corners of the leaves, relative to the canopy's top-left corner
+    private final int[] leavesY;
+    private final Color[] leavesColors;
+    private int visibleLeaves; // Number of leaves drawn, from the middle of the canopy out
+    private boolean swaying; // Whether the swaying animation should run
+    private float swayingTime; // Time into the swaying period, negative before the swaying starts
+    private float leafAngle; // The angle of every leaf around its own center
+    private float rotationStartAngle; // The leaf angle the current rotation started at
+    private float rotationTime = ROTATION_DURATION; // Time into the current rotation, over when complete
+
+    /**
+     * Constructs a Canopy object of baked leaves.
+     *
+     * @param topLeftCorner The top-left corner of the area of the leaves.
+     * @param dimensions    The dimensions of the area of the leaves.
+     * @param leaves        The top-left corners of the leaves, in world coordinates.
+     * @param colors        The colors of the leaves, in the same order.
+     * @param swaying       Whether the canopy should run its swaying animation.
+     */
+    public Canopy(Vector2 topLeftCorner, Vector2 dimensions, List<Vector2> leaves, List<Color> colors,
+                  boolean swaying) {
+        super(topLeftCorner, dimensions, null);
+        this.restDimensions = dimensions;
+        this.leavesX = new int[leaves.size()];
+        this.leavesY = new int[leaves.size()];
+        this.leavesColors = new Color[leaves.size()];
+        this.visibleLeaves = leaves.size();
+
+        // Order the leaves from the middle of the canopy out
+        Vector2 center = dimensions.mult(HALF_FACTOR).add(topLeftCorner).subtract(LEAF_CENTER);
+        Integer[] order = new Integer[leaves.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingDouble(i -> leaves.get(i).subtract(center).magnitude()));
+        for (int i = 0; i < order.length; i++) {
+            leavesX[i] = Math.round(leaves.get(order[i]).x() - topLeftCorner.x());
+            leavesY[i] = Math.round(leaves.get(order[i]).y() - topLeftCorner.y());
+            leavesColors[i] = colors.get(order[i]);
+        }
+        this.swaying = swaying;
+        renderer().setRenderable(this::renderLeaves);
+        setTag(CANOPY_TAG);
+
+        // Random delay before the swaying starts
+        this.swayingTime = -new Random().nextFloat() * SWAYING_DURATION;
+        addComponent(this::animate);
+    }
+
+    /**
+     * Advances the swaying of the canopy and the rotation of its leaves.
+     *
+     * @param deltaTime The time elapsed since the last update in seconds.
+     */
+    private void animate(float deltaTime) {
+        if (rotationTime < ROTATION_DURATION) {
+            rotationTime = Math.min(ROTATION_DURATION, rotationTime + deltaTime);
+            leafAngle = rotationStartAngle + ANGLES_TO_ROTATE * rotationTime / ROTATION_DURATION;
+            if (rotationTime == ROTATION_DURATION) {
+                // Square leaves look the same after a quarter turn, so they go back to being drawn unturned
+                leafAngle %= ANGLES_TO_ROTATE;
+            }
+        }
+
+        if (!swaying) {
+            return;
+        }
+        advanceSwayingTime(deltaTime);
+        if (swayingTime < 0) {
+            return;
+        }
+
+        // Linear back and forth interpolation over the swaying period, around the canopy's center
+        float phase = swayingTime / SWAYING_DURATION;
+        float t = phase <= 1 ? phase : 2 - phase;
+        renderer().setRenderableAngle(START_SWAY_ANGLE + (END_SWAY_ANGLE - START_SWAY_ANGLE) * t);
+        setSize(1 + (SCALE_FACTOR - 1) * t);
+    }
+
+    /**
+     * Advances the swaying time, wrapping it around the swaying period once the swaying started.
+     *
+     * @param deltaTime The time to advance by, in seconds.
+     */
+    private void advanceSwayingTime(float deltaTime) {
+        swayingTime += deltaTime;
+        if (swayingTime >= SWAYING_PERIOD) {
+            swayingTime %= SWAYING_PERIOD;
+        }
+    }
+
+    /**
+     * Scales the canopy around its center.
+     *
+     * @param scale The size of the canopy relative to its size at rest.
+     */
+    private void setSize(float scale) {
+        Vector2 center = getCenter();
+        setDimensions(restDimensions.mult(scale));
+        setCenter(center);
+    }
+
+    /**
+     * Turns the swaying animation on or off. A canopy that stops swaying returns to its resting angle and
+     * size, and resumes from where it stopped when turned back on.
+     *
+     * @param swaying Whether the canopy should run its swaying animation.
+     */
+    public void setSwaying(boolean swaying) {
+        if (this.swaying == swaying) {
+            return;
+        }
+        this.swaying = swaying;
+        if (!swaying) {
+            renderer().setRenderableAngle(0);
+            setSize(1);
+        }
+    }
+
+    /**
+     * Catches up on the time slept by moving the swaying phase forward analytically. Only a single update
+     * of at most a rotation's duration is run, so an ongoing rotation completes.
+     *
+     * @param sleptTime The time the canopy slept, in seconds.
+     */
+    @Override
+    protected void catchUp(float sleptTime) {
+        float updateTime = Math.min(sleptTime, ROTATION_DURATION);
+        if (swaying) {
+            advanceSwayingTime(sleptTime - updateTime);
+        }
+        super.catchUp(updateTime);
+    }
+
+    /**
+     * Shows the share of the leaves a canopy has at a stage of its tree's growth.
+     *
+     * @param growth How grown the tree is, from 0 for a sapling to 1 for a fully grown tree.
+     */
+    public void setGrowth(float growth) {
+        visibleLeaves = Math.round(leavesX.length * (SAPLING_LEAVES + (1 - SAPLING_LEAVES) * growth));
+    }
+
+    /**
+     * Initiates the rotation animation of every leaf, relative to its current angle.
+     */
+    public void rotateLeaves() {
+        rotationStartAngle = leafAngle;
+        rotationTime = 0;
+    }
+
+    /**
+     * Draws all leaves, turned and scaled with the canopy. Every leaf is also turned around its own center
+     * while the leaves rotate.
+     *
+     * @param graphics              The graphics to draw with.
+     * @param topLeftCorner         The top-left corner of the canopy on screen.
+     * @param dimensions            The dimensions of the canopy on screen.
+     * @param rotation              The angle of the canopy in degrees.
+     * @param isFlippedHorizontally Whether the canopy is flipped horizontally, ignored.
+     * @param isFlippedVertically   Whether the canopy is flipped vertically, ignored.
+     * @param opaqueness            The opaqueness of the canopy, ignored.
+     */
+    private void renderLeaves(Graphics2D graphics, Vector2 topLeftCorner, Vector2 dimensions, double rotation,
+                              boolean isFlippedHorizontally, boolean isFlippedVertically,
+                              double opaqueness) {
+        if (visibleLeaves == 0) {
+            return;
+        }
+        AffineTransform previousTransform = graphics.getTransform();
+        Color previousColor = graphics.getColor();
+
+        // Draw in the canopy's coordinates at rest, around its center
+        float halfWidth = restDimensions.x() / 2;
+        float halfHeight = restDimensions.y() / 2;
+        graphics.translate(topLeftCorner.x() + dimensions.x() / 2, topLeftCorner.y() + dimensions.y() / 2);
+        graphics.rotate(Math.toRadians(rotation));
+        graphics.scale(dimensions.x() / restDimensions.x(), dimensions.y() / restDimensions.y());
+        graphics.translate(-halfWidth, -halfHeight);
+
+        int leafSize = Tree.LEAF_SIZE;
+        double leafRadians = Math.toRadians(leafAngle);
+        for (int i = 0; i < visibleLeaves; i++) {
+            graphics.setColor(leavesColors[i]);
+            if (leafRadians == 0) {
+                graphics.fillRect(leavesX[i], leavesY[i], leafSize, leafSize);
+            } else {
+                double leafCenterX = leavesX[i] + leafSize / 2.0;
+                double leafCenterY = leavesY[i] + leafSize / 2.0;
+                graphics.rotate(leafRadians, leafCenterX, leafCenterY);
+                graphics.fillRect(leavesX[i], leavesY[i], leafSize, leafSize);
+                graphics.rotate(-leafRadians, leafCenterX, leafCenterY);
+            }
+        }
+
+        graphics.setColor(previousColor);
+        graphics.setTransform(previousTransform);
+    }
+
+    /**
+     * Check if the canopy should collide with another GameObject.
+     *
+     * @param other The other GameObject to check for collision.
+     * @return False, as leaves should not collide with other GameObjects.
+     */
+    @Override
+    public boolean shouldCollideWith(GameObject other) {
+        return false;
+    }
+}
@@ -3,32 +3,58 @@ package pepse.world.trees;
 import danogl.GameObject;
 import danogl.util.Vector2;
 import pepse.world.Avatar;
+import pepse.world.AwakeRange;
+import pepse.world.Biome;
 import pepse.world.Block;
+import pepse.world.daynight.WorldClock;
 
 import java.util.*;
 import java.util.function.BiConsumer;
 import java.util.function.Function;
+import java.util.function.IntFunction;
 
 /**
  * The Flora class manages the creation and removal of trees within a specified range.
- * It uses a function to determine ground height and a seed for random generation.
+ * It uses functions to determine the ground height and the biome of a column, and a seed for random
+ * generation.
+ * Coordinates are relative to a world origin that can be moved with rebase; every tree is generated from its
+ * world x coordinate, so moving the origin doesn't change the trees. Trees grow from saplings over days of
+ * the world clock, a bounded slice of them per frame.
  */
 public class Flora {
 
-    private static final float TREES_DENSITY = 0.1f; // Density of trees in the environment
     private final Function<Float, Float> getGroundHeightAt; // Func to get ground height at a given x coord
+    private final IntFunction<Biome> getBiomeAt; // Func to get the biome of the column at a given x coord
     private final TreeMap<Integer, Tree> mappedTrees = new TreeMap<>(); // Map to store trees by their x coord
     private final int seed; // Seed for random generation
+    private final WorldClock clock; // Tells the fruits of the trees when to respawn
+    private final TreeGrowth growth; // Grows the live trees that are still saplings
+    private float leavesDensityFactor = 1f; // Factor applied to the leaves density of new trees
+    private boolean leavesSwaying = true; // Whether the leaves of the trees sway
+    private boolean farLeavesShown = true; // Whether trees outside the awake range keep their leaves
+    private boolean farFruitsShown = true; // Whether trees outside the awake range keep their fruits
+    private final AwakeRange awakeRange = new AwakeRange(); // Range of columns whose trees are awake
+    private int originX = 0; // The world x coord of x = 0, which the trees are generated at
+    private BiConsumer<Integer, Tree> onTreeAdded = (x, tree) -> { }; // Called when a tree enters the game
+    private BiConsumer<Integer, Tree> onTreeRemoved = (x, tree) -> { }; // Called when a tree leaves the game
+    private BiConsumer<Integer, Tree> onTreeGrown = (x, tree) -> { }; // Called when a tree grows a stage
 
     /**
      * Constructs a Flora object.
      *
      * @param getGroundHeightAt A function that returns ground height at a given x coordinate.
+     * @param getBiomeAt        A function that returns the biome of the column at a given x coordinate.
      * @param seed              The seed for random tree generation.
+     * @param clock             The clock that times the respawn of eaten fruits.
      */
-    public Flora(Function<Float, Float> getGroundHeightAt, int seed) {
+    public Flora(Function<Float, Float> getGroundHeightAt, IntFunction<Biome> getBiomeAt, int seed,
+                 WorldClock clock) {
         this.getGroundHeightAt = getGroundHeightAt;
+        this.getBiomeAt = getBiomeAt;
         this.seed = seed;
+        this.clock = clock;
+        this.growth = new TreeGrowth(seed, clock,
+                (worldX, tree) -> onTreeGrown.accept(worldX - originX, tree));
     }
 
     /**
@@ -46,16 +72,74 @@ public class Flora {
 
         // Generate trees within the specified normalized range
         for (int x = normalizedMinX; x < normalizedMaxX; x += Block.BLOCK_SIZE) {
-            Random random = new Random(Objects.hash(x, seed));
-            if (random.nextFloat() < TREES_DENSITY) {
-                Tree tree = new Tree(new Vector2(x, getGroundHeightAt.apply((float) x)), random);
+            Tree tree = createTreeInColumn(x);
+            if (tree != null) {
                 newTrees.add(tree);
                 mappedTrees.put(x, tree);
+                growth.track(tree, originX + x);
+                onTreeAdded.accept(x, tree);
             }
         }
         return newTrees;
     }
 
+    /**
+     * Creates the tree of a single column, if the column has one, without registering it. The tree is
+     * created at the growth stage it reached by the current clock time.
+     * Columns are independent of each other given the seed, so this method may be called concurrently.
+     *
+     * @param x The x coordinate of the column, a multiple of the block size.
+     * @return The newly created tree, or null if the column has no tree.
+     */
+    public Tree createTreeInColumn(int x) {
+        Random random = new Random(Objects.hash(originX + x, seed));
+        Biome biome = getBiomeAt.apply(x);
+        if (random.nextFloat() >= biome.getTreesDensity()) {
+            return null;
+        }
+        int growthStage = growth.stageAt(growth.plantedTimeOf(originX + x));
+        Tree tree = new Tree(new Vector2(x, getGroundHeightAt.apply((float) x)), random, biome,
+                leavesDensityFactor, leavesSwaying, growthStage, clock);
+        if (!awakeRange.contains(x)) {
+            tree.setAsleep(true);
+            tree.initPartsShown(farLeavesShown, farFruitsShown);
+        }
+        return tree;
+    }
+
+    /**
+     * Finds the trunk height of the tree a column would have, without creating it.
+     *
+     * @param x The x coordinate of the column, a multiple of the block size.
+     * @return The height of the tree's trunk, or 0 if the column has no tree.
+     */
+    public int trunkHeightInColumn(int x) {
+        Random random = new Random(Objects.hash(originX + x, seed));
+        Biome biome = getBiomeAt.apply(x);
+        if (random.nextFloat() >= biome.getTreesDensity()) {
+            return 0;
+        }
+        return Tree.drawTrunkHeight(random, biome);
+    }
+
+    /**
+     * Registers a tree created by createTreeInColumn, adds it to the game object's collection, and
+     * registers it as a listener of the avatar.
+     *
+     * @param x         The x coordinate of the tree's column.
+     * @param tree      The tree to add.
+     * @param addObject A BiConsumer that accepts a GameObject and an Integer representing the layer
+     *                  to which the object should be added in the GameObjectCollection.
+     * @param avatar    The avatar object to add as a listener to the tree.
+     */
+    public void addCreatedTree(int x, Tree tree, BiConsumer<GameObject, Integer> addObject, Avatar avatar) {
+        mappedTrees.put(x, tree);
+        growth.track(tree, originX + x);
+        onTreeAdded.accept(x, tree);
+        tree.addTree(addObject);
+        avatar.addListener(tree);
+    }
+
     /**
      * Removes a tree at a specific x coordinate.
      *
@@ -67,6 +151,8 @@ public class Flora {
     public void removeTreeInColumn(int x, BiConsumer<GameObject, Integer> removeObject, Avatar avatar) {
         Tree tree = mappedTrees.remove(x);
         if (tree != null) {
+            growth.untrack(tree);
+            onTreeRemoved.accept(x, tree);
             tree.removeTree(removeObject);
             avatar.removeListener(tree);
         }
@@ -101,6 +187,151 @@ public class Flora {
         }
     }
 
+    /**
+     * Grows the next slice of the live trees that are still saplings. Should be called once per frame;
+     * its cost is bounded however many trees are growing.
+     *
+     * @param addObject A BiConsumer that accepts a GameObject and an Integer representing the layer
+     *                  to which the object should be added in the GameObjectCollection.
+     */
+    public void growTrees(BiConsumer<GameObject, Integer> addObject) {
+        growth.grow(addObject);
+    }
+
+    /**
+     * Retrieves the number of live trees that are still growing.
+     *
+     * @return The number of growing trees.
+     */
+    public int getGrowingTreesCount() {
+        return growth.getGrowingCount();
+    }
+
+    /**
+     * Sets the factor applied to the leaves density of trees created from now on.
+     * Trees that already exist keep their leaves.
+     *
+     * @param leavesDensityFactor The factor applied to the default leaves density.
+     */
+    public void setLeavesDensityFactor(float leavesDensityFactor) {
+        this.leavesDensityFactor = leavesDensityFactor;
+    }
+
+    /**
+     * Turns the shaking animation of the leaves on or off, for existing trees and trees created from now on.
+     *
+     * @param leavesSwaying Whether the leaves should run their shaking animation.
+     */
+    public void setLeavesSwaying(boolean leavesSwaying) {
+        this.leavesSwaying = leavesSwaying;
+        for (Tree tree : mappedTrees.values()) {
+            tree.setLeavesSwaying(leavesSwaying);
+        }
+    }
+
+    /**
+     * Sets the callbacks run when a tree enters or leaves the game, such as restoring and keeping its
+     * saved state.
+     *
+     * @param onTreeAdded   A BiConsumer called with the x coordinate and tree of every new tree.
+     * @param onTreeRemoved A BiConsumer called with the x coordinate and tree of every removed tree.
+     */
+    public void setTreeCallbacks(BiConsumer<Integer, Tree> onTreeAdded,
+                                 BiConsumer<Integer, Tree> onTreeRemoved) {
+        this.onTreeAdded = onTreeAdded;
+        this.onTreeRemoved = onTreeRemoved;
+    }
+
+    /**
+     * Sets the callback run when a live tree grows to another stage, changing the height of its trunk.
+     *
+     * @param onTreeGrown A BiConsumer called with the x coordinate and tree of every tree that grew.
+     */
+    public void setOnTreeGrown(BiConsumer<Integer, Tree> onTreeGrown) {
+        this.onTreeGrown = onTreeGrown;
+    }
+
+    /**
+     * Retrieves the live tree in a column.
+     *
+     * @param x The x coordinate of the column.
+     * @return The tree in the column, or null if the column has no live tree.
+     */
+    public Tree getTreeInColumn(int x) {
+        return mappedTrees.get(x);
+    }
+
+    /**
+     * Runs an action on every tree currently in the game.
+     *
+     * @param action A BiConsumer called with the x coordinate and tree of every tree.
+     */
+    public void forEachTree(BiConsumer<Integer, Tree> action) {
+        mappedTrees.forEach(action);
+    }
+
+    /**
+     * Moves the range of columns whose trees are awake. Trees outside of it skip their updates until they
+     * come back into the range, and lose the parts that are evicted from far trees.
+     *
+     * @param minX         The minimal awake x coordinate (inclusive).
+     * @param maxX         The maximal awake x coordinate (exclusive).
+     * @param addObject    A BiConsumer that accepts a GameObject and an Integer representing the layer
+     *                     to which the object should be added in the GameObjectCollection.
+     * @param removeObject A BiConsumer that accepts a GameObject and an Integer representing the layer
+     *                     to which the object should be removed from in the GameObjectCollection.
+     */
+    public void setAwakeRange(int minX, int maxX, BiConsumer<GameObject, Integer> addObject,
+                              BiConsumer<GameObject, Integer> removeObject) {
+        awakeRange.moveTo(normalizeCoordinate(minX), normalizeCoordinate(maxX), mappedTrees,
+                (tree, asleep) -> {
+                    tree.setAsleep(asleep);
+                    tree.setPartsShown(!asleep || farLeavesShown, !asleep || farFruitsShown,
+                            addObject, removeObject);
+                });
+    }
+
+    /**
+     * Chooses which parts trees outside the awake range keep, for existing trees and trees created from now
+     * on. Trees inside the awake range always keep all their parts.
+     *
+     * @param leavesShown  Whether far trees keep their leaves.
+     * @param fruitsShown  Whether far trees keep their fruits.
+     * @param addObject    A BiConsumer that accepts a GameObject and an Integer representing the layer
+     *                     to which the object should be added in the GameObjectCollection.
+     * @param removeObject A BiConsumer that accepts a GameObject and an Integer representing the layer
+     *                     to which the object should be removed from in the GameObjectCollection.
+     */
+    public void setFarPartsShown(boolean leavesShown, boolean fruitsShown,
+                                 BiConsumer<GameObject, Integer> addObject,
+                                 BiConsumer<GameObject, Integer> removeObject) {
+        farLeavesShown = leavesShown;
+        farFruitsShown = fruitsShown;
+        mappedTrees.forEach((x, tree) -> {
+            if (!awakeRange.contains(x)) {
+                tree.setPartsShown(leavesShown, fruitsShown, addObject, removeObject);
+            }
+        });
+    }
+
+    /**
+     * Moves the world origin to the right, moving every live tree to the left by the same distance so it
+     * stays in place in the world. The trees generated from now on are the same as they would have been.
+     *
+     * @param shift The distance to move the origin, a multiple of the block size.
+     */
+    public void rebase(int shift) {
+        originX += shift;
+        Vector2 offset = new Vector2(-shift, 0);
+        Map<Integer, Tree> trees = new TreeMap<>(mappedTrees);
+        mappedTrees.clear();
+        trees.forEach((x, tree) -> {
+            tree.translate(offset);
+            mappedTrees.put(x - shift, tree);
+        });
+        awakeRange.rebase(shift);
+    }
+
     /**
      * Normalizes the x coordinate to the nearest block size multiple.
      *
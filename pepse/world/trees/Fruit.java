@@ -2,35 +2,45 @@ package pepse.world.trees;
 
 import danogl.GameObject;
 import danogl.collisions.Collision;
-import danogl.components.ScheduledTask;
 import danogl.gui.rendering.OvalRenderable;
 import danogl.util.Vector2;
-import pepse.util.PepseConstants;
 import pepse.world.Avatar;
+import pepse.world.SleepableGameObject;
+import pepse.world.daynight.WorldClock;
+
+import java.awt.*;
 
 /**
  * Represents a fruit GameObject in the game world that grants energy to the Avatar upon collision.
- * The fruit respawns after a specified delay once consumed.
+ * The fruit respawns a full day-night cycle of the world clock after it is consumed.
  */
-public class Fruit extends GameObject {
+public class Fruit extends SleepableGameObject {
 
     private static final String FRUIT_TAG = "fruit"; // Tag identifying the fruit GameObject
     private static final float ENERGY_BONUS = 10f; // Energy bonus granted to Avatar upon collision
-    private static final float RESPAWN_DELAY_SECONDS = PepseConstants.DAY_CYCLE; // Respawn delay in seconds
-    private final OvalRenderable ovalRenderable; // Renderable component for the fruit
+    private OvalRenderable ovalRenderable; // Renderable component for the fruit
+    private Color color; // The color of the fruit
+    private final WorldClock clock; // The clock that times the respawn
     private Boolean existsFlag = true; // Flag indicating if the fruit exists in the game world
+    private double respawnTime; // The clock time at which an eaten fruit respawns
 
     /**
-     * Constructs a Fruit object with specified position, dimensions, and renderable component.
+     * Constructs a Fruit object with specified position, dimensions, and color.
      *
-     * @param topLeftCorner  The top-left corner position of the fruit.
-     * @param dimensions     The dimensions (size) of the fruit.
-     * @param ovalRenderable The OvalRenderable component for rendering the fruit.
+     * @param topLeftCorner The top-left corner position of the fruit.
+     * @param dimensions    The dimensions (size) of the fruit.
+     * @param color         The color of the fruit.
+     * @param clock         The clock that times the respawn.
      */
-    public Fruit(Vector2 topLeftCorner, Vector2 dimensions, OvalRenderable ovalRenderable) {
-        super(topLeftCorner, dimensions, ovalRenderable);
-        this.ovalRenderable = ovalRenderable;
+    public Fruit(Vector2 topLeftCorner, Vector2 dimensions, Color color, WorldClock clock) {
+        super(topLeftCorner, dimensions, new OvalRenderable(color));
+        this.ovalRenderable = (OvalRenderable) renderer().getRenderable();
+        this.color = color;
+        this.clock = clock;
         setTag(FRUIT_TAG);
+
+        // Check the clock every frame, and once more when waking up, so a sleeping fruit catches up
+        addComponent(deltaTime -> updateRespawn());
     }
 
     /**
@@ -42,6 +52,49 @@ public class Fruit extends GameObject {
         return existsFlag;
     }
 
+    /**
+     * Retrieves the color of the fruit.
+     *
+     * @return The color of the fruit.
+     */
+    public Color getColor() {
+        return color;
+    }
+
+    /**
+     * Changes the color of the fruit. An eaten fruit shows the new color once it respawns.
+     *
+     * @param color The new color of the fruit.
+     */
+    public void setColor(Color color) {
+        this.color = color;
+        this.ovalRenderable = new OvalRenderable(color);
+        if (existsFlag) {
+            renderer().setRenderable(ovalRenderable);
+        }
+    }
+
+    /**
+     * Retrieves the time left until the fruit respawns.
+     *
+     * @return The time left in clock seconds, or 0 if the fruit exists.
+     */
+    public float getRespawnTimeLeft() {
+        return existsFlag ? 0 : (float) Math.max(0, respawnTime - clock.getTime());
+    }
+
+    /**
+     * Restores a previously saved state of the fruit.
+     *
+     * @param exists          Whether the fruit exists.
+     * @param respawnTimeLeft The time left until the fruit respawns in clock seconds, if it doesn't exist.
+     */
+    public void setState(boolean exists, float respawnTimeLeft) {
+        this.existsFlag = exists;
+        this.respawnTime = clock.getTime() + respawnTimeLeft;
+        renderer().setRenderable(exists ? ovalRenderable : null);
+    }
+
     /**
      * Handles collision events with other GameObjects.
      *
@@ -74,17 +127,20 @@ public class Fruit extends GameObject {
     }
 
     /**
-     * Respawns the fruit after a specified delay.
-     * Sets exists to false, removes renderable, and schedules respawn after delay.
+     * Respawns the fruit after a full day-night cycle.
+     * Sets exists to false, removes renderable, and sets the clock time of the respawn.
      */
     private void respawnFruit() {
-        existsFlag = false;
-        renderer().setRenderable(null);  // Remove renderable
-        new ScheduledTask(this, RESPAWN_DELAY_SECONDS, false, // Respawn after 30 seconds
-                () -> {
-                    existsFlag = true;
-                    renderer().setRenderable(ovalRenderable); // Restore renderable
-                });
+        setState(false, clock.getCycleLength());
+    }
+
+    /**
+     * Restores an eaten fruit once the clock reaches its respawn time.
+     */
+    private void updateRespawn() {
+        if (!existsFlag && clock.getTime() >= respawnTime) {
+            setState(true, 0);
+        }
     }
 
     /**
@@ -97,4 +153,3 @@ public class Fruit extends GameObject {
         return gameObject.getTag().equals(Avatar.AVATAR_TAG);
     }
 }
-
@@ -2,20 +2,23 @@ package pepse.world.trees;
 
 import danogl.GameObject;
 import danogl.collisions.Layer;
-import danogl.gui.rendering.OvalRenderable;
 import danogl.gui.rendering.RectangleRenderable;
 import danogl.util.Vector2;
 import pepse.util.ColorSupplier;
 import pepse.world.AvatarListener;
+import pepse.world.Biome;
+import pepse.world.daynight.WorldClock;
+import pepse.world.save.ColumnRecord;
 
 import java.awt.*;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
 import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 /**
- * Represents a tree in the game world, consisting of a trunk, leaves, and fruits.
+ * Represents a tree in the game world, consisting of a trunk, a canopy of leaves, and fruits.
  * Provides methods to add and remove the tree from a GameObjectCollection, and handles animations
  * when the Avatar jumps near the tree.
  */
@@ -27,12 +30,8 @@ public class Tree implements AvatarListener {
     public static final int LEAF_SIZE = 30;
     // Trunk constants
     private static final Color TRUNK_COLOR = new Color(100, 50, 20); // Color of the tree trunk
-    private static final int MIN_TRUNK_HEIGHT = 120; // Minimum height of the tree trunk
-    private static final int ADDED_TRUNK_HEIGHT = 150; // Additional height for the tree trunk
     private static final int TRUNK_WIDTH = 30; // Width of the tree trunk
-    // Leaves constants
-    private static final Color LEAF_COLOR = new Color(50, 200, 30); // Color of the tree leaves
-    private static final float LEAVES_DENSITY = 0.5f; // Density of leaves on the tree
+    private static final float SAPLING_TRUNK_SCALE = 0.25f; // Trunk height of a sapling, relative to grown
 
     // Fruits constants
     private static final Color INITIAL_FRUIT_COLOR = new Color(220, 20, 60); // Initial Color of fruit
@@ -48,21 +47,47 @@ public class Tree implements AvatarListener {
     private static final int FRUIT_SIZE = (int) (LEAF_SIZE * 0.8); // Size of each fruit
     private static final float FRUITS_DENSITY = 0.02f; // Density of fruits on the tree
 
-    private final List<Leaf> leaves = new ArrayList<>(); // List to hold all leaves of the tree
+    private Canopy canopy; // All leaves of the tree, as a single object
     private final List<Fruit> fruits = new ArrayList<>(); // List to hold all fruits of the tree
     private final Random rand; // Random object for generating random values
+    private final Biome biome; // The biome the tree grows in, which shapes and colors it
+    private final float leavesDensity; // Density of leaves on this tree
+    private final boolean leavesSwaying; // Whether the leaves are created swaying
+    private final WorldClock clock; // The clock that times the respawn of the fruits
     private Trunk trunk; // The trunk of the tree
+    private int grownTrunkHeight; // The height of the trunk once the tree is fully grown
+    private int growthStage = TreeGrowth.FULL_GROWTH_STAGE; // The growth stage the tree shows
+    private Color trunkColor; // The current color of the trunk
+    private boolean recolored; // Whether the tree changed colors since it was generated
+    private boolean leavesShown = true; // Whether the leaves are in the game object's collection
+    private boolean fruitsShown = true; // Whether the fruits are in the game object's collection
 
     /**
      * Constructs a Tree object with a random position and initializes its trunk, leaves, and fruits.
+     * The tree is generated fully grown and then shrunk to its growth stage, so it draws the same values
+     * from its Random at every stage.
      *
-     * @param bottomLeftCorner The bottom-left corner position where the tree's trunk starts.
-     * @param random           The Random object used for generating random values.
+     * @param bottomLeftCorner    The bottom-left corner position where the tree's trunk starts.
+     * @param random              The Random object used for generating random values.
+     * @param biome               The biome the tree grows in.
+     * @param leavesDensityFactor The factor applied to the default leaves density.
+     * @param leavesSwaying       Whether the leaves should run their shaking animation.
+     * @param growthStage         The growth stage of the tree, from 0 for a sapling to fully grown.
+     * @param clock               The clock that times the respawn of eaten fruits.
      */
-    public Tree(Vector2 bottomLeftCorner, Random random) {
+    public Tree(Vector2 bottomLeftCorner, Random random, Biome biome, float leavesDensityFactor,
+                boolean leavesSwaying, int growthStage, WorldClock clock) {
         this.rand = random;
+        this.biome = biome;
+        this.leavesDensity = biome.getLeavesDensity() * leavesDensityFactor;
+        this.leavesSwaying = leavesSwaying;
+        this.clock = clock;
         createTrunk(bottomLeftCorner);
-        createLeavesAndFruits(createTopTreeBox());
+        createCanopyAndFruits(createTopTreeBox());
+        if (growthStage < TreeGrowth.FULL_GROWTH_STAGE) {
+            this.growthStage = growthStage;
+            shrinkToGrowthStage(bottomLeftCorner);
+        }
     }
 
     /**
@@ -71,10 +96,75 @@ public class Tree implements AvatarListener {
      * @param bottomLeftCorner The bottom-left corner position where the trunk starts.
      */
     private void createTrunk(Vector2 bottomLeftCorner) {
-        int trunkHeight = rand.nextInt(ADDED_TRUNK_HEIGHT) + MIN_TRUNK_HEIGHT;
-        trunk = new Trunk(bottomLeftCorner.subtract(new Vector2(0, trunkHeight)),
+        grownTrunkHeight = drawTrunkHeight(rand, biome);
+        trunkColor = ColorSupplier.approximateColor(TRUNK_COLOR);
+        trunk = newTrunk(bottomLeftCorner, grownTrunkHeight);
+    }
+
+    /**
+     * Creates a trunk of the tree's color standing on the specified position.
+     *
+     * @param bottomLeftCorner The bottom-left corner position where the trunk starts.
+     * @param trunkHeight      The height of the trunk.
+     * @return The new trunk.
+     */
+    private Trunk newTrunk(Vector2 bottomLeftCorner, int trunkHeight) {
+        return new Trunk(bottomLeftCorner.subtract(new Vector2(0, trunkHeight)),
                 new Vector2(TRUNK_WIDTH, trunkHeight),
-                new RectangleRenderable(ColorSupplier.approximateColor(TRUNK_COLOR)));
+                new RectangleRenderable(trunkColor));
+    }
+
+    /**
+     * Draws the height of a tree's trunk. This is the first value a tree draws from its Random, so the
+     * height can be known without creating the tree.
+     *
+     * @param random The Random object the tree is created with.
+     * @param biome  The biome the tree grows in.
+     * @return The height of the trunk.
+     */
+    static int drawTrunkHeight(Random random, Biome biome) {
+        return random.nextInt(biome.getAddedTrunkHeight()) + biome.getMinTrunkHeight();
+    }
+
+    /**
+     * Computes the half size of the square area of a tree's leaves, centered at the top of its trunk.
+     *
+     * @param trunkHeight The height of the trunk.
+     * @return The distance from the top of the trunk to the edges of the leaves area.
+     */
+    public static int getCanopyHalfSize(int trunkHeight) {
+        return Math.round(trunkHeight / 2f / LEAF_SIZE) * LEAF_SIZE;
+    }
+
+    /**
+     * Computes how far a tree reaches above the ground.
+     *
+     * @param trunkHeight The height of the trunk.
+     * @return The height of the tree, including its leaves.
+     */
+    public static int getTreeHeight(int trunkHeight) {
+        return trunkHeight + getCanopyHalfSize(trunkHeight);
+    }
+
+    /**
+     * Paints a flat silhouette of a tree, a trunk and a single square of leaves, for seeing it from afar.
+     *
+     * @param graphics    The graphics to paint on, in world coordinates.
+     * @param x           The x coordinate of the tree's column.
+     * @param groundY     The ground height at the tree.
+     * @param trunkHeight The height of the trunk.
+     * @param biome       The biome the tree grows in.
+     */
+    public static void paintSilhouette(Graphics2D graphics, float x, float groundY, int trunkHeight,
+                                       Biome biome) {
+        int halfSize = getCanopyHalfSize(trunkHeight);
+        float topCenterX = x + TRUNK_WIDTH / 2f;
+        float topY = groundY - trunkHeight;
+        graphics.setColor(TRUNK_COLOR);
+        graphics.fill(new Rectangle.Float(x, topY, TRUNK_WIDTH, trunkHeight));
+        graphics.setColor(biome.getLeafColor());
+        graphics.fill(new Rectangle.Float(topCenterX - halfSize, topY - halfSize,
+                2 * halfSize, 2 * halfSize));
     }
 
     /**
@@ -94,23 +184,29 @@ public class Tree implements AvatarListener {
     }
 
     /**
-     * Creates leaves and fruits within the calculated top tree area based on defined densities.
+     * Creates leaves and fruits within the calculated top tree area based on defined densities, and bakes
+     * the leaves into the tree's canopy.
      *
      * @param topTreeBox The bounding box coordinates of the top tree area.
      */
-    private void createLeavesAndFruits(float[] topTreeBox) {
+    private void createCanopyAndFruits(float[] topTreeBox) {
+        List<Vector2> leaves = new ArrayList<>();
+        List<Color> leavesColors = new ArrayList<>();
         for (float i = topTreeBox[0]; i < topTreeBox[2]; i += LEAF_SIZE) {
             for (float j = topTreeBox[1]; j < topTreeBox[3]; j += LEAF_SIZE) {
-                if (rand.nextFloat() < LEAVES_DENSITY) {
-                    leaves.add(new Leaf(new Vector2(j, i), Vector2.ONES.mult(LEAF_SIZE),
-                            new RectangleRenderable(ColorSupplier.approximateColor(LEAF_COLOR))));
+                if (rand.nextFloat() < leavesDensity) {
+                    leaves.add(new Vector2(j, i));
+                    leavesColors.add(ColorSupplier.approximateColor(biome.getLeafColor()));
                 }
                 if (rand.nextFloat() < FRUITS_DENSITY) {
                     fruits.add(new Fruit(new Vector2(j, i), Vector2.ONES.mult(FRUIT_SIZE),
-                            new OvalRenderable(ColorSupplier.approximateColor(INITIAL_FRUIT_COLOR))));
+                            ColorSupplier.approximateColor(INITIAL_FRUIT_COLOR), clock));
                 }
             }
         }
+        canopy = new Canopy(new Vector2(topTreeBox[1], topTreeBox[0]),
+                new Vector2(topTreeBox[3] - topTreeBox[1], topTreeBox[2] - topTreeBox[0]),
+                leaves, leavesColors, leavesSwaying);
     }
 
     /**
@@ -121,11 +217,13 @@ public class Tree implements AvatarListener {
      */
     public void addTree(BiConsumer<GameObject, Integer> addObject) {
         addObject.accept(trunk, Layer.STATIC_OBJECTS);
-        for (Leaf leaf : leaves) {
-            addObject.accept(leaf, Layer.STATIC_OBJECTS);
+        if (leavesShown) {
+            addObject.accept(canopy, Layer.STATIC_OBJECTS);
         }
-        for (Fruit fruit : fruits) {
-            addObject.accept(fruit, Layer.STATIC_OBJECTS);
+        if (fruitsShown && isGrown()) {
+            for (Fruit fruit : fruits) {
+                addObject.accept(fruit, Layer.STATIC_OBJECTS);
+            }
         }
     }
 
@@ -137,11 +235,244 @@ public class Tree implements AvatarListener {
      */
     public void removeTree(BiConsumer<GameObject, Integer> removeObject) {
         removeObject.accept(trunk, Layer.STATIC_OBJECTS);
-        for (Leaf leaf : leaves) {
-            removeObject.accept(leaf, Layer.STATIC_OBJECTS);
+        if (leavesShown) {
+            removeObject.accept(canopy, Layer.STATIC_OBJECTS);
+        }
+        if (fruitsShown && isGrown()) {
+            for (Fruit fruit : fruits) {
+                removeObject.accept(fruit, Layer.STATIC_OBJECTS);
+            }
+        }
+    }
+
+    /**
+     * Chooses which parts of a tree that wasn't added yet will be added with it.
+     *
+     * @param leavesShown Whether the leaves are added with the tree.
+     * @param fruitsShown Whether the fruits are added with the tree.
+     */
+    void initPartsShown(boolean leavesShown, boolean fruitsShown) {
+        this.leavesShown = leavesShown;
+        this.fruitsShown = fruitsShown;
+    }
+
+    /**
+     * Adds or removes the leaves and fruits of a tree in the game, leaving its trunk in place.
+     *
+     * @param leavesShown  Whether the leaves should be in the game object's collection.
+     * @param fruitsShown  Whether the fruits should be in the game object's collection.
+     * @param addObject    A BiConsumer that accepts a GameObject and an Integer representing the layer
+     *                     to which the object should be added in the GameObjectCollection.
+     * @param removeObject A BiConsumer that accepts a GameObject and an Integer representing the layer
+     *                     to which the object should be removed from in the GameObjectCollection.
+     */
+    void setPartsShown(boolean leavesShown, boolean fruitsShown, BiConsumer<GameObject, Integer> addObject,
+                       BiConsumer<GameObject, Integer> removeObject) {
+        if (leavesShown != this.leavesShown) {
+            this.leavesShown = leavesShown;
+            (leavesShown ? addObject : removeObject).accept(canopy, Layer.STATIC_OBJECTS);
         }
+        if (fruitsShown != this.fruitsShown) {
+            this.fruitsShown = fruitsShown;
+            if (!isGrown()) {
+                return;
+            }
+            for (Fruit fruit : fruits) {
+                (fruitsShown ? addObject : removeObject).accept(fruit, Layer.STATIC_OBJECTS);
+            }
+        }
+    }
+
+    /**
+     * Retrieves the current height of the tree's trunk, which is shorter than the grown height while the tree
+     * is a sapling.
+     *
+     * @return The height of the trunk.
+     */
+    public int getTrunkHeight() {
+        return Math.round(trunk.getDimensions().y());
+    }
+
+    /**
+     * Retrieves the growth stage the tree shows.
+     *
+     * @return The growth stage, from 0 for a sapling to fully grown.
+     */
+    int getGrowthStage() {
+        return growthStage;
+    }
+
+    /**
+     * Moves the tree to a later growth stage: the trunk grows from the ground up, carrying the canopy and
+     * the fruits with its top, and the canopy fills in. The fruits join the game once the tree is fully
+     * grown.
+     *
+     * @param growthStage The new growth stage.
+     * @param addObject   A BiConsumer that accepts a GameObject and an Integer representing the layer
+     *                    to which the object should be added in the GameObjectCollection.
+     */
+    void setGrowthStage(int growthStage, BiConsumer<GameObject, Integer> addObject) {
+        boolean wasGrown = isGrown();
+        this.growthStage = growthStage;
+        applyGrowth();
+        if (!wasGrown && isGrown() && fruitsShown) {
+            for (Fruit fruit : fruits) {
+                addObject.accept(fruit, Layer.STATIC_OBJECTS);
+            }
+        }
+    }
+
+    /**
+     * Checks if the tree is fully grown.
+     *
+     * @return True if the tree is fully grown, false otherwise.
+     */
+    private boolean isGrown() {
+        return growthStage >= TreeGrowth.FULL_GROWTH_STAGE;
+    }
+
+    /**
+     * Shrinks a new, fully grown tree to its growth stage. The sapling gets a new trunk instead of resizing
+     * the grown one: resizing a game object goes through a vector danogl shares between all objects, and
+     * trees are created on several threads at once.
+     *
+     * @param bottomLeftCorner The bottom-left corner position where the tree's trunk starts.
+     */
+    private void shrinkToGrowthStage(Vector2 bottomLeftCorner) {
+        int trunkHeight = trunkHeightAtGrowthStage();
+        trunk = newTrunk(bottomLeftCorner, trunkHeight);
+        moveTopOfTheTree(grownTrunkHeight - trunkHeight);
+        canopy.setGrowth(getGrowth());
+    }
+
+    /**
+     * Sizes the trunk to the tree's growth stage, keeping its bottom on the ground, and moves the canopy and
+     * the fruits with the top of the trunk. Called on the game thread only, see shrinkToGrowthStage.
+     */
+    private void applyGrowth() {
+        int trunkHeight = trunkHeightAtGrowthStage();
+        float heightChange = trunk.getDimensions().y() - trunkHeight;
+        if (heightChange != 0) {
+            Vector2 topLeftCorner = trunk.getTopLeftCorner().add(new Vector2(0, heightChange));
+            // Resizing keeps the center of the trunk in place, so the corner is set after it
+            trunk.setDimensions(new Vector2(TRUNK_WIDTH, trunkHeight));
+            trunk.setTopLeftCorner(topLeftCorner);
+            moveTopOfTheTree(heightChange);
+        }
+        canopy.setGrowth(getGrowth());
+    }
+
+    /**
+     * Computes how far the tree grew, from 0 for a sapling to 1 for a fully grown tree.
+     *
+     * @return The growth of the tree.
+     */
+    private float getGrowth() {
+        return (float) growthStage / TreeGrowth.FULL_GROWTH_STAGE;
+    }
+
+    /**
+     * Computes the height of the trunk at the tree's growth stage.
+     *
+     * @return The height of the trunk.
+     */
+    private int trunkHeightAtGrowthStage() {
+        float trunkScale = SAPLING_TRUNK_SCALE + (1 - SAPLING_TRUNK_SCALE) * getGrowth();
+        return Math.round(grownTrunkHeight * trunkScale);
+    }
+
+    /**
+     * Moves the canopy and the fruits down, following the top of a trunk that got shorter.
+     *
+     * @param distance The distance to move down by, negative to move up.
+     */
+    private void moveTopOfTheTree(float distance) {
+        Vector2 offset = new Vector2(0, distance);
+        canopy.setTopLeftCorner(canopy.getTopLeftCorner().add(offset));
         for (Fruit fruit : fruits) {
-            removeObject.accept(fruit, Layer.STATIC_OBJECTS);
+            fruit.setTopLeftCorner(fruit.getTopLeftCorner().add(offset));
+        }
+    }
+
+    /**
+     * Turns the swaying animation of the tree's canopy on or off.
+     *
+     * @param swaying Whether the leaves should run their swaying animation.
+     */
+    public void setLeavesSwaying(boolean swaying) {
+        canopy.setSwaying(swaying);
+    }
+
+    /**
+     * Puts the trunk, leaves, and fruits of the tree to sleep, or wakes them up.
+     *
+     * @param asleep Whether the tree should sleep.
+     */
+    public void setAsleep(boolean asleep) {
+        trunk.setAsleep(asleep);
+        canopy.setAsleep(asleep);
+        for (Fruit fruit : fruits) {
+            fruit.setAsleep(asleep);
+        }
+    }
+
+    /**
+     * Moves the trunk, leaves, and fruits of the tree.
+     *
+     * @param offset The distance to move the tree by.
+     */
+    void translate(Vector2 offset) {
+        trunk.setTopLeftCorner(trunk.getTopLeftCorner().add(offset));
+        canopy.setTopLeftCorner(canopy.getTopLeftCorner().add(offset));
+        for (Fruit fruit : fruits) {
+            fruit.setTopLeftCorner(fruit.getTopLeftCorner().add(offset));
+        }
+    }
+
+    /**
+     * Runs an action on every fruit of the tree, eaten or not.
+     *
+     * @param action A Consumer called with every fruit.
+     */
+    public void forEachFruit(Consumer<Fruit> action) {
+        fruits.forEach(action);
+    }
+
+    /**
+     * Captures the state of the tree that differs from procedural generation: its colors and its fruits.
+     *
+     * @return The record of the tree's state, or null if the tree is still as it was generated.
+     */
+    public ColumnRecord toRecord() {
+        boolean fruitEaten = false;
+        boolean[] fruitsExist = new boolean[fruits.size()];
+        int[] fruitsRgb = new int[fruits.size()];
+        float[] fruitsRespawnTimeLeft = new float[fruits.size()];
+        for (int i = 0; i < fruits.size(); i++) {
+            Fruit fruit = fruits.get(i);
+            fruitsExist[i] = fruit.isExists();
+            fruitsRgb[i] = fruit.getColor().getRGB();
+            fruitsRespawnTimeLeft[i] = fruit.getRespawnTimeLeft();
+            fruitEaten |= !fruitsExist[i];
+        }
+        if (!recolored && !fruitEaten) {
+            return null;
+        }
+        return new ColumnRecord(trunkColor.getRGB(), fruitsExist, fruitsRgb, fruitsRespawnTimeLeft);
+    }
+
+    /**
+     * Restores a state of the tree captured by toRecord.
+     *
+     * @param record The record of the tree's state.
+     */
+    public void applyRecord(ColumnRecord record) {
+        recolored = true;
+        setTrunkColor(new Color(record.getTrunkRgb()));
+        for (int i = 0; i < Math.min(fruits.size(), record.getFruitsCount()); i++) {
+            Fruit fruit = fruits.get(i);
+            fruit.setColor(new Color(record.getFruitRgb(i)));
+            fruit.setState(record.fruitExists(i), record.getFruitRespawnTimeLeft(i));
         }
     }
 
@@ -149,16 +480,24 @@ public class Tree implements AvatarListener {
      * Changes the color of the tree trunk to a random color.
      */
     private void changeTrunkColor() {
-        trunk.renderer().setRenderable(new RectangleRenderable(ColorSupplier.approximateColor(TRUNK_COLOR)));
+        setTrunkColor(ColorSupplier.approximateColor(TRUNK_COLOR));
+    }
+
+    /**
+     * Sets the color of the tree trunk.
+     *
+     * @param color The new color of the trunk.
+     */
+    private void setTrunkColor(Color color) {
+        trunkColor = color;
+        trunk.renderer().setRenderable(new RectangleRenderable(color));
     }
 
     /**
      * Initiates rotation animation for all leaves of the tree.
      */
     private void rotateLeaves() {
-        for (Leaf leaf : leaves) {
-            leaf.rotateLeaves();
-        }
+        canopy.rotateLeaves();
     }
 
     /**
@@ -167,8 +506,7 @@ public class Tree implements AvatarListener {
     private void changeFruitColor() {
         for (Fruit fruit : fruits) {
             if (fruit.isExists()) {
-                fruit.renderer().setRenderable(
-                        new OvalRenderable(ColorSupplier.approximateColor(getRandomFruitColor())));
+                fruit.setColor(ColorSupplier.approximateColor(getRandomFruitColor()));
             }
         }
     }
@@ -188,6 +526,7 @@ public class Tree implements AvatarListener {
      */
     @Override
     public void onJump() {
+        recolored = true;
         changeTrunkColor();
         rotateLeaves();
         changeFruitColor();
@@ -0,0 +1,172 @@
+package pepse.world.trees;
+
+import danogl.GameObject;
+import pepse.world.daynight.WorldClock;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Random;
+import java.util.function.BiConsumer;
+
+/**
+ * Grows trees from saplings over days of the world clock. The growth stage of a tree is a function of the
+ * clock time and of the time its column was planted, which is drawn from the seed, so a tree that streams
+ * back in is created at its current stage at once, however long it was away. Only live trees that are still
+ * growing are kept, in dense arrays of their planting times and stages, and every frame a bounded slice of
+ * them is visited in round-robin; a tree's game objects are only touched when its stage changes.
+ */
+class TreeGrowth {
+
+    /**
+     * The growth stage of a fully grown tree; saplings start at stage 0
+     */
+    static final int FULL_GROWTH_STAGE = 8;
+    private static final int GROWTH_CYCLES = 4; // Day-night cycles a sapling takes to grow fully
+    private static final float PLANTING_SPREAD = 2f; // Oldest tree age at clock time 0, in growth durations
+    private static final int PLANTING_SALT = 0x5eed; // Keeps planting times apart from the trees' own draws
+    private static final int TREES_PER_FRAME = 16; // Growing trees visited every frame
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final int seed; // Seed for the planting times
+    private final WorldClock clock; // The clock the trees grow by
+    private final BiConsumer<Integer, Tree> onGrown; // Called with the world x and tree of every growth step
+    private Tree[] trees = new Tree[INITIAL_CAPACITY]; // Live trees that are still growing
+    private int[] worldXs = new int[INITIAL_CAPACITY]; // World x coordinate of each tree's column
+    private double[] plantedTimes = new double[INITIAL_CAPACITY]; // Clock time each tree was planted at
+    private byte[] stages = new byte[INITIAL_CAPACITY]; // Growth stage each tree currently shows
+    private int count = 0; // Number of growing trees
+    private int cursor = 0; // Index of the next tree to visit
+
+    /**
+     * Constructs a TreeGrowth object.
+     *
+     * @param seed    The seed of the world.
+     * @param clock   The clock the trees grow by.
+     * @param onGrown A BiConsumer called with the world x coordinate and tree of every tree that grows to
+     *                another stage.
+     */
+    TreeGrowth(int seed, WorldClock clock, BiConsumer<Integer, Tree> onGrown) {
+        this.seed = seed;
+        this.clock = clock;
+        this.onGrown = onGrown;
+    }
+
+    /**
+     * Draws the time the tree of a column was planted at. Trees were planted up to a few growth durations
+     * before the clock started, so a new world holds both grown trees and saplings.
+     * May be called concurrently.
+     *
+     * @param worldX The world x coordinate of the column.
+     * @return The clock time the tree was planted at.
+     */
+    double plantedTimeOf(int worldX) {
+        Random random = new Random(Objects.hash(worldX, seed, PLANTING_SALT));
+        return -random.nextDouble() * PLANTING_SPREAD * getGrowthDuration();
+    }
+
+    /**
+     * Computes the growth stage of a tree at the current clock time. May be called concurrently.
+     *
+     * @param plantedTime The clock time the tree was planted at.
+     * @return The growth stage, from 0 for a new sapling to FULL_GROWTH_STAGE.
+     */
+    int stageAt(double plantedTime) {
+        double growth = (clock.getTime() - plantedTime) / getGrowthDuration();
+        return (int) Math.max(0, Math.min(FULL_GROWTH_STAGE, growth * FULL_GROWTH_STAGE));
+    }
+
+    /**
+     * Starts growing a live tree, unless it is already fully grown.
+     *
+     * @param tree   The tree, created at its current stage.
+     * @param worldX The world x coordinate of the tree's column.
+     */
+    void track(Tree tree, int worldX) {
+        if (tree.getGrowthStage() >= FULL_GROWTH_STAGE) {
+            return;
+        }
+        if (count == trees.length) {
+            trees = Arrays.copyOf(trees, count * 2);
+            worldXs = Arrays.copyOf(worldXs, count * 2);
+            plantedTimes = Arrays.copyOf(plantedTimes, count * 2);
+            stages = Arrays.copyOf(stages, count * 2);
+        }
+        trees[count] = tree;
+        worldXs[count] = worldX;
+        plantedTimes[count] = plantedTimeOf(worldX);
+        stages[count] = (byte) tree.getGrowthStage();
+        count++;
+    }
+
+    /**
+     * Stops growing a tree that left the game.
+     *
+     * @param tree The tree.
+     */
+    void untrack(Tree tree) {
+        for (int i = 0; i < count; i++) {
+            if (trees[i] == tree) {
+                removeAt(i);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Visits the next slice of growing trees, and moves the trees whose stage changed to their new stage,
+     * reporting them to the growth callback. Trees that are fully grown stop being visited.
+     *
+     * @param addObject A BiConsumer that accepts a GameObject and an Integer representing the layer
+     *                  to which the object should be added in the GameObjectCollection.
+     */
+    void grow(BiConsumer<GameObject, Integer> addObject) {
+        for (int visited = 0; visited < TREES_PER_FRAME && count > 0; visited++) {
+            if (cursor >= count) {
+                cursor = 0;
+            }
+            int stage = stageAt(plantedTimes[cursor]);
+            if (stage != stages[cursor]) {
+                stages[cursor] = (byte) stage;
+                trees[cursor].setGrowthStage(stage, addObject);
+                onGrown.accept(worldXs[cursor], trees[cursor]);
+            }
+            if (stage >= FULL_GROWTH_STAGE) {
+                removeAt(cursor);
+            } else {
+                cursor++;
+            }
+        }
+    }
+
+    /**
+     * Retrieves the number of trees that are still growing.
+     *
+     * @return The number of growing trees.
+     */
+    int getGrowingCount() {
+        return count;
+    }
+
+    /**
+     * Retrieves the clock time a sapling takes to grow fully.
+     *
+     * @return The growth duration, in clock seconds.
+     */
+    private double getGrowthDuration() {
+        return (double) GROWTH_CYCLES * clock.getCycleLength();
+    }
+
+    /**
+     * Removes a growing tree by moving the last one into its place.
+     *
+     * @param index The index of the tree to remove.
+     */
+    private void removeAt(int index) {
+        count--;
+        trees[index] = trees[count];
+        worldXs[index] = worldXs[count];
+        plantedTimes[index] = plantedTimes[count];
+        stages[index] = stages[count];
+        trees[count] = null;
+    }
+}
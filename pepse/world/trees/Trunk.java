@@ -1,20 +1,18 @@
 package pepse.world.trees;
 
-import danogl.GameObject;
 import danogl.components.GameObjectPhysics;
 import danogl.gui.rendering.RectangleRenderable;
 import danogl.util.Vector2;
+import pepse.world.SleepableGameObject;
 
 /**
  * Represents the trunk of a tree GameObject in the game world.
  */
-public class Trunk extends GameObject {
+public class Trunk extends SleepableGameObject {
 
     private static final String TRUNK_TAG = "trunk";
     private static final float HALF_FACTOR = 0.5f;
 
-    private final Vector2 topOfTheTree;
-
     /**
      * Constructs a Trunk object with the specified position, dimensions, and renderable component.
      *
@@ -24,7 +22,6 @@ public class Trunk extends GameObject {
      */
     public Trunk(Vector2 topLeftCorner, Vector2 dimensions, RectangleRenderable rectangleRenderable) {
         super(topLeftCorner, dimensions, rectangleRenderable);
-        this.topOfTheTree = topLeftCorner.add(new Vector2(dimensions.x() * HALF_FACTOR, 0));
 
         // Prevent the game object from intersecting with other game objects from any direction
         physics().preventIntersectionsFromDirection(Vector2.ZERO);
@@ -41,7 +38,7 @@ public class Trunk extends GameObject {
      * @return The top position of the trunk.
      */
     public Vector2 getTopOfTheTree() {
-        return topOfTheTree;
+        return getTopLeftCorner().add(new Vector2(getDimensions().x() * HALF_FACTOR, 0));
     }
 
 }
\ No newline at end of file